@@ -0,0 +1,145 @@
+package com.tddapps.handlers;
+
+import com.tddapps.handlers.infrastructure.ApiGatewayHandler;
+import com.tddapps.handlers.infrastructure.ApiGatewayResponse;
+import com.tddapps.handlers.infrastructure.BatchItemMessage;
+import com.tddapps.handlers.infrastructure.TextMessage;
+import com.tddapps.ioc.IocContainer;
+import com.tddapps.model.*;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import com.tddapps.model.heartbeats.HeartBeatParseResult;
+import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@SuppressWarnings("unused")
+@Log4j2
+public class HeartBeatBatchPost extends ApiGatewayHandler {
+    public static final String SAVE_FAILED_MESSAGE = "HeartBeat could not be saved";
+
+    private final HeartBeatRepository heartBeatRepository;
+    private final SettingsReader settingsReader;
+    private final HeartBeatParser heartBeatParser;
+    private final HeartBeatCoalescer heartBeatCoalescer;
+
+    public HeartBeatBatchPost(){
+        this(
+                IocContainer.getInstance().Resolve(HeartBeatRepository.class),
+                IocContainer.getInstance().Resolve(SettingsReader.class),
+                IocContainer.getInstance().Resolve(HeartBeatParser.class),
+                IocContainer.getInstance().Resolve(HeartBeatCoalescer.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
+        );
+    }
+
+    public HeartBeatBatchPost(
+            HeartBeatRepository heartBeatRepository,
+            SettingsReader settingsReader,
+            HeartBeatParser heartBeatParser,
+            HeartBeatCoalescer heartBeatCoalescer,
+            MetricsRecorder metrics) {
+        super(metrics);
+        this.heartBeatRepository = heartBeatRepository;
+        this.settingsReader = settingsReader;
+        this.heartBeatParser = heartBeatParser;
+        this.heartBeatCoalescer = heartBeatCoalescer;
+    }
+
+    @Override
+    protected ApiGatewayResponse processRequest(Map<String, Object> input){
+        try {
+            val requestBody = readBodyFrom(input);
+            val parseResults = heartBeatParser.parseUnsanitizedJsonBatch(requestBody);
+            val heartBeats = readValidHeartBeats(parseResults);
+
+            log.info(String.format("HeartBeatCount: %d; InvalidCount: %d;",
+                    heartBeats.length, parseResults.length - heartBeats.length));
+
+            val unsavedHostIds = new HashSet<String>();
+            if (heartBeats.length > 0){
+                for (val hb : heartBeatRepository.Save(heartBeatCoalescer.coalesce(heartBeats))){
+                    unsavedHostIds.add(hb.getHostId());
+                }
+            }
+
+            return ApiGatewayResponse.builder()
+                    .setStatusCode(200)
+                    .setObjectBody(toMessages(parseResults, unsavedHostIds))
+                    .build();
+        }
+        catch (ParseException e) {
+            log.warn("Action parsing failed", e);
+
+            return ApiGatewayResponse.builder()
+                    .setStatusCode(400)
+                    .setObjectBody(TextMessage.create(e.getMessage()))
+                    .build();
+        } catch (DalException e) {
+            log.error("Action processing failed", e);
+
+            return ApiGatewayResponse.builder()
+                    .setStatusCode(500)
+                    .setObjectBody(TextMessage.create(e.getMessage()))
+                    .build();
+        }
+    }
+
+    private HeartBeat[] readValidHeartBeats(HeartBeatParseResult[] parseResults) {
+        val result = Arrays.stream(parseResults)
+                .filter(HeartBeatParseResult::isValid)
+                .map(HeartBeatParseResult::getHeartBeat)
+                .toArray(HeartBeat[]::new);
+
+        val region = ReadRegion();
+        for (val hb : result){
+            hb.setRegion(region);
+        }
+
+        return result;
+    }
+
+    private static BatchItemMessage[] toMessages(HeartBeatParseResult[] parseResults, Set<String> unsavedHostIds) {
+        return Arrays.stream(parseResults)
+                .map(r -> toMessage(r, unsavedHostIds))
+                .toArray(BatchItemMessage[]::new);
+    }
+
+    private static BatchItemMessage toMessage(HeartBeatParseResult parseResult, Set<String> unsavedHostIds) {
+        if (parseResult.isValid()){
+            val hostId = parseResult.getHeartBeat().getHostId();
+
+            return BatchItemMessage.create(
+                    parseResult.getIndex(),
+                    hostId,
+                    unsavedHostIds.contains(hostId) ? SAVE_FAILED_MESSAGE : TextMessage.OK.getMessage()
+            );
+        }
+
+        return BatchItemMessage.create(parseResult.getIndex(), "", parseResult.getError());
+    }
+
+    private String ReadRegion() {
+        return settingsReader.ReadString(Settings.AWS_REGION);
+    }
+
+    private String readBodyFrom(Map<String, Object> input){
+        val bodyObject = input.getOrDefault("body", "");
+
+        if (bodyObject == null){
+            return "";
+        }
+
+        return bodyObject.toString();
+    }
+}
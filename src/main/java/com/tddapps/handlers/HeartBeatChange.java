@@ -3,98 +3,151 @@ package com.tddapps.handlers;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.handlers.infrastructure.StreamBatchResponse;
 import com.tddapps.ioc.IocContainer;
 import com.tddapps.model.*;
-import com.tddapps.model.internal.aws.DynamoDBEventParser;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.internal.aws.DynamoDBEventClassifier;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
-import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HeartBeatModification;
+import com.tddapps.model.heartbeats.HeartBeatStreamChanges;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
 import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
 import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationLedger;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
 import com.tddapps.model.notifications.NotificationSender;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
-import lombok.var;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.function.Supplier;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
 import static com.tddapps.utils.CollectionExtensions.Difference;
 import static com.tddapps.utils.CollectionExtensions.Intersection;
+import static com.tddapps.utils.ExecutorExtensions.NewBoundedThreadPool;
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
 
 @Log4j2
 @SuppressWarnings("unused")
-public class HeartBeatChange implements RequestHandler<DynamodbEvent, Boolean> {
+public class HeartBeatChange implements RequestHandler<DynamodbEvent, StreamBatchResponse> {
     private static final String FALSE_NUMERIC_STRING = "0";
+    public static final int DEFAULT_SEND_CONCURRENCY = 8;
+    private static final int SEND_BATCH_SIZE = 10;
+    public static final int DEFAULT_SEND_TIME_MARGIN_MS = 1000;
+    private static final String AGGREGATED_NOTIFICATION_MODE = "aggregated";
     private final HeartBeatChangeEventNotificationBuilder notificationBuilder;
+    private final HostFlapDetector flapDetector;
     private final NotificationSender notificationSender;
-    private final RequestHandlerHelper requestHandlerHelper;
-    private final DynamoDBEventParser eventParser;
+    private final NotificationLedger notificationLedger;
+    private final HeartBeatChangeEventQueue eventQueue;
+    private final DynamoDBEventClassifier eventClassifier;
+    private final SettingsReader settingsReader;
+    private final MetricsRecorder metrics;
+    private final ExecutorService sendExecutor;
 
     public HeartBeatChange(){
         this(
                 IocContainer.getInstance().Resolve(HeartBeatChangeEventNotificationBuilder.class),
+                IocContainer.getInstance().Resolve(HostFlapDetector.class),
                 IocContainer.getInstance().Resolve(NotificationSender.class),
-                IocContainer.getInstance().Resolve(RequestHandlerHelper.class),
-                IocContainer.getInstance().Resolve(DynamoDBEventParser.class)
+                IocContainer.getInstance().Resolve(NotificationLedger.class),
+                IocContainer.getInstance().Resolve(HeartBeatChangeEventQueue.class),
+                IocContainer.getInstance().Resolve(DynamoDBEventClassifier.class),
+                IocContainer.getInstance().Resolve(SettingsReader.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
         );
     }
 
     public HeartBeatChange(
             HeartBeatChangeEventNotificationBuilder notificationBuilder,
+            HostFlapDetector flapDetector,
             NotificationSender notificationSender,
-            RequestHandlerHelper requestHandlerHelper,
-            DynamoDBEventParser eventParser) {
+            NotificationLedger notificationLedger,
+            HeartBeatChangeEventQueue eventQueue,
+            DynamoDBEventClassifier eventClassifier,
+            SettingsReader settingsReader,
+            MetricsRecorder metrics) {
         this.notificationBuilder = notificationBuilder;
+        this.flapDetector = flapDetector;
         this.notificationSender = notificationSender;
-        this.requestHandlerHelper = requestHandlerHelper;
-        this.eventParser = eventParser;
+        this.notificationLedger = notificationLedger;
+        this.eventQueue = eventQueue;
+        this.eventClassifier = eventClassifier;
+        this.settingsReader = settingsReader;
+        this.metrics = metrics;
+        this.sendExecutor = NewBoundedThreadPool("notification-sends", readSendConcurrency());
     }
 
     @Override
-    public Boolean handleRequest(DynamodbEvent input, Context context) {
+    public StreamBatchResponse handleRequest(DynamodbEvent input, Context context) {
+        val startNanos = System.nanoTime();
+
+        try {
+            return processRequest(input, context);
+        } finally {
+            metrics.Record("Latency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+            metrics.Flush(getClass().getSimpleName());
+        }
+    }
+
+    private StreamBatchResponse processRequest(DynamodbEvent input, Context context) {
         log.debug("HeartBeat Change");
 
-        val allDeletedHeartBeats = readDeletedHeartBeats(input);
-        val allInsertedHeartBeats = readInsertedHeartBeats(input);
-        val intersection = Intersection(allDeletedHeartBeats, allInsertedHeartBeats);
+        val changes = eventClassifier.classify(input);
+        logChanges(changes);
+        metrics.Record("StreamRecords", changes.getRecordCount(), MetricUnit.COUNT);
+
+        val allDeletedHeartBeats = changes.getDeletions();
+        val allInsertedHeartBeats = changes.getInsertions();
+        val intersection = Intersection(allDeletedHeartBeats, allInsertedHeartBeats, HeartBeat::getHostId);
         logHeartBeatsThatFlipped(intersection);
 
-        val deletedHeartBeats = Difference(allDeletedHeartBeats, intersection);
-        val insertedHeartBeats = Difference(allInsertedHeartBeats, intersection);
+        val deletedHeartBeats = Difference(allDeletedHeartBeats, intersection, HeartBeat::getHostId);
+        val insertedHeartBeats = Difference(allInsertedHeartBeats, intersection, HeartBeat::getHostId);
 
-        val events = new ArrayList<HeartBeatChangeEvent>(){{
+        val allEvents = new ArrayList<HeartBeatChangeEvent>(){{
             addAll(buildEvents("Hosts missing", deletedHeartBeats));
             addAll(buildEvents("Hosts registered", insertedHeartBeats));
+            addAll(buildModificationEvents(changes.getModifications()));
         }}.toArray(new HeartBeatChangeEvent[0]);
-        logEvents(events);
-
-        val notifications = notificationBuilder.build(events);
-        val result = sendNotifications(notifications);
-
-        log.info(String.format("HeartBeat Change Completed; Result: %s", result));
-
-        return result;
-    }
-
-    private List<HeartBeat> readDeletedHeartBeats(DynamodbEvent input){
-        return filter("Deletions", () -> eventParser.readDeletions(input, HeartBeat.class));
-    }
+        for (val e : allEvents){
+            e.setSequenceNumber(changes.getSequenceNumbers().get(e.getHeartBeat().getHostId()));
+            e.setEpochSecond(changes.getCreationEpochSeconds().getOrDefault(e.getHeartBeat().getHostId(), 0L));
+        }
 
-    private List<HeartBeat> readInsertedHeartBeats(DynamodbEvent input){
-        return filter("Insertions", () -> eventParser.readInsertions(input, HeartBeat.class));
-    }
+        val events = flapDetector.filter(allEvents);
+        logEvents(events);
 
-    private List<HeartBeat> filter(String listName, Supplier<List<HeartBeat>> fn){
-        val all = fn.get().toArray(new HeartBeat[0]);
+        if (isAggregatedNotificationEnabled()){
+            return enqueueEvents(input, events);
+        }
 
-        val result = Arrays.stream(requestHandlerHelper.filter(all))
-                .collect(Collectors.toList());
+        val notifications = notificationBuilder.build(readUnsentEvents(events));
+        val failedNotifications = sendNotifications(notifications, readSendDeadlineNanos(context));
+        val result = buildResponse(input, failedNotifications);
+        metrics.Record("Notifications", notifications.length, MetricUnit.COUNT);
+        metrics.Record("FailedNotifications", failedNotifications.size(), MetricUnit.COUNT);
 
-        logMismatch(listName, all, result.toArray(new HeartBeat[0]));
+        log.info(String.format("HeartBeat Change Completed; Result: %s; FailedRecordCount: %d",
+                result.getBatchItemFailures().isEmpty(), result.getBatchItemFailures().size()));
 
         return result;
     }
@@ -105,9 +158,13 @@ public class HeartBeatChange implements RequestHandler<DynamodbEvent, Boolean> {
         }
     }
 
-    private void logMismatch(String listName, HeartBeat[] allHeartBeats, HeartBeat[] subsetCount) {
-        log.info(String.format("%sHeartBeatCount: %d; ResultCount: %d;",
-                listName, allHeartBeats.length, subsetCount.length));
+    private void logChanges(HeartBeatStreamChanges changes) {
+        log.info(String.format("RecordCount: %d; DeletionCount: %d; InsertionCount: %d; ModificationCount: %d; SkippedCount: %d;",
+                changes.getRecordCount(),
+                changes.getDeletions().size(),
+                changes.getInsertions().size(),
+                changes.getModifications().size(),
+                changes.getSkippedCount()));
     }
 
     private static void logHeartBeatsThatFlipped(List<HeartBeat> heartBeats){
@@ -123,18 +180,226 @@ public class HeartBeatChange implements RequestHandler<DynamodbEvent, Boolean> {
                 .collect(Collectors.toList());
     }
 
-    private Boolean sendNotifications(Notification[] notifications) {
-        var result = true;
+    private List<HeartBeatChangeEvent> buildModificationEvents(List<HeartBeatModification> modifications) {
+        return modifications
+                .stream()
+                .map(m -> new HeartBeatChangeEvent(readModificationType(m), m.getNewHeartBeat()))
+                .collect(Collectors.toList());
+    }
+
+    private static String readModificationType(HeartBeatModification modification) {
+        if (modification.isRegionChange()){
+            return "Hosts moved";
+        }
+
+        if (modification.isTestChange()){
+            return "Hosts test flag changed";
+        }
+
+        return "Hosts ttl shortened";
+    }
+
+    private StreamBatchResponse enqueueEvents(DynamodbEvent input, HeartBeatChangeEvent[] events) {
+        val result = new StreamBatchResponse();
+        if (events.length == 0){
+            return result;
+        }
 
-        for (val n : notifications){
-            try {
-                notificationSender.Send(n);
-            } catch (DalException e) {
-                log.error("Send notification failed", e);
-                result = false;
+        val failedEvents = eventQueue.Send(events);
+
+        val failedSequenceNumbers = new LinkedHashSet<String>();
+        for (val event : failedEvents){
+            if (event.getSequenceNumber() == null){
+                failedSequenceNumbers.add(readFirstSequenceNumber(input));
+            } else {
+                failedSequenceNumbers.add(event.getSequenceNumber());
             }
         }
 
+        for (val sequenceNumber : failedSequenceNumbers){
+            result.getBatchItemFailures().add(new BatchItemFailure(sequenceNumber));
+        }
+
+        metrics.Record("FailedEnqueuedEvents", failedEvents.length, MetricUnit.COUNT);
+        log.info(String.format("HeartBeat Change Enqueued; EventCount: %d; FailedEventCount: %d",
+                events.length, failedEvents.length));
+
         return result;
     }
+
+    private StreamBatchResponse buildResponse(DynamodbEvent input, List<Notification> failedNotifications) {
+        val result = new StreamBatchResponse();
+        if (failedNotifications.isEmpty()){
+            return result;
+        }
+
+        val failedSequenceNumbers = new LinkedHashSet<String>();
+        for (val notification : failedNotifications){
+            if (notification.getSourceSequenceNumbers().isEmpty()){
+                failedSequenceNumbers.add(readFirstSequenceNumber(input));
+            } else {
+                failedSequenceNumbers.addAll(notification.getSourceSequenceNumbers());
+            }
+        }
+
+        for (val sequenceNumber : failedSequenceNumbers){
+            result.getBatchItemFailures().add(new BatchItemFailure(sequenceNumber));
+        }
+
+        return result;
+    }
+
+    private HeartBeatChangeEvent[] readUnsentEvents(HeartBeatChangeEvent[] events) {
+        if (events.length == 0){
+            return events;
+        }
+
+        val eventIds = Arrays.stream(events)
+                .map(NotificationLedgerEntry::BuildId)
+                .toArray(String[]::new);
+        val sentIds = readSentEventIds(eventIds);
+
+        val result = IntStream.range(0, events.length)
+                .filter(i -> !sentIds.contains(eventIds[i]))
+                .mapToObj(i -> events[i])
+                .toArray(HeartBeatChangeEvent[]::new);
+
+        log.info(String.format("Notification Ledger; EventCount: %d; AlreadySentCount: %d",
+                events.length, events.length - result.length));
+
+        return result;
+    }
+
+    private List<Notification> sendNotifications(Notification[] notifications, long deadlineNanos) {
+        val failedNotifications = new ArrayList<Notification>();
+        if (notifications.length == 0){
+            return failedNotifications;
+        }
+
+        val batches = Split(IntStream.range(0, notifications.length).boxed().toArray(), SEND_BATCH_SIZE);
+        val sends = Arrays.stream(batches)
+                .map(batch -> sendExecutor.submit(() -> sendBatch(readNotifications(notifications, batch), deadlineNanos)))
+                .collect(Collectors.toList());
+
+        try {
+            val sentNotifications = new ArrayList<Notification>();
+            for (int i = 0; i < sends.size(); i++) {
+                val batch = batches[i];
+                val sent = waitForSend(sends.get(i), batch.length);
+
+                for (int j = 0; j < batch.length; j++) {
+                    val notification = notifications[(int) batch[j]];
+                    if (sent[j]){
+                        sentNotifications.add(notification);
+                    } else {
+                        failedNotifications.add(notification);
+                    }
+                }
+            }
+
+            saveSentEventIds(sentNotifications, failedNotifications);
+            return failedNotifications;
+        } finally {
+            for (val send : sends){
+                send.cancel(true);
+            }
+        }
+    }
+
+    private static Notification[] readNotifications(Notification[] notifications, Object[] indexes) {
+        return Arrays.stream(indexes)
+                .map(i -> notifications[(int) i])
+                .toArray(Notification[]::new);
+    }
+
+    private Set<String> readSentEventIds(String[] eventIds) {
+        try {
+            return notificationLedger.ReadSent(eventIds);
+        } catch (DalException e) {
+            log.warn("Notification Ledger Read failed", e);
+            return new HashSet<>();
+        }
+    }
+
+    private void saveSentEventIds(List<Notification> sentNotifications, List<Notification> failedNotifications) {
+        // an event split across several notifications is only sent when all of them were
+        val failedIds = failedNotifications
+                .stream()
+                .flatMap(n -> n.getSourceEventIds().stream())
+                .collect(Collectors.toSet());
+        val eventIds = sentNotifications
+                .stream()
+                .flatMap(n -> n.getSourceEventIds().stream())
+                .filter(id -> !failedIds.contains(id))
+                .distinct()
+                .toArray(String[]::new);
+
+        if (eventIds.length == 0){
+            return;
+        }
+
+        try {
+            notificationLedger.Save(eventIds);
+        } catch (DalException e) {
+            log.warn("Notification Ledger Save failed", e);
+        }
+    }
+
+    private static String readFirstSequenceNumber(DynamodbEvent input) {
+        val records = input.getRecords();
+        if (records == null || records.isEmpty()){
+            return "";
+        }
+
+        return readSequenceNumber(records.get(0));
+    }
+
+    private static String readSequenceNumber(DynamodbEvent.DynamodbStreamRecord record) {
+        if (record.getDynamodb() == null){
+            return "";
+        }
+
+        return EmptyWhenNull(record.getDynamodb().getSequenceNumber());
+    }
+
+    private boolean[] sendBatch(Notification[] notifications, long deadlineNanos) {
+        val startNanos = System.nanoTime();
+        val result = notificationSender.SendBatch(notifications, deadlineNanos);
+
+        log.info(String.format("Notification SendBatch; ElapsedMs: %d; NotificationCount: %d; FailedCount: %d",
+                (System.nanoTime() - startNanos) / 1000000,
+                notifications.length,
+                IntStream.range(0, result.length).filter(i -> !result[i]).count()));
+
+        return result;
+    }
+
+    private static boolean[] waitForSend(Future<boolean[]> send, int notificationCount) {
+        try {
+            return send.get();
+        } catch (ExecutionException e) {
+            log.error("Send notification failed", e.getCause());
+            return new boolean[notificationCount];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new boolean[notificationCount];
+        }
+    }
+
+    private boolean isAggregatedNotificationEnabled() {
+        return AGGREGATED_NOTIFICATION_MODE.equalsIgnoreCase(settingsReader.ReadString(Settings.NOTIFICATION_MODE, ""));
+    }
+
+    private long readSendDeadlineNanos(Context context) {
+        if (context == null){
+            return Long.MAX_VALUE;
+        }
+
+        val marginMs = settingsReader.ReadInt(Settings.NOTIFICATION_SEND_TIME_MARGIN_MS, DEFAULT_SEND_TIME_MARGIN_MS);
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(context.getRemainingTimeInMillis() - marginMs);
+    }
+
+    private int readSendConcurrency() {
+        return Math.max(1, settingsReader.ReadInt(Settings.NOTIFICATION_SEND_CONCURRENCY, DEFAULT_SEND_CONCURRENCY));
+    }
 }
@@ -0,0 +1,155 @@
+package com.tddapps.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.handlers.infrastructure.QueueBatchResponse;
+import com.tddapps.ioc.IocContainer;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.internal.aws.HeartBeatChangeEventQueueSqs;
+import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationSender;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Log4j2
+@SuppressWarnings("unused")
+public class HeartBeatChangeAggregator implements RequestHandler<SQSEvent, QueueBatchResponse> {
+    private final HeartBeatChangeEventNotificationBuilder notificationBuilder;
+    private final NotificationSender notificationSender;
+    private final HeartBeatJsonConverter jsonConverter;
+    private final SettingsReader settingsReader;
+    private final MetricsRecorder metrics;
+
+    public HeartBeatChangeAggregator(){
+        this(
+                IocContainer.getInstance().Resolve(HeartBeatChangeEventNotificationBuilder.class),
+                IocContainer.getInstance().Resolve(NotificationSender.class),
+                IocContainer.getInstance().Resolve(HeartBeatJsonConverter.class),
+                IocContainer.getInstance().Resolve(SettingsReader.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
+        );
+    }
+
+    public HeartBeatChangeAggregator(
+            HeartBeatChangeEventNotificationBuilder notificationBuilder,
+            NotificationSender notificationSender,
+            HeartBeatJsonConverter jsonConverter,
+            SettingsReader settingsReader,
+            MetricsRecorder metrics) {
+        this.notificationBuilder = notificationBuilder;
+        this.notificationSender = notificationSender;
+        this.jsonConverter = jsonConverter;
+        this.settingsReader = settingsReader;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public QueueBatchResponse handleRequest(SQSEvent input, Context context) {
+        val startNanos = System.nanoTime();
+
+        try {
+            return processRequest(input, context);
+        } finally {
+            metrics.Record("Latency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+            metrics.Flush(getClass().getSimpleName());
+        }
+    }
+
+    private QueueBatchResponse processRequest(SQSEvent input, Context context) {
+        log.debug("HeartBeat Change Aggregator");
+
+        val events = readEvents(input);
+        val notifications = notificationBuilder.build(events);
+        val sent = notifications.length == 0 ?
+                new boolean[0] :
+                notificationSender.SendBatch(notifications, readSendDeadlineNanos(context));
+        val failedNotifications = IntStream.range(0, notifications.length)
+                .filter(i -> !sent[i])
+                .mapToObj(i -> notifications[i])
+                .toArray(Notification[]::new);
+        val result = buildResponse(input, failedNotifications);
+
+        metrics.Record("AggregatedEvents", events.length, MetricUnit.COUNT);
+        metrics.Record("Notifications", notifications.length, MetricUnit.COUNT);
+        metrics.Record("FailedNotifications", failedNotifications.length, MetricUnit.COUNT);
+
+        log.info(String.format("HeartBeat Change Aggregator Completed; MessageCount: %d; EventCount: %d; NotificationCount: %d; FailedNotificationCount: %d; FailedMessageCount: %d;",
+                input.getRecords().size(), events.length, notifications.length, failedNotifications.length, result.getBatchItemFailures().size()));
+
+        return result;
+    }
+
+    private static QueueBatchResponse buildResponse(SQSEvent input, Notification[] failedNotifications) {
+        val result = new QueueBatchResponse();
+        val failedMessageIds = new LinkedHashSet<String>();
+
+        for (val notification : failedNotifications){
+            if (notification.getSourceSequenceNumbers().isEmpty()){
+                input.getRecords().forEach(m -> failedMessageIds.add(m.getMessageId()));
+            } else {
+                failedMessageIds.addAll(notification.getSourceSequenceNumbers());
+            }
+        }
+
+        for (val messageId : failedMessageIds){
+            result.getBatchItemFailures().add(new BatchItemFailure(messageId));
+        }
+
+        return result;
+    }
+
+    private HeartBeatChangeEvent[] readEvents(SQSEvent input) {
+        val result = new ArrayList<HeartBeatChangeEvent>(input.getRecords().size());
+
+        for (val message : input.getRecords()){
+            val type = readEventType(message);
+            if (type == null){
+                log.warn(String.format("Discarding message without event type; messageId: %s", message.getMessageId()));
+                continue;
+            }
+
+            try {
+                val event = new HeartBeatChangeEvent(type, jsonConverter.fromJson(message.getBody()));
+                // the message id takes the place of the stream sequence number to report the failed messages
+                event.setSequenceNumber(message.getMessageId());
+                result.add(event);
+            } catch (ParseException e) {
+                log.warn(String.format("Discarding invalid message; messageId: %s", message.getMessageId()), e);
+            }
+        }
+
+        return result.toArray(new HeartBeatChangeEvent[0]);
+    }
+
+    private long readSendDeadlineNanos(Context context) {
+        if (context == null){
+            return Long.MAX_VALUE;
+        }
+
+        val marginMs = settingsReader.ReadInt(Settings.NOTIFICATION_SEND_TIME_MARGIN_MS, HeartBeatChange.DEFAULT_SEND_TIME_MARGIN_MS);
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(context.getRemainingTimeInMillis() - marginMs);
+    }
+
+    private static String readEventType(SQSEvent.SQSMessage message) {
+        if (message.getMessageAttributes() == null){
+            return null;
+        }
+
+        val attribute = message.getMessageAttributes().get(HeartBeatChangeEventQueueSqs.EVENT_TYPE_ATTRIBUTE);
+        return attribute == null ? null : attribute.getStringValue();
+    }
+}
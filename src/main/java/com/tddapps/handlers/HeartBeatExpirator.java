@@ -4,61 +4,240 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.tddapps.ioc.IocContainer;
 import com.tddapps.model.*;
-import com.tddapps.model.heartbeats.HeartBeat;
-import com.tddapps.model.heartbeats.HeartBeatRepository;
-import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.ExpirationWatermark;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
+import com.tddapps.model.notifications.NotificationSender;
 import com.tddapps.utils.NowReader;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
+import static com.tddapps.utils.DateExtensions.ToUtcString;
+import static com.tddapps.utils.ExecutorExtensions.NewBoundedThreadPool;
 
 @Log4j2
 @SuppressWarnings("unused")
 public class HeartBeatExpirator implements RequestHandler<Map<String, Object>, Boolean> {
-    private final int MAX_COUNT_TO_PROCESS = 25;
+    public static final int SAFETY_MARGIN_MS = 5000;
+    public static final int MAX_CATCH_UP_MINUTES = 180;
+    public static final int DEFAULT_CATCH_UP_CONCURRENCY = 3;
 
-    private final HeartBeatRepository heartBeatRepository;
+    private final HeartBeatExpirationSweeper sweeper;
+    private final ExpirationWatermarkRepository watermarkRepository;
+    private final HostFlapDetector flapDetector;
+    private final HeartBeatChangeEventNotificationBuilder notificationBuilder;
+    private final NotificationSender notificationSender;
+    private final SettingsReader settingsReader;
     private final NowReader nowReader;
-    private final RequestHandlerHelper requestHandlerHelper;
+    private final MetricsRecorder metrics;
+    private final ExecutorService executor;
 
     public HeartBeatExpirator(){
         this(
-                IocContainer.getInstance().Resolve(HeartBeatRepository.class),
+                IocContainer.getInstance().Resolve(HeartBeatExpirationSweeper.class),
+                IocContainer.getInstance().Resolve(ExpirationWatermarkRepository.class),
+                IocContainer.getInstance().Resolve(HostFlapDetector.class),
+                IocContainer.getInstance().Resolve(HeartBeatChangeEventNotificationBuilder.class),
+                IocContainer.getInstance().Resolve(NotificationSender.class),
+                IocContainer.getInstance().Resolve(SettingsReader.class),
                 IocContainer.getInstance().Resolve(NowReader.class),
-                IocContainer.getInstance().Resolve(RequestHandlerHelper.class)
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
         );
     }
 
-    public HeartBeatExpirator(HeartBeatRepository heartBeatRepository, NowReader nowReader, RequestHandlerHelper requestHandlerHelper) {
-        this.heartBeatRepository = heartBeatRepository;
+    public HeartBeatExpirator(
+            HeartBeatExpirationSweeper sweeper,
+            ExpirationWatermarkRepository watermarkRepository,
+            HostFlapDetector flapDetector,
+            HeartBeatChangeEventNotificationBuilder notificationBuilder,
+            NotificationSender notificationSender,
+            SettingsReader settingsReader,
+            NowReader nowReader,
+            MetricsRecorder metrics) {
+        this.sweeper = sweeper;
+        this.watermarkRepository = watermarkRepository;
+        this.flapDetector = flapDetector;
+        this.notificationBuilder = notificationBuilder;
+        this.notificationSender = notificationSender;
+        this.settingsReader = settingsReader;
         this.nowReader = nowReader;
-        this.requestHandlerHelper = requestHandlerHelper;
+        this.metrics = metrics;
+        this.executor = NewBoundedThreadPool("expiration-catch-up", readCatchUpConcurrency());
     }
 
     @Override
     public Boolean handleRequest(Map<String, Object> input, Context context) {
+        val startNanos = System.nanoTime();
+
         try {
             log.info("Removing expired HeartBeats");
 
-            val expiredHeartBeats = readHeartBeatsExpiredAMinuteAgo();
-            val heartBeatsToDelete = requestHandlerHelper.filter(expiredHeartBeats);
+            val result = sweepPendingMinutes(hasTimeRemaining(context));
+            notifySettledHosts(context);
 
-            heartBeatRepository.Delete(heartBeatsToDelete);
-
-            log.info("Removing expired HeartBeats Completed");
-            return true;
+            log.info(String.format("Removing expired HeartBeats Completed; Result: %s", result));
+            return result;
         } catch (DalException e) {
             log.error("Removing expired HeartBeats failed", e);
             return false;
+        } finally {
+            metrics.Record("Latency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+            metrics.Flush(getClass().getSimpleName());
+        }
+    }
+
+    private boolean sweepPendingMinutes(BooleanSupplier hasTimeRemaining) throws DalException {
+        val watermark = readWatermark();
+        val pendingMinutes = readPendingMinutes(watermark);
+        log.info(String.format("%s; PendingMinuteCount: %d;", watermark, pendingMinutes.size()));
+        metrics.Record("ExpirationBacklogMinutes", pendingMinutes.size(), MetricUnit.COUNT);
+        metrics.Record("ExpirationLagSeconds", Math.max(0, readLastExpiredMinute() - watermark.getMinuteEpochSecond()), MetricUnit.SECONDS);
+
+        val batchSize = readCatchUpConcurrency();
+        for (int i = 0; i < pendingMinutes.size() && hasTimeRemaining.getAsBoolean(); i += batchSize) {
+            val batch = pendingMinutes.subList(i, Math.min(i + batchSize, pendingMinutes.size()));
+            val sweptCount = sweep(batch, hasTimeRemaining);
+
+            metrics.Record("SweptMinutes", sweptCount, MetricUnit.COUNT);
+
+            if (sweptCount > 0){
+                watermark.setMinuteEpochSecond(batch.get(sweptCount - 1));
+                watermarkRepository.Save(watermark);
+            }
+
+            if (sweptCount < batch.size()){
+                return !hasTimeRemaining.getAsBoolean();
+            }
+        }
+
+        return true;
+    }
+
+    private void notifySettledHosts(Context context) {
+        val events = flapDetector.readSettled();
+        if (events.length == 0){
+            return;
+        }
+
+        val notifications = notificationBuilder.build(events);
+        val sent = notificationSender.SendBatch(notifications, readSendDeadlineNanos(context));
+
+        for (int i = 0; i < sent.length; i++) {
+            if (!sent[i]){
+                log.warn(String.format("Settled Hosts Notification failed; %s", notifications[i].toString()));
+                return;
+            }
+        }
+
+        flapDetector.markSettled(events);
+        metrics.Record("SettledHosts", events.length, MetricUnit.COUNT);
+    }
+
+    private int sweep(List<Long> minutes, BooleanSupplier hasTimeRemaining) {
+        val sweeps = new ArrayList<Future<Integer>>(minutes.size());
+        for (val minute : minutes){
+            sweeps.add(executor.submit(() -> sweeper.sweep(ToReverseUtcMinuteString(minute), hasTimeRemaining)));
+        }
+
+        try {
+            return waitForSweeps(minutes, sweeps, hasTimeRemaining);
+        } finally {
+            for (val task : sweeps){
+                task.cancel(true);
+            }
+        }
+    }
+
+    private static int waitForSweeps(List<Long> minutes, List<Future<Integer>> sweeps, BooleanSupplier hasTimeRemaining) {
+        var result = 0;
+        for (int i = 0; i < sweeps.size(); i++) {
+            try {
+                sweeps.get(i).get();
+            } catch (ExecutionException e) {
+                log.error(String.format("Sweep failed; minuteUtc: %s", ToUtcString(minutes.get(i))), e.getCause());
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+
+            if (!hasTimeRemaining.getAsBoolean()){
+                return result;
+            }
+
+            result++;
         }
+
+        return result;
     }
 
-    private HeartBeat[] readHeartBeatsExpiredAMinuteAgo() throws DalException {
-        val ttlNow = nowReader.ReadEpochSecond();
-        val previousMinuteString = ToReverseUtcMinuteString(ttlNow - 60);
+    private ExpirationWatermark readWatermark() throws DalException {
+        val region = settingsReader.ReadString(Settings.AWS_REGION);
+        val result = watermarkRepository.Read(region);
+
+        if (result == null){
+            return new ExpirationWatermark(region, readLastExpiredMinute() - 60);
+        }
+
+        return result;
+    }
+
+    private List<Long> readPendingMinutes(ExpirationWatermark watermark) {
+        val lastExpiredMinute = readLastExpiredMinute();
+        val oldestAllowedMinute = lastExpiredMinute - (MAX_CATCH_UP_MINUTES - 1) * 60L;
+        val firstPendingMinute = watermark.getMinuteEpochSecond() + 60;
+
+        if (firstPendingMinute < oldestAllowedMinute){
+            log.warn(String.format("Skipping minutes beyond the catch up limit; fromUtc: %s, toUtc: %s",
+                    ToUtcString(firstPendingMinute), ToUtcString(oldestAllowedMinute - 60)));
+        }
+
+        val result = new ArrayList<Long>();
+        for (long minute = Math.max(firstPendingMinute, oldestAllowedMinute); minute <= lastExpiredMinute; minute += 60) {
+            result.add(minute);
+        }
+        return result;
+    }
+
+    private long readLastExpiredMinute() {
+        val previousMinute = nowReader.ReadEpochSecond() - 60;
+        return previousMinute - Math.floorMod(previousMinute, 60);
+    }
+
+    private int readCatchUpConcurrency() {
+        return Math.max(1, settingsReader.ReadInt(Settings.EXPIRATION_CATCH_UP_CONCURRENCY, DEFAULT_CATCH_UP_CONCURRENCY));
+    }
+
+    private static long readSendDeadlineNanos(Context context) {
+        if (context == null){
+            return Long.MAX_VALUE;
+        }
+
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(context.getRemainingTimeInMillis() - SAFETY_MARGIN_MS);
+    }
+
+    private static BooleanSupplier hasTimeRemaining(Context context){
+        if (context == null){
+            return () -> true;
+        }
 
-        return heartBeatRepository.Read(previousMinuteString, MAX_COUNT_TO_PROCESS);
+        return () -> context.getRemainingTimeInMillis() > SAFETY_MARGIN_MS;
     }
 }
@@ -7,8 +7,9 @@ import com.tddapps.ioc.IocContainer;
 import com.tddapps.model.*;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
-import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
 import lombok.extern.log4j.Log4j2;
@@ -20,20 +21,33 @@ import java.util.Map;
 @SuppressWarnings("unused")
 @Log4j2
 public class HeartBeatPost extends ApiGatewayHandler {
+    private static final String QUEUE_INGESTION_MODE = "queue";
+    private static final TextMessage ACCEPTED = TextMessage.create("Accepted");
+
     private final HeartBeatRepository heartBeatRepository;
+    private final HeartBeatQueue heartBeatQueue;
     private final SettingsReader settingsReader;
     private final HeartBeatParser heartBeatParser;
 
     public HeartBeatPost(){
         this(
                 IocContainer.getInstance().Resolve(HeartBeatRepository.class),
+                IocContainer.getInstance().Resolve(HeartBeatQueue.class),
                 IocContainer.getInstance().Resolve(SettingsReader.class),
-                IocContainer.getInstance().Resolve(HeartBeatParser.class)
+                IocContainer.getInstance().Resolve(HeartBeatParser.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
         );
     }
 
-    public HeartBeatPost(HeartBeatRepository heartBeatRepository, SettingsReader settingsReader, HeartBeatParser heartBeatParser) {
+    public HeartBeatPost(
+            HeartBeatRepository heartBeatRepository,
+            HeartBeatQueue heartBeatQueue,
+            SettingsReader settingsReader,
+            HeartBeatParser heartBeatParser,
+            MetricsRecorder metrics) {
+        super(metrics);
         this.heartBeatRepository = heartBeatRepository;
+        this.heartBeatQueue = heartBeatQueue;
         this.settingsReader = settingsReader;
         this.heartBeatParser = heartBeatParser;
     }
@@ -47,7 +61,18 @@ public class HeartBeatPost extends ApiGatewayHandler {
 
             log.info(String.format("hostId: %s", heartBeat.getHostId()));
 
-            heartBeatRepository.Save(new HeartBeat[]{ heartBeat });
+            if (isQueueIngestionEnabled()){
+                heartBeatQueue.Send(new HeartBeat[]{ heartBeat });
+
+                return ApiGatewayResponse.builder()
+                        .setStatusCode(202)
+                        .setObjectBody(ACCEPTED)
+                        .build();
+            }
+
+            if (heartBeatRepository.Save(new HeartBeat[]{ heartBeat }).length > 0){
+                throw new DalException("HeartBeat could not be saved");
+            }
 
             return ApiGatewayResponse.builder()
                     .setStatusCode(200)
@@ -71,6 +96,10 @@ public class HeartBeatPost extends ApiGatewayHandler {
         }
     }
 
+    private boolean isQueueIngestionEnabled() {
+        return QUEUE_INGESTION_MODE.equalsIgnoreCase(settingsReader.ReadString(Settings.HEARTBEAT_INGESTION_MODE, ""));
+    }
+
     private String ReadRegion() {
         return settingsReader.ReadString(Settings.AWS_REGION);
     }
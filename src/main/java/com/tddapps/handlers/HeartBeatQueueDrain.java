@@ -0,0 +1,128 @@
+package com.tddapps.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.handlers.infrastructure.QueueBatchResponse;
+import com.tddapps.ioc.IocContainer;
+import com.tddapps.model.*;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Log4j2
+@SuppressWarnings("unused")
+public class HeartBeatQueueDrain implements RequestHandler<SQSEvent, QueueBatchResponse> {
+    private final HeartBeatRepository heartBeatRepository;
+    private final HeartBeatJsonConverter jsonConverter;
+    private final HeartBeatCoalescer heartBeatCoalescer;
+    private final MetricsRecorder metrics;
+
+    public HeartBeatQueueDrain(){
+        this(
+                IocContainer.getInstance().Resolve(HeartBeatRepository.class),
+                IocContainer.getInstance().Resolve(HeartBeatJsonConverter.class),
+                IocContainer.getInstance().Resolve(HeartBeatCoalescer.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class)
+        );
+    }
+
+    public HeartBeatQueueDrain(
+            HeartBeatRepository heartBeatRepository,
+            HeartBeatJsonConverter jsonConverter,
+            HeartBeatCoalescer heartBeatCoalescer,
+            MetricsRecorder metrics) {
+        this.heartBeatRepository = heartBeatRepository;
+        this.jsonConverter = jsonConverter;
+        this.heartBeatCoalescer = heartBeatCoalescer;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public QueueBatchResponse handleRequest(SQSEvent input, Context context) {
+        val startNanos = System.nanoTime();
+
+        try {
+            return processRequest(input);
+        } finally {
+            metrics.Record("Latency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+            metrics.Flush(getClass().getSimpleName());
+        }
+    }
+
+    private QueueBatchResponse processRequest(SQSEvent input) {
+        log.debug("HeartBeat Queue Drain");
+
+        val messageIdsByHostId = new LinkedHashMap<String, List<String>>();
+        val heartBeats = heartBeatCoalescer.coalesce(readHeartBeats(input, messageIdsByHostId));
+        val unsavedHostIds = save(heartBeats);
+
+        val result = new QueueBatchResponse();
+        for (val hostId : unsavedHostIds){
+            for (val messageId : messageIdsByHostId.get(hostId)){
+                result.getBatchItemFailures().add(new BatchItemFailure(messageId));
+            }
+        }
+
+        metrics.Record("QueuedMessages", input.getRecords().size(), MetricUnit.COUNT);
+        metrics.Record("CoalescedHeartBeats", heartBeats.length, MetricUnit.COUNT);
+        metrics.Record("FailedMessages", result.getBatchItemFailures().size(), MetricUnit.COUNT);
+
+        log.info(String.format("HeartBeat Queue Drain Completed; MessageCount: %d; HeartBeatCount: %d; FailedMessageCount: %d;",
+                input.getRecords().size(), heartBeats.length, result.getBatchItemFailures().size()));
+
+        return result;
+    }
+
+    private Set<String> save(HeartBeat[] heartBeats) {
+        val result = new LinkedHashSet<String>();
+        if (heartBeats.length == 0){
+            return result;
+        }
+
+        try {
+            for (val hb : heartBeatRepository.Save(heartBeats)){
+                result.add(hb.getHostId());
+            }
+        } catch (DalException e) {
+            log.error("HeartBeat Queue Drain failed", e);
+            for (val hb : heartBeats){
+                result.add(hb.getHostId());
+            }
+        }
+
+        return result;
+    }
+
+    private HeartBeat[] readHeartBeats(SQSEvent input, Map<String, List<String>> messageIdsByHostId) {
+        val result = new ArrayList<HeartBeat>(input.getRecords().size());
+
+        for (val message : input.getRecords()){
+            try {
+                val heartBeat = jsonConverter.fromJson(message.getBody());
+                result.add(heartBeat);
+                messageIdsByHostId
+                        .computeIfAbsent(heartBeat.getHostId(), k -> new ArrayList<>())
+                        .add(message.getMessageId());
+            } catch (ParseException e) {
+                log.warn(String.format("Discarding invalid message; messageId: %s", message.getMessageId()), e);
+            }
+        }
+
+        return result.toArray(new HeartBeat[0]);
+    }
+}
@@ -8,6 +8,7 @@ import com.tddapps.ioc.IocContainer;
 import com.tddapps.model.*;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
 import com.tddapps.model.notifications.NotificationSenderStatus;
@@ -30,13 +31,16 @@ public class StatusGet extends ApiGatewayHandler {
         this(IocContainer.getInstance().Resolve(HeartBeatRepository.class),
                 IocContainer.getInstance().Resolve(NotificationSenderStatus.class),
                 IocContainer.getInstance().Resolve(SettingsReader.class),
-                IocContainer.getInstance().Resolve(KeysCache.class));
+                IocContainer.getInstance().Resolve(KeysCache.class),
+                IocContainer.getInstance().Resolve(MetricsRecorder.class));
     }
 
     public StatusGet(HeartBeatRepository heartBeatRepository,
                      NotificationSenderStatus notificationSenderStatus,
                      SettingsReader settingsReader,
-                     KeysCache cache){
+                     KeysCache cache,
+                     MetricsRecorder metrics){
+        super(metrics);
         this.heartBeatRepository = heartBeatRepository;
         this.notificationSenderStatus = notificationSenderStatus;
         this.settingsReader = settingsReader;
@@ -89,7 +93,9 @@ public class StatusGet extends ApiGatewayHandler {
                 true
         );
 
-        heartBeatRepository.Save(new HeartBeat[]{ hb });
+        if (heartBeatRepository.Save(new HeartBeat[]{ hb }).length > 0){
+            throw new DalException("HeartBeat could not be saved");
+        }
     }
 
     private String ReadStatusHostId(){
@@ -2,6 +2,8 @@ package com.tddapps.handlers.infrastructure;
 
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
 
@@ -9,16 +11,32 @@ import java.util.Map;
 
 @Log4j2
 public abstract class ApiGatewayHandler implements RequestHandler<Map<String, Object>, ApiGatewayResponse> {
+    private final MetricsRecorder metrics;
+
+    protected ApiGatewayHandler(MetricsRecorder metrics){
+        this.metrics = metrics;
+    }
+
     @Override
     public ApiGatewayResponse handleRequest(Map<String, Object> input, Context context){
         log.debug(String.format("Input: %s", input));
+        val startNanos = System.nanoTime();
 
         val result = processRequest(input);
 
         log.info(String.format("StatusCode: %s, ResponseBody: %s", result.getStatusCode(), result.getBody()));
 
+        metrics.Record("Latency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+        metrics.Record("ClientErrors", isBetween(result.getStatusCode(), 400, 499) ? 1 : 0, MetricUnit.COUNT);
+        metrics.Record("ServerErrors", isBetween(result.getStatusCode(), 500, 599) ? 1 : 0, MetricUnit.COUNT);
+        metrics.Flush(getClass().getSimpleName());
+
         return result;
     }
 
+    private static boolean isBetween(int statusCode, int min, int max) {
+        return statusCode >= min && statusCode <= max;
+    }
+
     protected abstract ApiGatewayResponse processRequest(Map<String, Object> input);
 }
@@ -0,0 +1,12 @@
+package com.tddapps.handlers.infrastructure;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemFailure {
+    private String itemIdentifier;
+}
@@ -0,0 +1,21 @@
+package com.tddapps.handlers.infrastructure;
+
+import lombok.Data;
+import lombok.NonNull;
+
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
+
+@Data(staticConstructor = "create")
+public class BatchItemMessage {
+    private final int index;
+    @NonNull
+    private final String hostId;
+    @NonNull
+    private final String message;
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d:%s:%s",
+                getClass().getSimpleName(), index, EmptyWhenNull(hostId), EmptyWhenNull(message));
+    }
+}
@@ -0,0 +1,15 @@
+package com.tddapps.handlers.infrastructure;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueBatchResponse {
+    private List<BatchItemFailure> batchItemFailures = new ArrayList<>();
+}
@@ -0,0 +1,9 @@
+package com.tddapps.ioc;
+
+import java.util.Collection;
+
+public interface ComponentResolver {
+    <T> T Resolve(Class<T> type);
+
+    Collection<Class<?>> RegisteredTypes();
+}
@@ -1,57 +1,173 @@
 package com.tddapps.ioc;
 
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.tddapps.ioc.internal.ComponentResolverFactories;
+import com.tddapps.ioc.internal.ComponentResolverPico;
+import com.tddapps.model.heartbeats.ExpirationWatermark;
+import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
 import com.tddapps.model.heartbeats.HeartBeatParser;
-import com.tddapps.model.heartbeats.HeartBeatRepository;
-import com.tddapps.model.heartbeats.RequestHandlerHelper;
-import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
-import com.tddapps.model.heartbeats.internal.RequestHandlerHelperCurrentRegion;
-import com.tddapps.model.infrastructure.internal.EnvironmentSettingsReader;
-import com.tddapps.model.infrastructure.internal.InMemoryKeysCacheWithExpiration;
-import com.tddapps.model.infrastructure.KeysCache;
+import com.tddapps.model.heartbeats.HostTransition;
+import com.tddapps.model.infrastructure.CheckpointListener;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
-import com.tddapps.model.internal.aws.*;
-import com.tddapps.model.notifications.*;
-import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
-import com.tddapps.model.notifications.internal.SingleNotificationBuilder;
-import com.tddapps.utils.NowReader;
-import com.tddapps.utils.internal.NowReaderImpl;
-import org.picocontainer.DefaultPicoContainer;
-import org.picocontainer.PicoContainer;
+import com.tddapps.model.infrastructure.internal.EnvironmentSettingsReader;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+import org.crac.Core;
 
-import static org.picocontainer.Characteristics.CACHE;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+@Log4j2
 public class IocContainer {
+    public static final String EAGER_STARTUP_MODE = "eager";
+    public static final String FACTORIES_CONTAINER = "factories";
+    private static final Class<?>[] TABLE_CLASSES = {
+            HeartBeat.class, ExpirationWatermark.class, HostTransition.class, NotificationLedgerEntry.class
+    };
+    private static final String WARMUP_HEARTBEAT_JSON = "{\"hostId\": \"warmup\", \"intervalMs\": 30000}";
     private static final IocContainer sharedInstance = new IocContainer();
 
-    private final PicoContainer resolver;
+    private final ComponentResolver resolver;
+    private final IocContainerCheckpoint checkpoint = new IocContainerCheckpoint(this);
+    private List<CheckpointListener> checkpointListeners = new ArrayList<>();
+    private volatile boolean warmedUp;
 
     public static IocContainer getInstance(){
         return sharedInstance;
     }
 
     private IocContainer(){
-        resolver = RegisterBindings();
+        resolver = createResolver(new EnvironmentSettingsReader().ReadString(Settings.IOC_CONTAINER, ""));
+
+        if (EAGER_STARTUP_MODE.equalsIgnoreCase(Resolve(SettingsReader.class).ReadString(Settings.IOC_STARTUP_MODE, ""))){
+            Warmup();
+        }
+
+        Core.getGlobalContext().register(checkpoint);
     }
 
     public <T> T Resolve(Class<T> type){
-        return resolver.getComponent(type);
-    }
-
-    private PicoContainer RegisterBindings() {
-        return new DefaultPicoContainer()
-                .addComponent(HeartBeatParser.class, HeartBeatSerializer.class)
-                .addComponent(HeartBeatJsonConverter.class, HeartBeatSerializer.class)
-                .addComponent(HeartBeatRepository.class, HeartBeatRepositoryDynamo.class)
-                .addComponent(DynamoDBEventParser.class, DynamoDBEventParserMarshaller.class)
-                .addComponent(NotificationSender.class, NotificationSenderSns.class)
-                .addComponent(SettingsReader.class, EnvironmentSettingsReader.class)
-                .addComponent(NowReader.class, NowReaderImpl.class)
-                .addComponent(RequestHandlerHelper.class, RequestHandlerHelperCurrentRegion.class)
-                .addComponent(HeartBeatNotificationBuilder.class, SingleNotificationBuilder.class)
-                .addComponent(HeartBeatChangeEventNotificationBuilder.class, NotificationBuilderGrouped.class)
-                .addAdapter(new AmazonDynamoDBFactory())
-                .as(CACHE).addAdapter(new DynamoDBMapperFactory())
-                .as(CACHE).addComponent(KeysCache.class, InMemoryKeysCacheWithExpiration.class);
+        return resolver.Resolve(type);
+    }
+
+    static ComponentResolver createResolver(String containerName) {
+        if (FACTORIES_CONTAINER.equalsIgnoreCase(containerName)){
+            return new ComponentResolverFactories();
+        }
+
+        return new ComponentResolverPico();
+    }
+
+    /**
+     * Resolves every registered component and primes the lazy caches behind them.
+     * Meant to run during the Lambda init phase. Returns the elapsed milliseconds per step.
+     */
+    public Map<String, Long> Warmup() {
+        val result = new LinkedHashMap<String, Long>();
+        val startNanos = System.nanoTime();
+
+        for (val type : resolver.RegisteredTypes()){
+            WarmupStep(result, type.getSimpleName(), () -> resolver.Resolve(type));
+        }
+
+        WarmupStep(result, "DynamoDBMapper table models", () -> {
+            val mapper = Resolve(DynamoDBMapper.class);
+            for (val tableClass : TABLE_CLASSES){
+                mapper.getTableModel(tableClass);
+            }
+        });
+        WarmupStep(result, "HeartBeat json", () -> {
+            val converter = Resolve(HeartBeatJsonConverter.class);
+            converter.fromJson(converter.toJson(new HeartBeat("warmup", 0, "", false)));
+            Resolve(HeartBeatParser.class).parseUnsanitizedJson(WARMUP_HEARTBEAT_JSON);
+        });
+        WarmupStep(result, "AWS credentials", () -> DefaultAWSCredentialsProviderChain.getInstance().getCredentials());
+
+        val elapsedMs = (System.nanoTime() - startNanos) / 1000000;
+        log.info(String.format("IoC Warmup Completed; StepCount: %d; ElapsedMs: %d", result.size(), elapsedMs));
+        Resolve(MetricsRecorder.class).Record("IocWarmupLatency", elapsedMs, MetricUnit.MILLISECONDS);
+        warmedUp = true;
+
+        return result;
+    }
+
+    /**
+     * Runs before the runtime snapshots the initialized handler.
+     * Everything gets warmed so that the snapshot already contains it,
+     * unless the eager startup mode already did it during init.
+     */
+    public void BeforeCheckpoint() {
+        if (!warmedUp){
+            Warmup();
+        }
+
+        checkpointListeners = readCheckpointListeners();
+        for (val listener : checkpointListeners){
+            listener.BeforeCheckpoint();
+        }
+
+        log.info("IoC Before Checkpoint Completed");
+    }
+
+    /**
+     * Runs in every execution environment restored from the snapshot.
+     */
+    public void AfterRestore() {
+        val startNanos = System.nanoTime();
+
+        WarmupStep(new LinkedHashMap<>(), "AWS credentials refresh", () -> DefaultAWSCredentialsProviderChain.getInstance().refresh());
+        for (val listener : checkpointListeners){
+            listener.AfterRestore();
+        }
+
+        val elapsedMs = (System.nanoTime() - startNanos) / 1000000;
+        log.info(String.format("IoC After Restore Completed; ElapsedMs: %d", elapsedMs));
+        Resolve(MetricsRecorder.class).Record("IocRestoreLatency", elapsedMs, MetricUnit.MILLISECONDS);
+    }
+
+    boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    private List<CheckpointListener> readCheckpointListeners() {
+        val result = new ArrayList<CheckpointListener>();
+        val seen = new IdentityHashMap<Object, Boolean>();
+
+        for (val type : resolver.RegisteredTypes()){
+            val component = resolver.Resolve(type);
+
+            if (component instanceof CheckpointListener && seen.put(component, true) == null){
+                result.add((CheckpointListener) component);
+            }
+        }
+
+        return result;
+    }
+
+    private static void WarmupStep(Map<String, Long> timings, String name, WarmupAction action) {
+        val startNanos = System.nanoTime();
+
+        try {
+            action.run();
+        } catch (Exception e) {
+            log.warn(String.format("IoC Warmup Step failed; Step: %s", name), e);
+        }
+
+        val elapsedMs = (System.nanoTime() - startNanos) / 1000000;
+        timings.put(name, elapsedMs);
+        log.info(String.format("IoC Warmup; Step: %s; ElapsedMs: %d", name, elapsedMs));
+    }
+
+    private interface WarmupAction {
+        void run() throws Exception;
     }
 }
@@ -0,0 +1,22 @@
+package com.tddapps.ioc;
+
+import org.crac.Context;
+import org.crac.Resource;
+
+class IocContainerCheckpoint implements Resource {
+    private final IocContainer container;
+
+    IocContainerCheckpoint(IocContainer container){
+        this.container = container;
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        container.BeforeCheckpoint();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        container.AfterRestore();
+    }
+}
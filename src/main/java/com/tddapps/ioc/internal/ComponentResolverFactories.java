@@ -0,0 +1,146 @@
+package com.tddapps.ioc.internal;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.tddapps.ioc.ComponentResolver;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.internal.HeartBeatCoalescerLatestTtl;
+import com.tddapps.model.heartbeats.internal.HeartBeatExpirationSweeperParallel;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.internal.HostFlapDetectorHysteresis;
+import com.tddapps.model.heartbeats.internal.RequestHandlerHelperCurrentRegion;
+import com.tddapps.model.infrastructure.JsonObjectMappers;
+import com.tddapps.model.infrastructure.KeysCache;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.infrastructure.internal.EnvironmentSettingsReader;
+import com.tddapps.model.infrastructure.internal.InMemoryKeysCacheWithExpiration;
+import com.tddapps.model.infrastructure.internal.JsonObjectMappersShared;
+import com.tddapps.model.infrastructure.internal.MetricsRecorderEmf;
+import com.tddapps.model.internal.aws.*;
+import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
+import com.tddapps.model.notifications.HeartBeatNotificationBuilder;
+import com.tddapps.model.notifications.NotificationLedger;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.model.notifications.NotificationSenderStatus;
+import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
+import com.tddapps.model.notifications.internal.NotificationSenderRetrying;
+import com.tddapps.model.notifications.internal.SingleNotificationBuilder;
+import com.tddapps.utils.NowReader;
+import com.tddapps.utils.Sleeper;
+import com.tddapps.utils.internal.NowReaderImpl;
+import com.tddapps.utils.internal.SleeperImpl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Hand-written wiring equivalent to {@link ComponentResolverPico}.
+ * Components are created by plain constructor calls, so resolving them needs no reflection.
+ * The singletons are created on their first use.
+ */
+public class ComponentResolverFactories implements ComponentResolver {
+    private final Map<Class<?>, Supplier<?>> factories = new LinkedHashMap<>();
+
+    public ComponentResolverFactories(){
+        RegisterBindings();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T Resolve(Class<T> type) {
+        final Supplier<?> factory = factories.get(type);
+
+        if (factory == null){
+            return null;
+        }
+
+        return (T) factory.get();
+    }
+
+    @Override
+    public Collection<Class<?>> RegisteredTypes() {
+        return Collections.unmodifiableSet(factories.keySet());
+    }
+
+    private void RegisterBindings() {
+        factories.put(HeartBeatParser.class, () -> new HeartBeatSerializer(Resolve(JsonObjectMappers.class)));
+        factories.put(HeartBeatJsonConverter.class, () -> new HeartBeatSerializer(Resolve(JsonObjectMappers.class)));
+        factories.put(HeartBeatRepository.class, () -> new HeartBeatRepositoryDynamo(
+                Resolve(DynamoDBMapper.class), Resolve(AmazonDynamoDB.class), Resolve(SettingsReader.class), Resolve(Sleeper.class), Resolve(MetricsRecorder.class)));
+        factories.put(ExpirationWatermarkRepository.class, () -> new ExpirationWatermarkRepositoryDynamo(Resolve(DynamoDBMapper.class)));
+        factories.put(HostTransitionRepository.class, () -> new HostTransitionRepositoryDynamo(Resolve(DynamoDBMapper.class)));
+        factories.put(HostFlapDetector.class, () -> new HostFlapDetectorHysteresis(
+                Resolve(HostTransitionRepository.class), Resolve(SettingsReader.class), Resolve(NowReader.class)));
+        factories.put(HeartBeatQueue.class, () -> new HeartBeatQueueSqs(
+                Resolve(AmazonSQS.class), Resolve(SettingsReader.class), Resolve(HeartBeatJsonConverter.class)));
+        factories.put(HeartBeatChangeEventQueue.class, () -> new HeartBeatChangeEventQueueSqs(
+                Resolve(AmazonSQS.class), Resolve(SettingsReader.class), Resolve(HeartBeatJsonConverter.class)));
+        factories.put(HeartBeatCoalescer.class, HeartBeatCoalescerLatestTtl::new);
+        factories.put(HeartBeatExpirationSweeper.class, new Singleton<>(() -> new HeartBeatExpirationSweeperParallel(
+                Resolve(HeartBeatRepository.class), Resolve(RequestHandlerHelper.class), Resolve(SettingsReader.class))));
+        factories.put(DynamoDBEventClassifier.class, () -> new DynamoDBEventClassifierSinglePass(Resolve(SettingsReader.class)));
+        factories.put(NotificationSenderSns.class, () -> new NotificationSenderSns(
+                Resolve(AmazonSNS.class), Resolve(SettingsReader.class), Resolve(MetricsRecorder.class)));
+        factories.put(NotificationSenderStatus.class, () -> Resolve(NotificationSenderSns.class));
+        factories.put(NotificationSender.class, new Singleton<>(() -> new NotificationSenderRetrying(
+                Resolve(NotificationSenderSns.class), Resolve(SettingsReader.class), Resolve(Sleeper.class), Resolve(MetricsRecorder.class))));
+        factories.put(NotificationLedger.class, () -> new NotificationLedgerDynamo(Resolve(DynamoDBMapper.class), Resolve(SettingsReader.class)));
+        factories.put(SettingsReader.class, EnvironmentSettingsReader::new);
+        factories.put(NowReader.class, NowReaderImpl::new);
+        factories.put(Sleeper.class, SleeperImpl::new);
+        factories.put(RequestHandlerHelper.class, () -> new RequestHandlerHelperCurrentRegion(Resolve(SettingsReader.class)));
+        factories.put(HeartBeatNotificationBuilder.class, () -> new SingleNotificationBuilder(Resolve(NowReader.class)));
+        factories.put(HeartBeatChangeEventNotificationBuilder.class, () -> new NotificationBuilderGrouped(Resolve(HeartBeatNotificationBuilder.class)));
+        factories.put(AmazonDynamoDB.class, new Singleton<>(() -> new AmazonDynamoDBFactory().createClient(Resolve(SettingsReader.class))));
+        factories.put(AmazonSQS.class, new Singleton<>(() -> new AmazonSQSFactory().createClient(Resolve(SettingsReader.class))));
+        factories.put(AmazonSNS.class, new Singleton<>(() -> new AmazonSNSFactory().createClient(Resolve(SettingsReader.class))));
+        factories.put(DynamoDBMapper.class, new Singleton<>(() -> new DynamoDBMapperFactory().createMapper(
+                Resolve(SettingsReader.class), Resolve(AmazonDynamoDB.class))));
+        factories.put(KeysCache.class, new Singleton<>(() -> new InMemoryKeysCacheWithExpiration(Resolve(MetricsRecorder.class))));
+        factories.put(MetricsRecorder.class, new Singleton<>(() -> new MetricsRecorderEmf(Resolve(SettingsReader.class), Resolve(NowReader.class))));
+        factories.put(JsonObjectMappers.class, new Singleton<>(JsonObjectMappersShared::new));
+    }
+
+    private static class Singleton<T> implements Supplier<T> {
+        private final Supplier<T> factory;
+        private volatile T instance;
+
+        Singleton(Supplier<T> factory){
+            this.factory = factory;
+        }
+
+        @Override
+        public T get() {
+            T result = instance;
+
+            if (result == null){
+                synchronized (this){
+                    result = instance;
+
+                    if (result == null){
+                        result = factory.get();
+                        instance = result;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tddapps.ioc.internal;
+
+import com.tddapps.ioc.ComponentResolver;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.internal.HeartBeatCoalescerLatestTtl;
+import com.tddapps.model.heartbeats.internal.HeartBeatExpirationSweeperParallel;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.internal.HostFlapDetectorHysteresis;
+import com.tddapps.model.heartbeats.internal.RequestHandlerHelperCurrentRegion;
+import com.tddapps.model.infrastructure.JsonObjectMappers;
+import com.tddapps.model.infrastructure.KeysCache;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.infrastructure.internal.EnvironmentSettingsReader;
+import com.tddapps.model.infrastructure.internal.InMemoryKeysCacheWithExpiration;
+import com.tddapps.model.infrastructure.internal.JsonObjectMappersShared;
+import com.tddapps.model.infrastructure.internal.MetricsRecorderEmf;
+import com.tddapps.model.internal.aws.*;
+import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
+import com.tddapps.model.notifications.HeartBeatNotificationBuilder;
+import com.tddapps.model.notifications.NotificationLedger;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
+import com.tddapps.model.notifications.internal.NotificationSenderRetrying;
+import com.tddapps.model.notifications.internal.SingleNotificationBuilder;
+import com.tddapps.utils.NowReader;
+import com.tddapps.utils.Sleeper;
+import com.tddapps.utils.internal.NowReaderImpl;
+import com.tddapps.utils.internal.SleeperImpl;
+import lombok.val;
+import org.picocontainer.DefaultPicoContainer;
+import org.picocontainer.MutablePicoContainer;
+import org.picocontainer.parameters.ComponentParameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.picocontainer.Characteristics.CACHE;
+
+public class ComponentResolverPico implements ComponentResolver {
+    private final MutablePicoContainer resolver = RegisterBindings();
+
+    @Override
+    public <T> T Resolve(Class<T> type) {
+        return resolver.getComponent(type);
+    }
+
+    @Override
+    public Collection<Class<?>> RegisteredTypes() {
+        val result = new ArrayList<Class<?>>();
+
+        for (val adapter : resolver.getComponentAdapters()){
+            val key = adapter.getComponentKey();
+            if (key instanceof Class){
+                result.add((Class<?>) key);
+            }
+        }
+
+        return result;
+    }
+
+    private MutablePicoContainer RegisterBindings() {
+        return new DefaultPicoContainer()
+                .addComponent(HeartBeatParser.class, HeartBeatSerializer.class)
+                .addComponent(HeartBeatJsonConverter.class, HeartBeatSerializer.class)
+                .addComponent(HeartBeatRepository.class, HeartBeatRepositoryDynamo.class)
+                .addComponent(ExpirationWatermarkRepository.class, ExpirationWatermarkRepositoryDynamo.class)
+                .addComponent(HostTransitionRepository.class, HostTransitionRepositoryDynamo.class)
+                .addComponent(HostFlapDetector.class, HostFlapDetectorHysteresis.class)
+                .addComponent(HeartBeatQueue.class, HeartBeatQueueSqs.class)
+                .addComponent(HeartBeatChangeEventQueue.class, HeartBeatChangeEventQueueSqs.class)
+                .addComponent(HeartBeatCoalescer.class, HeartBeatCoalescerLatestTtl.class)
+                .as(CACHE).addComponent(HeartBeatExpirationSweeper.class, HeartBeatExpirationSweeperParallel.class)
+                .addComponent(DynamoDBEventClassifier.class, DynamoDBEventClassifierSinglePass.class)
+                .addComponent(NotificationSenderSns.class)
+                .as(CACHE).addComponent(NotificationSender.class, NotificationSenderRetrying.class,
+                        new ComponentParameter(NotificationSenderSns.class),
+                        ComponentParameter.DEFAULT,
+                        ComponentParameter.DEFAULT,
+                        ComponentParameter.DEFAULT)
+                .addComponent(NotificationLedger.class, NotificationLedgerDynamo.class)
+                .addComponent(SettingsReader.class, EnvironmentSettingsReader.class)
+                .addComponent(NowReader.class, NowReaderImpl.class)
+                .addComponent(Sleeper.class, SleeperImpl.class)
+                .addComponent(RequestHandlerHelper.class, RequestHandlerHelperCurrentRegion.class)
+                .addComponent(HeartBeatNotificationBuilder.class, SingleNotificationBuilder.class)
+                .addComponent(HeartBeatChangeEventNotificationBuilder.class, NotificationBuilderGrouped.class)
+                .as(CACHE).addAdapter(new AmazonDynamoDBFactory())
+                .as(CACHE).addAdapter(new AmazonSQSFactory())
+                .as(CACHE).addAdapter(new AmazonSNSFactory())
+                .as(CACHE).addAdapter(new DynamoDBMapperFactory())
+                .as(CACHE).addComponent(KeysCache.class, InMemoryKeysCacheWithExpiration.class)
+                .as(CACHE).addComponent(MetricsRecorder.class, MetricsRecorderEmf.class)
+                .as(CACHE).addComponent(JsonObjectMappers.class, JsonObjectMappersShared.class);
+    }
+}
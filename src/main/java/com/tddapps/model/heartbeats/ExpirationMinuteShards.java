@@ -0,0 +1,41 @@
+package com.tddapps.model.heartbeats;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public abstract class ExpirationMinuteShards {
+    private static final String SHARD_SEPARATOR = "#";
+
+    public static HeartBeat Shard(HeartBeat heartBeat, int shardCount){
+        if (shardCount <= 1) {
+            return heartBeat;
+        }
+
+        return new HeartBeat(
+                heartBeat.getHostId(),
+                heartBeat.getTtl(),
+                ShardedKey(heartBeat.getExpirationMinuteUtc(), ShardOf(heartBeat.getHostId(), shardCount)),
+                heartBeat.getRegion(),
+                heartBeat.isTest()
+        );
+    }
+
+    public static String[] AllKeys(String expirationMinuteUtc, int shardCount){
+        if (shardCount <= 1) {
+            return new String[]{ expirationMinuteUtc };
+        }
+
+        return Stream.concat(
+                Stream.of(expirationMinuteUtc),
+                IntStream.range(0, shardCount).mapToObj(shard -> ShardedKey(expirationMinuteUtc, shard))
+        ).toArray(String[]::new);
+    }
+
+    static int ShardOf(String hostId, int shardCount){
+        return Math.floorMod(hostId.hashCode(), shardCount);
+    }
+
+    static String ShardedKey(String expirationMinuteUtc, int shard){
+        return expirationMinuteUtc + SHARD_SEPARATOR + shard;
+    }
+}
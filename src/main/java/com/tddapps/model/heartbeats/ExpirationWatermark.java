@@ -0,0 +1,33 @@
+package com.tddapps.model.heartbeats;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static com.tddapps.utils.DateExtensions.ToUtcString;
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "expiration_watermarks")
+public class ExpirationWatermark {
+    @DynamoDBHashKey(attributeName = "region")
+    private String region;
+
+    @DynamoDBAttribute(attributeName = "minute_epoch_second")
+    private long minuteEpochSecond;
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s, region: %s, minuteUtc: %s",
+                getClass().getSimpleName(),
+                EmptyWhenNull(region),
+                ToUtcString(minuteEpochSecond)
+        );
+    }
+}
@@ -0,0 +1,8 @@
+package com.tddapps.model.heartbeats;
+
+import com.tddapps.model.DalException;
+
+public interface ExpirationWatermarkRepository {
+    ExpirationWatermark Read(String region) throws DalException;
+    void Save(ExpirationWatermark watermark) throws DalException;
+}
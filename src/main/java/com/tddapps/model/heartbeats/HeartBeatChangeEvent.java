@@ -9,6 +9,8 @@ public class HeartBeatChangeEvent {
     public String type;
     @NonNull
     public HeartBeat heartBeat;
+    public String sequenceNumber;
+    public long epochSecond;
 
     @Override
     public String toString(){
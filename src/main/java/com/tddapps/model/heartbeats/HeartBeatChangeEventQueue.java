@@ -0,0 +1,9 @@
+package com.tddapps.model.heartbeats;
+
+public interface HeartBeatChangeEventQueue {
+    /**
+     * Enqueues the events and returns the ones that could not be enqueued,
+     * so only those are retried.
+     */
+    HeartBeatChangeEvent[] Send(HeartBeatChangeEvent[] events);
+}
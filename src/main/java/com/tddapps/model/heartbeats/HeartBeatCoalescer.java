@@ -0,0 +1,5 @@
+package com.tddapps.model.heartbeats;
+
+public interface HeartBeatCoalescer {
+    HeartBeat[] coalesce(HeartBeat[] heartBeats);
+}
@@ -0,0 +1,9 @@
+package com.tddapps.model.heartbeats;
+
+import com.tddapps.model.DalException;
+
+import java.util.function.BooleanSupplier;
+
+public interface HeartBeatExpirationSweeper {
+    int sweep(String expirationMinuteUtc, BooleanSupplier hasTimeRemaining) throws DalException;
+}
@@ -0,0 +1,27 @@
+package com.tddapps.model.heartbeats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Objects;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeartBeatModification {
+    private HeartBeat oldHeartBeat;
+    private HeartBeat newHeartBeat;
+
+    public boolean isRegionChange(){
+        return !Objects.equals(oldHeartBeat.getRegion(), newHeartBeat.getRegion());
+    }
+
+    public boolean isTestChange(){
+        return oldHeartBeat.isTest() != newHeartBeat.isTest();
+    }
+
+    public boolean isTtlRegression(){
+        return newHeartBeat.getTtl() < oldHeartBeat.getTtl();
+    }
+}
@@ -0,0 +1,13 @@
+package com.tddapps.model.heartbeats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeartBeatPage {
+    private HeartBeat[] heartBeats = new HeartBeat[0];
+    private HeartBeat lastEvaluated;
+}
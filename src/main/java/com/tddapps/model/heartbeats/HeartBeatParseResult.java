@@ -0,0 +1,35 @@
+package com.tddapps.model.heartbeats;
+
+import lombok.Data;
+import lombok.NonNull;
+
+@Data
+public class HeartBeatParseResult {
+    private final int index;
+    private final HeartBeat heartBeat;
+    @NonNull
+    private final String error;
+
+    public static HeartBeatParseResult success(int index, HeartBeat heartBeat){
+        return new HeartBeatParseResult(index, heartBeat, "");
+    }
+
+    public static HeartBeatParseResult failure(int index, String error){
+        return new HeartBeatParseResult(index, null, error);
+    }
+
+    public boolean isValid(){
+        return heartBeat != null;
+    }
+
+    @Override
+    public String toString(){
+        return String.format(
+                "%s, index: %d, isValid: %s, error: %s",
+                getClass().getSimpleName(),
+                index,
+                isValid(),
+                error
+        );
+    }
+}
@@ -4,4 +4,5 @@ import java.text.ParseException;
 
 public interface HeartBeatParser {
     HeartBeat parseUnsanitizedJson(String string) throws ParseException;
+    HeartBeatParseResult[] parseUnsanitizedJsonBatch(String string) throws ParseException;
 }
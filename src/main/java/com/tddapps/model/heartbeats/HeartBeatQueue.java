@@ -0,0 +1,7 @@
+package com.tddapps.model.heartbeats;
+
+import com.tddapps.model.DalException;
+
+public interface HeartBeatQueue {
+    void Send(HeartBeat[] heartBeats) throws DalException;
+}
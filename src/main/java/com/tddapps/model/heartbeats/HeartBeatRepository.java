@@ -3,8 +3,17 @@ package com.tddapps.model.heartbeats;
 import com.tddapps.model.DalException;
 
 public interface HeartBeatRepository {
-    void Save(HeartBeat[] heartBeat) throws DalException;
+    /**
+     * Saves the heart beats and returns the ones that could not be written
+     * after retrying, so callers can report them as failed.
+     */
+    HeartBeat[] Save(HeartBeat[] heartBeat) throws DalException;
     void Delete(HeartBeat[] heartBeats) throws DalException;
     HeartBeat[] Read(String expirationMinuteUtc, int maxCount) throws DalException;
+    /**
+     * Reads one page of the given expiration minute. The last evaluated heart beat
+     * of the page is the one to start after, and it is null after the last page.
+     */
+    HeartBeatPage Read(String expirationMinuteUtc, int maxCount, HeartBeat startAfter) throws DalException;
     HeartBeat[] Read(String[] hostIds) throws DalException;
 }
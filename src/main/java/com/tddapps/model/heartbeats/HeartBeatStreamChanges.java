@@ -0,0 +1,23 @@
+package com.tddapps.model.heartbeats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeartBeatStreamChanges {
+    private List<HeartBeat> deletions = new ArrayList<>();
+    private List<HeartBeat> insertions = new ArrayList<>();
+    private List<HeartBeatModification> modifications = new ArrayList<>();
+    private Map<String, String> sequenceNumbers = new HashMap<>();
+    private Map<String, Long> creationEpochSeconds = new HashMap<>();
+    private int recordCount;
+    private int skippedCount;
+}
@@ -0,0 +1,13 @@
+package com.tddapps.model.heartbeats;
+
+public interface HostFlapDetector {
+    HeartBeatChangeEvent[] filter(HeartBeatChangeEvent[] events);
+
+    /**
+     * The last transition of every flapping host whose window already closed.
+     * Their notifications were suppressed, so nothing reported the state the host settled into.
+     */
+    HeartBeatChangeEvent[] readSettled();
+
+    void markSettled(HeartBeatChangeEvent[] events);
+}
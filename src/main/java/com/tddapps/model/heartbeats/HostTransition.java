@@ -0,0 +1,52 @@
+package com.tddapps.model.heartbeats;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import static com.tddapps.utils.DateExtensions.ToUtcString;
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "host_transitions")
+public class HostTransition {
+    @DynamoDBHashKey(attributeName = "host_id")
+    private String hostId;
+
+    @DynamoDBAttribute(attributeName = "type")
+    private String type;
+
+    @DynamoDBAttribute(attributeName = "epoch_second")
+    private long epochSecond;
+
+    @DynamoDBAttribute(attributeName = "is_flapping")
+    private boolean isFlapping;
+
+    @DynamoDBAttribute(attributeName = "suppressed_count")
+    private int suppressedCount;
+
+    @DynamoDBAttribute(attributeName = "ttl")
+    private long ttl;
+
+    @DynamoDBAttribute(attributeName = "source_sequence_number")
+    private String sourceSequenceNumber;
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s, hostId: %s, type: %s, transitionUtc: %s, isFlapping: %s, suppressedCount: %d, sourceSequenceNumber: %s",
+                getClass().getSimpleName(),
+                EmptyWhenNull(hostId),
+                EmptyWhenNull(type),
+                ToUtcString(epochSecond),
+                isFlapping,
+                suppressedCount,
+                EmptyWhenNull(sourceSequenceNumber)
+        );
+    }
+}
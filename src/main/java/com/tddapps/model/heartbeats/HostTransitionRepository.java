@@ -0,0 +1,11 @@
+package com.tddapps.model.heartbeats;
+
+import com.tddapps.model.DalException;
+
+import java.util.Map;
+
+public interface HostTransitionRepository {
+    Map<String, HostTransition> Read(String[] hostIds) throws DalException;
+    void Save(HostTransition[] transitions) throws DalException;
+    HostTransition[] ReadFlapping() throws DalException;
+}
@@ -0,0 +1,38 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.LinkedHashMap;
+
+@Log4j2
+public class HeartBeatCoalescerLatestTtl implements HeartBeatCoalescer {
+    @Override
+    public HeartBeat[] coalesce(HeartBeat[] heartBeats) {
+        val latestByHostId = new LinkedHashMap<String, HeartBeat>(heartBeats.length);
+
+        for (val hb : heartBeats){
+            latestByHostId.merge(hb.getHostId(), hb, HeartBeatCoalescerLatestTtl::latest);
+        }
+
+        val result = latestByHostId.values().toArray(new HeartBeat[0]);
+
+        val collapsedCount = heartBeats.length - result.length;
+        if (collapsedCount > 0){
+            log.info(String.format("HeartBeats Coalesced; HeartBeatCount: %d; CollapsedCount: %d;",
+                    heartBeats.length, collapsedCount));
+        }
+
+        return result;
+    }
+
+    private static HeartBeat latest(HeartBeat current, HeartBeat candidate){
+        if (candidate.getTtl() >= current.getTtl()){
+            return candidate;
+        }
+
+        return current;
+    }
+}
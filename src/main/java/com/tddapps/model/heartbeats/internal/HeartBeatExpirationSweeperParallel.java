@@ -0,0 +1,149 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.ExpirationMinuteShards;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
+import static com.tddapps.utils.ExecutorExtensions.NewBoundedThreadPool;
+
+@Log4j2
+public class HeartBeatExpirationSweeperParallel implements HeartBeatExpirationSweeper {
+    public static final int PAGE_SIZE = 250;
+    public static final int DELETE_BATCH_SIZE = 25;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final HeartBeatRepository heartBeatRepository;
+    private final RequestHandlerHelper requestHandlerHelper;
+    private final SettingsReader settingsReader;
+    private final ExecutorService readers;
+    private final ExecutorService deleters;
+
+    public HeartBeatExpirationSweeperParallel(
+            HeartBeatRepository heartBeatRepository,
+            RequestHandlerHelper requestHandlerHelper,
+            SettingsReader settingsReader) {
+        this.heartBeatRepository = heartBeatRepository;
+        this.requestHandlerHelper = requestHandlerHelper;
+        this.settingsReader = settingsReader;
+        this.readers = NewBoundedThreadPool("sweep-readers", ExpirationMinuteShards.AllKeys("", readShardCount()).length);
+        this.deleters = NewBoundedThreadPool("sweep-deleters", readConcurrency());
+    }
+
+    @Override
+    public int sweep(String expirationMinuteUtc, BooleanSupplier hasTimeRemaining) throws DalException {
+        val keys = ExpirationMinuteShards.AllKeys(expirationMinuteUtc, readShardCount());
+        val deletions = new ConcurrentLinkedQueue<Future<Integer>>();
+        val partitionSweeps = new ArrayList<Future<Integer>>(keys.length);
+
+        try {
+            for (val key : keys){
+                partitionSweeps.add(readers.submit(() -> sweepPartition(deletions, key, hasTimeRemaining)));
+            }
+            val pageCount = waitForAll(partitionSweeps);
+
+            val result = waitForAll(deletions);
+
+            log.info(String.format("Sweep; expirationMinuteUtc: %s, partitionCount: %d, pageCount: %d, deletedCount: %d",
+                    expirationMinuteUtc, keys.length, pageCount, result));
+
+            return result;
+        } finally {
+            cancelAll(partitionSweeps);
+            cancelAll(deletions);
+        }
+    }
+
+    private int sweepPartition(
+            Collection<Future<Integer>> deletions,
+            String expirationMinuteUtc,
+            BooleanSupplier hasTimeRemaining) throws DalException {
+        var pageCount = 0;
+        HeartBeat startAfter = null;
+
+        while (hasTimeRemaining.getAsBoolean()){
+            val page = heartBeatRepository.Read(expirationMinuteUtc, PAGE_SIZE, startAfter);
+            pageCount++;
+
+            for (val batch : Split(requestHandlerHelper.filter(page.getHeartBeats()), DELETE_BATCH_SIZE)){
+                val heartBeats = Arrays.copyOf(batch, batch.length, HeartBeat[].class);
+                deletions.add(deleters.submit(() -> delete(heartBeats)));
+            }
+
+            startAfter = page.getLastEvaluated();
+            if (startAfter == null){
+                break;
+            }
+        }
+
+        return pageCount;
+    }
+
+    private int delete(HeartBeat[] heartBeats) throws DalException {
+        heartBeatRepository.Delete(heartBeats);
+        return heartBeats.length;
+    }
+
+    private static int waitForAll(Collection<Future<Integer>> tasks) throws DalException {
+        var result = 0;
+        DalException firstError = null;
+
+        for (val task : tasks){
+            try {
+                result += task.get();
+            } catch (ExecutionException e) {
+                if (firstError == null){
+                    firstError = toDalException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DalException("Sweep interrupted");
+            }
+        }
+
+        if (firstError != null){
+            throw firstError;
+        }
+
+        return result;
+    }
+
+    private static void cancelAll(Collection<Future<Integer>> tasks){
+        for (val task : tasks){
+            task.cancel(true);
+        }
+    }
+
+    private static DalException toDalException(Throwable error){
+        if (error instanceof DalException){
+            return (DalException) error;
+        }
+
+        return new DalException(error.getMessage());
+    }
+
+    private int readShardCount() {
+        return settingsReader.ReadInt(Settings.EXPIRATION_MINUTE_SHARDS, 1);
+    }
+
+    private int readConcurrency() {
+        return Math.max(1, settingsReader.ReadInt(Settings.EXPIRATION_SWEEP_CONCURRENCY, DEFAULT_CONCURRENCY));
+    }
+}
@@ -1,29 +1,54 @@
 package com.tddapps.model.heartbeats.internal;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.heartbeats.HeartBeatParseResult;
 import com.tddapps.model.heartbeats.HeartBeatParser;
-import com.tddapps.utils.JsonNodeHelper;
+import com.tddapps.model.infrastructure.JsonObjectMappers;
+import com.tddapps.model.infrastructure.internal.JsonObjectMappersShared;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
-import org.apache.commons.lang3.StringUtils;
+import lombok.var;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.tddapps.utils.DateExtensions.EpochSecondsPlusMs;
-import static com.tddapps.utils.JsonNodeHelper.readInt;
-import static com.tddapps.utils.JsonNodeHelper.readString;
 
 @Log4j2
 public class HeartBeatSerializer implements HeartBeatParser, HeartBeatJsonConverter {
     private static final int MIN_INTERVAL_MS = 1000;
     private static final int MAX_INTERVAL_MS = 12*60*60*1000;
     public static final int DEFAULT_INTERVAL_MS = 10*60*1000;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int MAX_HOST_ID_LENGTH = 100;
+    public static final int MAX_REQUEST_LENGTH = 16*1024;
+    public static final int MAX_BATCH_REQUEST_LENGTH = MAX_BATCH_SIZE * 1024;
+    public static final int MAX_NESTING_DEPTH = 8;
     private static final String NO_REGION = "";
+    private static final String HOST_ID_FIELD = "hostId";
+    private static final String INTERVAL_MS_FIELD = "intervalMs";
+    private static final String INVALID_HOST_ID = "Invalid hostId";
+    private static final String INVALID_JSON = "Invalid json";
+    private static final String NESTING_TOO_DEEP = "Nesting too deep";
+
+    private final JsonObjectMappers jsonMappers;
+
+    public HeartBeatSerializer(){
+        this(new JsonObjectMappersShared());
+    }
+
+    public HeartBeatSerializer(JsonObjectMappers jsonMappers){
+        this.jsonMappers = jsonMappers;
+    }
 
     @Override
     public HeartBeat parseUnsanitizedJson(String jsonString) throws ParseException {
@@ -31,51 +56,240 @@ public class HeartBeatSerializer implements HeartBeatParser, HeartBeatJsonConver
             throw new ParseException("Empty input", 0);
         }
 
-        JsonNode json = parseJson(jsonString);
-        val hostId = parseHostId(json);
-        val intervalMs = parseIntervalMs(json);
+        if (jsonString.length() > MAX_REQUEST_LENGTH){
+            throw new ParseException("Request too large", 0);
+        }
 
-        return new HeartBeat(hostId, EpochSecondsPlusMs(intervalMs), NO_REGION, false);
+        try (val parser = jsonMappers.CreateParser(jsonString)) {
+            parser.nextToken();
+            return readHeartBeat(parser);
+        } catch (IOException e) {
+            throw toParseException(e);
+        }
     }
 
-    private static JsonNode parseJson(String requestBody) throws ParseException{
-        try {
-            return JsonNodeHelper.parse(requestBody);
+    @Override
+    public HeartBeatParseResult[] parseUnsanitizedJsonBatch(String jsonString) throws ParseException {
+        if (jsonString == null || jsonString.trim().isEmpty()){
+            throw new ParseException("Empty input", 0);
+        }
+
+        if (jsonString.length() > MAX_BATCH_REQUEST_LENGTH){
+            throw new ParseException("Request too large", 0);
+        }
+
+        val result = isJsonArray(jsonString) ?
+                readJsonArray(jsonString) :
+                readJsonLines(jsonString);
+
+        if (result.isEmpty()){
+            throw new ParseException("Empty input", 0);
+        }
+
+        return result.toArray(new HeartBeatParseResult[0]);
+    }
+
+    private static boolean isJsonArray(String jsonString){
+        return jsonString.trim().startsWith("[");
+    }
+
+    private List<HeartBeatParseResult> readJsonArray(String jsonString) throws ParseException {
+        val result = new ArrayList<HeartBeatParseResult>();
+
+        try (val parser = jsonMappers.CreateParser(jsonString)) {
+            parser.nextToken();
+            checkNestingDepth(parser);
+            val arrayContext = parser.getParsingContext();
+
+            for (var token = nextToken(parser); token != JsonToken.END_ARRAY; token = nextToken(parser)) {
+                if (result.size() >= MAX_BATCH_SIZE){
+                    throw new ParseException("Batch too large", 0);
+                }
+
+                result.add(readArrayElement(parser, result.size(), arrayContext));
+            }
         } catch (IOException e) {
-            log.debug("Invalid json", e);
-            throw new ParseException("Invalid json", 0);
+            throw toParseException(e);
         }
+
+        return result;
     }
 
-    private static String parseHostId(JsonNode body) throws ParseException {
-        val result = readString(body, "hostId");
+    private HeartBeatParseResult readArrayElement(JsonParser parser, int index, JsonStreamContext arrayContext) throws IOException {
+        try {
+            return HeartBeatParseResult.success(index, readHeartBeat(parser));
+        } catch (ParseException e) {
+            skipUntil(parser, arrayContext);
+            return HeartBeatParseResult.failure(index, e.getMessage());
+        }
+    }
 
-        if (!StringUtils.isAlphanumeric(result)){
-            throw new ParseException("Invalid hostId", 0);
+    private List<HeartBeatParseResult> readJsonLines(String jsonString) throws ParseException {
+        val lines = new ArrayList<String>();
+        for (val line : jsonString.split("\\r?\\n")){
+            if (!line.trim().isEmpty()){
+                lines.add(line);
+            }
         }
 
-        if (result.length() > 100){
-            throw new ParseException("Invalid hostId", 0);
+        if (lines.size() > MAX_BATCH_SIZE){
+            throw new ParseException("Batch too large", 0);
         }
 
+        val result = new ArrayList<HeartBeatParseResult>(lines.size());
+        for (val line : lines){
+            result.add(readJsonLine(result.size(), line));
+        }
         return result;
     }
 
-    private static int parseIntervalMs(JsonNode body) throws ParseException {
-        val result = readInt(body, "intervalMs", DEFAULT_INTERVAL_MS);
+    private HeartBeatParseResult readJsonLine(int index, String line){
+        try {
+            return HeartBeatParseResult.success(index, parseUnsanitizedJson(line));
+        } catch (ParseException e) {
+            return HeartBeatParseResult.failure(index, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the heartbeat starting at the current token.
+     * Only hostId and intervalMs are read, the other values are skipped without being materialized.
+     * Throws a ParseException as soon as the hostId is known to be invalid.
+     */
+    private static HeartBeat readHeartBeat(JsonParser parser) throws IOException, ParseException {
+        if (parser.currentToken() != JsonToken.START_OBJECT){
+            skipValue(parser);
+            throw new ParseException(INVALID_HOST_ID, 0);
+        }
+        checkNestingDepth(parser);
+
+        String hostId = null;
+        int intervalMs = DEFAULT_INTERVAL_MS;
 
-        if (result < MIN_INTERVAL_MS ||
-                result > MAX_INTERVAL_MS){
+        for (var token = nextToken(parser); token != JsonToken.END_OBJECT; token = nextToken(parser)) {
+            val fieldName = parser.getCurrentName();
+            nextToken(parser);
+
+            if (HOST_ID_FIELD.equals(fieldName)){
+                hostId = readHostId(parser);
+            } else if (INTERVAL_MS_FIELD.equals(fieldName)){
+                intervalMs = readIntervalMs(parser);
+            } else {
+                skipValue(parser);
+            }
+        }
+
+        if (hostId == null){
+            throw new ParseException(INVALID_HOST_ID, 0);
+        }
+
+        if (intervalMs < MIN_INTERVAL_MS ||
+                intervalMs > MAX_INTERVAL_MS){
             throw new ParseException("Invalid intervalMs", 0);
         }
 
+        return new HeartBeat(hostId, EpochSecondsPlusMs(intervalMs), NO_REGION, false);
+    }
+
+    private static String readHostId(JsonParser parser) throws IOException, ParseException {
+        switch (parser.currentToken()){
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+                validateHostId(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                return parser.getText();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getText();
+            default:
+                skipValue(parser);
+                throw new ParseException(INVALID_HOST_ID, 0);
+        }
+    }
+
+    private static void validateHostId(char[] text, int offset, int length) throws ParseException {
+        if (length == 0 || length > MAX_HOST_ID_LENGTH){
+            throw new ParseException(INVALID_HOST_ID, 0);
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            if (!Character.isLetterOrDigit(text[i])){
+                throw new ParseException(INVALID_HOST_ID, 0);
+            }
+        }
+    }
+
+    private static int readIntervalMs(JsonParser parser) throws IOException {
+        switch (parser.currentToken()){
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue().intValue();
+            case VALUE_STRING:
+                return NumberInput.parseAsInt(parser.getText(), DEFAULT_INTERVAL_MS);
+            case VALUE_TRUE:
+                return 1;
+            case VALUE_FALSE:
+                return 0;
+            default:
+                skipValue(parser);
+                return DEFAULT_INTERVAL_MS;
+        }
+    }
+
+    private static void skipValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() != null && parser.currentToken().isStructStart()){
+            checkNestingDepth(parser);
+            skipUntil(parser, parser.getParsingContext().getParent());
+        }
+    }
+
+    private static void skipUntil(JsonParser parser, JsonStreamContext context) throws IOException {
+        while (parser.getParsingContext() != context){
+            if (nextToken(parser).isStructStart()){
+                checkNestingDepth(parser);
+            }
+        }
+    }
+
+    private static JsonToken nextToken(JsonParser parser) throws IOException {
+        val result = parser.nextToken();
+
+        if (result == null){
+            throw new JsonParseException(parser, "Unexpected end of input");
+        }
+
         return result;
     }
 
+    private static void checkNestingDepth(JsonParser parser) throws IOException {
+        int depth = 0;
+        for (var context = parser.getParsingContext(); context.getParent() != null; context = context.getParent()) {
+            depth++;
+        }
+
+        if (depth > MAX_NESTING_DEPTH){
+            throw new NestingTooDeepException(parser);
+        }
+    }
+
+    private static ParseException toParseException(IOException e){
+        if (e instanceof NestingTooDeepException){
+            return new ParseException(NESTING_TOO_DEEP, 0);
+        }
+
+        log.debug(INVALID_JSON, e);
+        return new ParseException(INVALID_JSON, 0);
+    }
+
+    private static class NestingTooDeepException extends JsonParseException {
+        NestingTooDeepException(JsonParser parser){
+            super(parser, NESTING_TOO_DEEP);
+        }
+    }
+
     @Override
     public HeartBeat fromJson(String jsonString) throws ParseException {
         try {
-            return new ObjectMapper().readValue(jsonString, HeartBeat.class);
+            return jsonMappers.ReaderFor(HeartBeat.class).readValue(jsonString);
         } catch (JsonProcessingException e) {
             throw new ParseException(e.getMessage(), (int)e.getLocation().getCharOffset());
         }
@@ -83,8 +297,10 @@ public class HeartBeatSerializer implements HeartBeatParser, HeartBeatJsonConver
 
     @Override
     public String toJson(HeartBeat heartBeat) {
-        return new ObjectMapper()
-                .valueToTree(heartBeat)
-                .toString();
+        try {
+            return jsonMappers.WriterFor(HeartBeat.class).writeValueAsString(heartBeat);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
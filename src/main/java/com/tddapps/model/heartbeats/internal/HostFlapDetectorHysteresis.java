@@ -0,0 +1,185 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.heartbeats.HostTransition;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.NowReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.*;
+
+@Log4j2
+public class HostFlapDetectorHysteresis implements HostFlapDetector {
+    public static final String FLAPPING_TYPE = "Hosts flapping";
+    private static final int SETTLE_TTL_MARGIN_SECONDS = 3600;
+    private static final Set<String> TRANSITION_TYPES = new HashSet<>(Arrays.asList("Hosts missing", "Hosts registered"));
+    private final HostTransitionRepository transitionRepository;
+    private final SettingsReader settingsReader;
+    private final NowReader nowReader;
+
+    public HostFlapDetectorHysteresis(HostTransitionRepository transitionRepository, SettingsReader settingsReader, NowReader nowReader) {
+        this.transitionRepository = transitionRepository;
+        this.settingsReader = settingsReader;
+        this.nowReader = nowReader;
+    }
+
+    @Override
+    public HeartBeatChangeEvent[] filter(HeartBeatChangeEvent[] events) {
+        val windowSeconds = settingsReader.ReadInt(Settings.FLAP_HYSTERESIS_SECONDS, 0);
+        val hostIds = Arrays.stream(events)
+                .filter(HostFlapDetectorHysteresis::isTransition)
+                .map(e -> e.getHeartBeat().getHostId())
+                .toArray(String[]::new);
+
+        if (windowSeconds <= 0 || hostIds.length == 0){
+            return events;
+        }
+
+        val states = readStates(hostIds);
+        val updatedStates = new LinkedHashMap<String, HostTransition>();
+        val now = nowReader.ReadEpochSecond();
+        val result = new ArrayList<HeartBeatChangeEvent>();
+
+        for (val event : events){
+            if (!isTransition(event)){
+                result.add(event);
+                continue;
+            }
+
+            val hostId = event.getHeartBeat().getHostId();
+            val previous = states.get(hostId);
+
+            if (isRedelivery(previous, event)){
+                addRecordedOutcome(result, previous, event);
+                continue;
+            }
+
+            val eventSecond = event.getEpochSecond() > 0 ? event.getEpochSecond() : now;
+            val current = new HostTransition(hostId, event.getType(), eventSecond, false, 0,
+                    now + windowSeconds + SETTLE_TTL_MARGIN_SECONDS, event.getSequenceNumber());
+
+            if (previous == null || eventSecond - previous.getEpochSecond() > windowSeconds || event.getType().equals(previous.getType())){
+                result.add(event);
+            } else if (!previous.isFlapping()){
+                current.setFlapping(true);
+                result.add(asFlapping(event));
+            } else {
+                current.setFlapping(true);
+                current.setSuppressedCount(previous.getSuppressedCount() + 1);
+                log.info(String.format("Flapping Host Suppressed; %s", current.toString()));
+            }
+
+            states.put(hostId, current);
+            updatedStates.put(hostId, current);
+        }
+
+        if (!updatedStates.isEmpty()){
+            saveStates(updatedStates.values().toArray(new HostTransition[0]));
+        }
+
+        return result.toArray(new HeartBeatChangeEvent[0]);
+    }
+
+    @Override
+    public HeartBeatChangeEvent[] readSettled() {
+        val windowSeconds = settingsReader.ReadInt(Settings.FLAP_HYSTERESIS_SECONDS, 0);
+        if (windowSeconds <= 0){
+            return new HeartBeatChangeEvent[0];
+        }
+
+        val now = nowReader.ReadEpochSecond();
+        val region = settingsReader.ReadString(Settings.AWS_REGION);
+
+        try {
+            return Arrays.stream(transitionRepository.ReadFlapping())
+                    .filter(t -> now - t.getEpochSecond() > windowSeconds)
+                    .map(t -> {
+                        val result = new HeartBeatChangeEvent(t.getType(), new HeartBeat(t.getHostId(), t.getEpochSecond(), region, false));
+                        result.setEpochSecond(t.getEpochSecond());
+                        return result;
+                    })
+                    .toArray(HeartBeatChangeEvent[]::new);
+        } catch (DalException e) {
+            log.warn("Flapping Host Transitions Read failed", e);
+            return new HeartBeatChangeEvent[0];
+        }
+    }
+
+    @Override
+    public void markSettled(HeartBeatChangeEvent[] events) {
+        if (events.length == 0){
+            return;
+        }
+
+        val states = readStates(Arrays.stream(events)
+                .map(e -> e.getHeartBeat().getHostId())
+                .toArray(String[]::new));
+        val settled = new ArrayList<HostTransition>();
+
+        for (val event : events){
+            val state = states.get(event.getHeartBeat().getHostId());
+
+            // a transition saved after readSettled already started a new window
+            if (state == null || !state.isFlapping() || state.getEpochSecond() != event.getEpochSecond()){
+                continue;
+            }
+
+            state.setFlapping(false);
+            log.info(String.format("Flapping Host Settled; %s", state.toString()));
+            settled.add(state);
+        }
+
+        if (!settled.isEmpty()){
+            saveStates(settled.toArray(new HostTransition[0]));
+        }
+    }
+
+    private static boolean isTransition(HeartBeatChangeEvent event){
+        return TRANSITION_TYPES.contains(event.getType());
+    }
+
+    private static boolean isRedelivery(HostTransition previous, HeartBeatChangeEvent event){
+        return previous != null &&
+                event.getSequenceNumber() != null &&
+                event.getSequenceNumber().equals(previous.getSourceSequenceNumber());
+    }
+
+    private static void addRecordedOutcome(List<HeartBeatChangeEvent> result, HostTransition previous, HeartBeatChangeEvent event){
+        log.info(String.format("Host Transition Redelivered; %s", previous.toString()));
+
+        if (!previous.isFlapping()){
+            result.add(event);
+        } else if (previous.getSuppressedCount() == 0){
+            result.add(asFlapping(event));
+        }
+    }
+
+    private static HeartBeatChangeEvent asFlapping(HeartBeatChangeEvent event){
+        val result = new HeartBeatChangeEvent(FLAPPING_TYPE, event.getHeartBeat());
+        result.setSequenceNumber(event.getSequenceNumber());
+        return result;
+    }
+
+    private Map<String, HostTransition> readStates(String[] hostIds){
+        try {
+            return new HashMap<>(transitionRepository.Read(hostIds));
+        } catch (DalException e) {
+            log.warn("Host Transitions Read failed", e);
+            return new HashMap<>();
+        }
+    }
+
+    private void saveStates(HostTransition[] transitions){
+        try {
+            transitionRepository.Save(transitions);
+        } catch (DalException e) {
+            log.warn("Host Transitions Save failed", e);
+        }
+    }
+}
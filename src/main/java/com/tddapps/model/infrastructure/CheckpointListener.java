@@ -0,0 +1,10 @@
+package com.tddapps.model.infrastructure;
+
+/**
+ * Implemented by the singletons that hold state which must not survive a snapshot restore as is.
+ */
+public interface CheckpointListener {
+    void BeforeCheckpoint();
+
+    void AfterRestore();
+}
@@ -0,0 +1,17 @@
+package com.tddapps.model.infrastructure;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+
+/**
+ * Thread-safe Jackson readers and writers built from a single shared ObjectMapper.
+ */
+public interface JsonObjectMappers {
+    ObjectReader ReaderFor(Class<?> type);
+    ObjectWriter WriterFor(Class<?> type);
+    ObjectReader TreeReader();
+    JsonParser CreateParser(String content) throws IOException;
+}
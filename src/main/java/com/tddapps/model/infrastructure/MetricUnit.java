@@ -0,0 +1,18 @@
+package com.tddapps.model.infrastructure;
+
+public enum MetricUnit {
+    MILLISECONDS("Milliseconds"),
+    SECONDS("Seconds"),
+    COUNT("Count"),
+    PERCENT("Percent");
+
+    private final String name;
+
+    MetricUnit(String name){
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
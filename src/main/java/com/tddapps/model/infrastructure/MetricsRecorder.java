@@ -0,0 +1,10 @@
+package com.tddapps.model.infrastructure;
+
+public interface MetricsRecorder {
+    void Record(String name, double value, MetricUnit unit);
+
+    /**
+     * Emits everything recorded since the previous flush under the handler dimension.
+     */
+    void Flush(String handlerName);
+}
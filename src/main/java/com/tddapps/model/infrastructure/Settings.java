@@ -5,5 +5,31 @@ public abstract class Settings {
     public final static String DEFAULT_REGION = "DEFAULT_REGION";
     public final static String TOPIC_NAME = "TOPIC_NAME";
     public final static String TABLE_PREFIX = "TABLE_PREFIX";
+    public final static String METRICS_NAMESPACE = "METRICS_NAMESPACE";
+    public final static String IOC_STARTUP_MODE = "IOC_STARTUP_MODE";
+    public final static String IOC_CONTAINER = "IOC_CONTAINER";
     public final static String DYNAMO_DB_ENDPOINT_OVERRIDE = "DYNAMO_DB_ENDPOINT_OVERRIDE";
+    public final static String SQS_ENDPOINT_OVERRIDE = "SQS_ENDPOINT_OVERRIDE";
+    public final static String SNS_ENDPOINT_OVERRIDE = "SNS_ENDPOINT_OVERRIDE";
+    public final static String SNS_MAX_CONNECTIONS = "SNS_MAX_CONNECTIONS";
+    public final static String SNS_CONNECTION_TIMEOUT_MS = "SNS_CONNECTION_TIMEOUT_MS";
+    public final static String SNS_REQUEST_TIMEOUT_MS = "SNS_REQUEST_TIMEOUT_MS";
+    public final static String NOTIFICATION_SEND_CONCURRENCY = "NOTIFICATION_SEND_CONCURRENCY";
+    public final static String NOTIFICATION_SEND_TIME_MARGIN_MS = "NOTIFICATION_SEND_TIME_MARGIN_MS";
+    public final static String NOTIFICATION_SEND_MAX_ATTEMPTS = "NOTIFICATION_SEND_MAX_ATTEMPTS";
+    public final static String NOTIFICATION_RETRY_BASE_DELAY_MS = "NOTIFICATION_RETRY_BASE_DELAY_MS";
+    public final static String NOTIFICATION_RETRY_MAX_DELAY_MS = "NOTIFICATION_RETRY_MAX_DELAY_MS";
+    public final static String NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD = "NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD";
+    public final static String NOTIFICATION_CIRCUIT_OPEN_MS = "NOTIFICATION_CIRCUIT_OPEN_MS";
+    public final static String NOTIFICATION_LEDGER_TTL_SECONDS = "NOTIFICATION_LEDGER_TTL_SECONDS";
+    public final static String FLAP_HYSTERESIS_SECONDS = "FLAP_HYSTERESIS_SECONDS";
+    public final static String NOTIFICATION_MODE = "NOTIFICATION_MODE";
+    public final static String NOTIFICATION_EVENTS_QUEUE_URL = "NOTIFICATION_EVENTS_QUEUE_URL";
+    public final static String HEARTBEAT_QUEUE_URL = "HEARTBEAT_QUEUE_URL";
+    public final static String HEARTBEAT_INGESTION_MODE = "HEARTBEAT_INGESTION_MODE";
+    public final static String CONDITIONAL_WRITE_THRESHOLD_SECONDS = "CONDITIONAL_WRITE_THRESHOLD_SECONDS";
+    public final static String CONDITIONAL_WRITE_CONCURRENCY = "CONDITIONAL_WRITE_CONCURRENCY";
+    public final static String EXPIRATION_MINUTE_SHARDS = "EXPIRATION_MINUTE_SHARDS";
+    public final static String EXPIRATION_SWEEP_CONCURRENCY = "EXPIRATION_SWEEP_CONCURRENCY";
+    public final static String EXPIRATION_CATCH_UP_CONCURRENCY = "EXPIRATION_CATCH_UP_CONCURRENCY";
 }
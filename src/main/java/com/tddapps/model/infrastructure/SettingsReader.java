@@ -3,4 +3,5 @@ package com.tddapps.model.infrastructure;
 public interface SettingsReader {
     String ReadString(String name);
     String ReadString(String name, String defaultValue);
+    int ReadInt(String name, int defaultValue);
 }
@@ -1,8 +1,10 @@
 package com.tddapps.model.infrastructure.internal;
 
 import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
 import lombok.val;
 
+@Log4j2
 public class EnvironmentSettingsReader implements SettingsReader {
     @Override
     public String ReadString(String name) {
@@ -19,4 +21,20 @@ public class EnvironmentSettingsReader implements SettingsReader {
 
         return result;
     }
+
+    @Override
+    public int ReadInt(String name, int defaultValue) {
+        val result = ReadString(name).trim();
+
+        if (result.isEmpty()){
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(result);
+        } catch (NumberFormatException e) {
+            log.warn(String.format("Invalid int setting; name: %s, value: %s", name, result));
+            return defaultValue;
+        }
+    }
 }
@@ -1,6 +1,9 @@
 package com.tddapps.model.infrastructure.internal;
 
+import com.tddapps.model.infrastructure.CheckpointListener;
 import com.tddapps.model.infrastructure.KeysCache;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import lombok.val;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
@@ -13,14 +16,17 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.time.Duration;
 
-public class InMemoryKeysCacheWithExpiration implements KeysCache, Closeable {
+public class InMemoryKeysCacheWithExpiration implements KeysCache, CheckpointListener, Closeable {
     private static final int TTL_SECONDS = 30;
     private static final int MAX_CAPACITY = 100;
 
     private final CacheManager cacheManager;
     private final Cache<String, String> cache;
+    private final MetricsRecorder metrics;
+
+    public InMemoryKeysCacheWithExpiration(MetricsRecorder metrics){
+        this.metrics = metrics;
 
-    public InMemoryKeysCacheWithExpiration(){
         val expiryPolicy = ExpiryPolicyBuilder.timeToIdleExpiration(Duration.ofSeconds(TTL_SECONDS));
 
         val configurationBuilder = CacheConfigurationBuilder
@@ -41,7 +47,9 @@ public class InMemoryKeysCacheWithExpiration implements KeysCache, Closeable {
 
     @Override
     public boolean Contains(String key) {
-        return cache.containsKey(key);
+        val result = cache.containsKey(key);
+        metrics.Record("KeysCacheHitRatio", result ? 100 : 0, MetricUnit.PERCENT);
+        return result;
     }
 
     @Override
@@ -49,6 +57,15 @@ public class InMemoryKeysCacheWithExpiration implements KeysCache, Closeable {
         cache.put(key, "1");
     }
 
+    @Override
+    public void BeforeCheckpoint() {
+    }
+
+    @Override
+    public void AfterRestore() {
+        cache.clear();
+    }
+
     @Override
     public void close() throws IOException {
         cacheManager.removeCache(getCacheName());
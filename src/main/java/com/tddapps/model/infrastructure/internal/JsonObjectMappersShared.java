@@ -0,0 +1,44 @@
+package com.tddapps.model.infrastructure.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.infrastructure.JsonObjectMappers;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class JsonObjectMappersShared implements JsonObjectMappers {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader treeReader = objectMapper.reader();
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public JsonObjectMappersShared(){
+        ReaderFor(HeartBeat.class);
+        WriterFor(HeartBeat.class);
+    }
+
+    @Override
+    public ObjectReader ReaderFor(Class<?> type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    @Override
+    public ObjectWriter WriterFor(Class<?> type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    @Override
+    public ObjectReader TreeReader() {
+        return treeReader;
+    }
+
+    @Override
+    public JsonParser CreateParser(String content) throws IOException {
+        return objectMapper.getFactory().createParser(content);
+    }
+}
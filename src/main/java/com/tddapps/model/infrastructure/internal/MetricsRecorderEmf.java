@@ -0,0 +1,110 @@
+package com.tddapps.model.infrastructure.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tddapps.model.infrastructure.CheckpointListener;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.NowReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Log4j2(topic = "EmbeddedMetrics")
+public class MetricsRecorderEmf implements MetricsRecorder, CheckpointListener {
+    public static final String DEFAULT_NAMESPACE = "hb-api";
+    public static final String HANDLER_DIMENSION = "Handler";
+    public static final int MAX_VALUES_PER_METRIC = 100;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SettingsReader settingsReader;
+    private final NowReader nowReader;
+    private final Map<String, MetricUnit> units = new LinkedHashMap<>();
+    private final Map<String, List<Double>> values = new LinkedHashMap<>();
+
+    public MetricsRecorderEmf(SettingsReader settingsReader, NowReader nowReader){
+        this.settingsReader = settingsReader;
+        this.nowReader = nowReader;
+    }
+
+    @Override
+    public synchronized void Record(String name, double value, MetricUnit unit) {
+        units.putIfAbsent(name, unit);
+        values.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+
+    @Override
+    public void Flush(String handlerName) {
+        for (val document : buildDocuments(handlerName)){
+            log.info(document);
+        }
+    }
+
+    synchronized List<String> buildDocuments(String handlerName) {
+        val result = new ArrayList<String>();
+        val timestamp = nowReader.ReadUtc().getTime();
+        val namespace = settingsReader.ReadString(Settings.METRICS_NAMESPACE, DEFAULT_NAMESPACE);
+
+        for (int offset = 0; hasValuesFrom(offset); offset += MAX_VALUES_PER_METRIC) {
+            result.add(buildDocument(namespace, timestamp, handlerName, offset).toString());
+        }
+
+        clear();
+        return result;
+    }
+
+    @Override
+    public synchronized void BeforeCheckpoint() {
+        clear();
+    }
+
+    @Override
+    public void AfterRestore() {
+    }
+
+    private void clear() {
+        units.clear();
+        values.clear();
+    }
+
+    private boolean hasValuesFrom(int offset) {
+        return values.values().stream().anyMatch(v -> v.size() > offset);
+    }
+
+    private ObjectNode buildDocument(String namespace, long timestamp, String handlerName, int offset) {
+        val result = objectMapper.createObjectNode();
+        val directive = objectMapper.createObjectNode();
+        directive.put("Namespace", namespace);
+        directive.putArray("Dimensions").addArray().add(HANDLER_DIMENSION);
+        val metrics = directive.putArray("Metrics");
+
+        for (val entry : values.entrySet()){
+            val metricValues = entry.getValue();
+            if (metricValues.size() <= offset){
+                continue;
+            }
+
+            metrics.addObject()
+                    .put("Name", entry.getKey())
+                    .put("Unit", units.get(entry.getKey()).getName());
+
+            val slice = result.putArray(entry.getKey());
+            for (val value : metricValues.subList(offset, Math.min(offset + MAX_VALUES_PER_METRIC, metricValues.size()))){
+                slice.add(value);
+            }
+        }
+
+        val aws = result.putObject("_aws");
+        aws.put("Timestamp", timestamp);
+        aws.putArray("CloudWatchMetrics").add(directive);
+        result.put(HANDLER_DIMENSION, handlerName);
+
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSClientBuilder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+import org.picocontainer.PicoContainer;
+import org.picocontainer.injectors.FactoryInjector;
+
+import java.lang.reflect.Type;
+
+@Log4j2
+public class AmazonSNSFactory extends FactoryInjector<AmazonSNS> {
+    public static final int DEFAULT_MAX_CONNECTIONS = 50;
+    public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 2000;
+    public static final int DEFAULT_REQUEST_TIMEOUT_MS = 5000;
+
+    @Override
+    public AmazonSNS getComponentInstance(PicoContainer container, Type into) {
+        val settingsReader = container.getComponent(SettingsReader.class);
+
+        return createClient(settingsReader);
+    }
+
+    public AmazonSNS createClient(SettingsReader settingsReader){
+        val clientConfiguration = createClientConfiguration(settingsReader);
+
+        val snsEndpointOverride = settingsReader.ReadString(Settings.SNS_ENDPOINT_OVERRIDE);
+        if (snsEndpointOverride.isEmpty()){
+            return getDefaultClient(clientConfiguration);
+        }
+
+        val region = settingsReader.ReadString(Settings.DEFAULT_REGION, Regions.DEFAULT_REGION.getName());
+        return getLocalClient(snsEndpointOverride, region, clientConfiguration);
+    }
+
+    ClientConfiguration createClientConfiguration(SettingsReader settingsReader) {
+        return new ClientConfiguration()
+                .withMaxConnections(settingsReader.ReadInt(Settings.SNS_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS))
+                .withConnectionTimeout(settingsReader.ReadInt(Settings.SNS_CONNECTION_TIMEOUT_MS, DEFAULT_CONNECTION_TIMEOUT_MS))
+                .withRequestTimeout(settingsReader.ReadInt(Settings.SNS_REQUEST_TIMEOUT_MS, DEFAULT_REQUEST_TIMEOUT_MS))
+                .withRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY);
+    }
+
+    AmazonSNS getDefaultClient(ClientConfiguration clientConfiguration) {
+        return AmazonSNSClientBuilder
+                .standard()
+                .withClientConfiguration(clientConfiguration)
+                .build();
+    }
+
+    AmazonSNS getLocalClient(String snsEndpointOverride, String region, ClientConfiguration clientConfiguration) {
+        log.debug(String.format("Override SNS Endpoint; endpoint: %s", snsEndpointOverride));
+
+        val endpointConfiguration = new AwsClientBuilder.EndpointConfiguration(
+                snsEndpointOverride,
+                region
+        );
+
+        return AmazonSNSClientBuilder
+                .standard()
+                .withClientConfiguration(clientConfiguration)
+                .withEndpointConfiguration(endpointConfiguration)
+                .build();
+    }
+}
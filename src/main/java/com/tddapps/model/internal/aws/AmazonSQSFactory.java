@@ -0,0 +1,52 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.AmazonSQSClientBuilder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+import org.picocontainer.PicoContainer;
+import org.picocontainer.injectors.FactoryInjector;
+
+import java.lang.reflect.Type;
+
+@Log4j2
+public class AmazonSQSFactory extends FactoryInjector<AmazonSQS> {
+    @Override
+    public AmazonSQS getComponentInstance(PicoContainer container, Type into) {
+        val settingsReader = container.getComponent(SettingsReader.class);
+
+        return createClient(settingsReader);
+    }
+
+    public AmazonSQS createClient(SettingsReader settingsReader){
+        val sqsEndpointOverride = settingsReader.ReadString(Settings.SQS_ENDPOINT_OVERRIDE);
+        if (sqsEndpointOverride.isEmpty()){
+            return getDefaultClient();
+        }
+
+        val region = settingsReader.ReadString(Settings.DEFAULT_REGION, Regions.DEFAULT_REGION.getName());
+        return getLocalClient(sqsEndpointOverride, region);
+    }
+
+    AmazonSQS getDefaultClient() {
+        return AmazonSQSClientBuilder.defaultClient();
+    }
+
+    AmazonSQS getLocalClient(String sqsEndpointOverride, String region) {
+        log.debug(String.format("Override SQS Endpoint; endpoint: %s", sqsEndpointOverride));
+
+        val endpointConfiguration = new AwsClientBuilder.EndpointConfiguration(
+                sqsEndpointOverride,
+                region
+        );
+
+        return AmazonSQSClientBuilder
+                .standard()
+                .withEndpointConfiguration(endpointConfiguration)
+                .build();
+    }
+}
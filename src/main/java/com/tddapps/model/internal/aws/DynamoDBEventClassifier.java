@@ -0,0 +1,8 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.tddapps.model.heartbeats.HeartBeatStreamChanges;
+
+public interface DynamoDBEventClassifier {
+    HeartBeatStreamChanges classify(DynamodbEvent input);
+}
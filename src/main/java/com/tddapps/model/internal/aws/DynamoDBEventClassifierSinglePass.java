@@ -0,0 +1,158 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatModification;
+import com.tddapps.model.heartbeats.HeartBeatStreamChanges;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+
+public class DynamoDBEventClassifierSinglePass implements DynamoDBEventClassifier {
+    private static final String TRUE_NUMERIC_STRING = "1";
+    private final SettingsReader settingsReader;
+
+    public DynamoDBEventClassifierSinglePass(SettingsReader settingsReader) {
+        this.settingsReader = settingsReader;
+    }
+
+    @Override
+    public HeartBeatStreamChanges classify(DynamodbEvent input) {
+        val region = settingsReader.ReadString(Settings.AWS_REGION);
+        val deletions = new LinkedHashSet<HeartBeat>();
+        val insertions = new LinkedHashSet<HeartBeat>();
+        val modifications = new ArrayList<HeartBeatModification>();
+        // the records arrive in stream order, keeping the first one of every host lets
+        // a failed notification be retried from its earliest record
+        val sequenceNumbers = new HashMap<String, String>();
+        val creationEpochSeconds = new HashMap<String, Long>();
+        var recordCount = 0;
+
+        if (input.getRecords() != null){
+            for (val record : input.getRecords()){
+                recordCount++;
+
+                val streamRecord = record.getDynamodb();
+                if (streamRecord == null){
+                    continue;
+                }
+
+                val oldImage = streamRecord.getOldImage();
+                val newImage = streamRecord.getNewImage();
+
+                switch (String.valueOf(record.getEventName())){
+                    case "REMOVE":
+                        if (isRelevant(oldImage, region)){
+                            deletions.add(toHeartBeat(oldImage));
+                            sequenceNumbers.putIfAbsent(readString(oldImage, "host_id"), streamRecord.getSequenceNumber());
+                            creationEpochSeconds.putIfAbsent(readString(oldImage, "host_id"), readCreationEpochSecond(streamRecord));
+                        }
+                        break;
+                    case "INSERT":
+                        if (isRelevant(newImage, region)){
+                            insertions.add(toHeartBeat(newImage));
+                            sequenceNumbers.putIfAbsent(readString(newImage, "host_id"), streamRecord.getSequenceNumber());
+                            creationEpochSeconds.putIfAbsent(readString(newImage, "host_id"), readCreationEpochSecond(streamRecord));
+                        }
+                        break;
+                    case "MODIFY":
+                        if (isRelevantModification(oldImage, newImage, region)){
+                            modifications.add(new HeartBeatModification(toHeartBeat(oldImage), toHeartBeat(newImage)));
+                            sequenceNumbers.putIfAbsent(readString(newImage, "host_id"), streamRecord.getSequenceNumber());
+                            creationEpochSeconds.putIfAbsent(readString(newImage, "host_id"), readCreationEpochSecond(streamRecord));
+                        }
+                        break;
+                }
+            }
+        }
+
+        val skippedCount = recordCount - deletions.size() - insertions.size() - modifications.size();
+
+        return new HeartBeatStreamChanges(
+                new ArrayList<>(deletions),
+                new ArrayList<>(insertions),
+                modifications,
+                sequenceNumbers,
+                creationEpochSeconds,
+                recordCount,
+                skippedCount
+        );
+    }
+
+    private static long readCreationEpochSecond(StreamRecord streamRecord){
+        val creation = streamRecord.getApproximateCreationDateTime();
+        return creation == null ? 0 : creation.getTime() / 1000;
+    }
+
+    private static boolean isRelevant(Map<String, AttributeValue> image, String region){
+        return isCurrentRegion(image, region) && isNotTest(image);
+    }
+
+    private static boolean isRelevantModification(Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage, String region){
+        if (oldImage == null || !isCurrentRegion(newImage, region)){
+            return false;
+        }
+
+        if (!isNotTest(oldImage) && !isNotTest(newImage)){
+            return false;
+        }
+
+        return !Objects.equals(readString(oldImage, "region"), readString(newImage, "region")) ||
+                readBoolean(oldImage, "is_test") != readBoolean(newImage, "is_test") ||
+                readLong(newImage, "ttl") < readLong(oldImage, "ttl");
+    }
+
+    private static boolean isCurrentRegion(Map<String, AttributeValue> image, String region){
+        return image != null && region != null && region.equals(readString(image, "region"));
+    }
+
+    private static boolean isNotTest(Map<String, AttributeValue> image){
+        return !readBoolean(image, "is_test");
+    }
+
+    private static HeartBeat toHeartBeat(Map<String, AttributeValue> image){
+        return new HeartBeat(
+                readString(image, "host_id"),
+                readLong(image, "ttl"),
+                readString(image, "expiration_minute_utc"),
+                readString(image, "region"),
+                readBoolean(image, "is_test")
+        );
+    }
+
+    private static String readString(Map<String, AttributeValue> image, String name){
+        val value = image.get(name);
+        return value == null ? null : value.getS();
+    }
+
+    private static long readLong(Map<String, AttributeValue> image, String name){
+        val value = image.get(name);
+        if (value == null || value.getN() == null){
+            return 0;
+        }
+
+        return Long.parseLong(value.getN());
+    }
+
+    private static boolean readBoolean(Map<String, AttributeValue> image, String name){
+        val value = image.get(name);
+        if (value == null){
+            return false;
+        }
+
+        if (value.getBOOL() != null){
+            return value.getBOOL();
+        }
+
+        return TRUE_NUMERIC_STRING.equals(value.getN());
+    }
+}
@@ -0,0 +1,37 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.ExpirationWatermark;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import lombok.extern.log4j.Log4j2;
+
+@Log4j2
+public class ExpirationWatermarkRepositoryDynamo implements ExpirationWatermarkRepository {
+    private final DynamoDBMapper mapper;
+
+    public ExpirationWatermarkRepositoryDynamo(DynamoDBMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public ExpirationWatermark Read(String region) throws DalException {
+        try {
+            return mapper.load(ExpirationWatermark.class, region);
+        } catch (AmazonClientException e) {
+            log.debug("ExpirationWatermark Read Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void Save(ExpirationWatermark watermark) throws DalException {
+        try {
+            mapper.save(watermark);
+        } catch (AmazonClientException e) {
+            log.debug("ExpirationWatermark Save Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
+
+@Log4j2
+public class HeartBeatChangeEventQueueSqs implements HeartBeatChangeEventQueue {
+    public static final String EVENT_TYPE_ATTRIBUTE = "event_type";
+    private static final int SQS_MAX_BATCH_SIZE = 10;
+    private final AmazonSQS sqs;
+    private final SettingsReader settingsReader;
+    private final HeartBeatJsonConverter jsonConverter;
+
+    public HeartBeatChangeEventQueueSqs(AmazonSQS sqs, SettingsReader settingsReader, HeartBeatJsonConverter jsonConverter) {
+        this.sqs = sqs;
+        this.settingsReader = settingsReader;
+        this.jsonConverter = jsonConverter;
+    }
+
+    @Override
+    public HeartBeatChangeEvent[] Send(HeartBeatChangeEvent[] events) {
+        val result = new ArrayList<HeartBeatChangeEvent>();
+        val queueUrl = settingsReader.ReadString(Settings.NOTIFICATION_EVENTS_QUEUE_URL);
+        val batches = Split(events, SQS_MAX_BATCH_SIZE);
+
+        for (int i = 0; i < batches.length; i++) {
+            log.debug(String.format("Send; batchIndex:%s, batchCount:%s", i, batches.length));
+
+            try {
+                result.addAll(sendBatch(queueUrl, batches[i]));
+            } catch (AmazonClientException e) {
+                log.warn(String.format("HeartBeatChangeEvent Send Error; batchIndex: %d; %s", i, e.getMessage()), e);
+                for (val event : batches[i]){
+                    result.add((HeartBeatChangeEvent) event);
+                }
+            }
+        }
+
+        return result.toArray(new HeartBeatChangeEvent[0]);
+    }
+
+    private List<HeartBeatChangeEvent> sendBatch(String queueUrl, Object[] batch) {
+        val entries = new ArrayList<SendMessageBatchRequestEntry>(batch.length);
+        for (int i = 0; i < batch.length; i++) {
+            val event = (HeartBeatChangeEvent) batch[i];
+            entries.add(new SendMessageBatchRequestEntry()
+                    .withId(String.valueOf(i))
+                    .withMessageBody(jsonConverter.toJson(event.getHeartBeat()))
+                    .addMessageAttributesEntry(EVENT_TYPE_ATTRIBUTE, new MessageAttributeValue()
+                            .withDataType("String")
+                            .withStringValue(event.getType())));
+        }
+
+        val result = sqs.sendMessageBatch(new SendMessageBatchRequest()
+                .withQueueUrl(queueUrl)
+                .withEntries(entries));
+
+        val failedEvents = new ArrayList<HeartBeatChangeEvent>(result.getFailed().size());
+        for (val failed : result.getFailed()){
+            log.warn(String.format("HeartBeatChangeEvent Send Failed; id: %s; %s", failed.getId(), failed.getMessage()));
+            failedEvents.add((HeartBeatChangeEvent) batch[Integer.parseInt(failed.getId())]);
+        }
+
+        return failedEvents;
+    }
+}
@@ -0,0 +1,72 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.ArrayList;
+
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
+
+@Log4j2
+public class HeartBeatQueueSqs implements HeartBeatQueue {
+    public static final int SQS_MAX_BATCH_SIZE = 10;
+    private final AmazonSQS sqs;
+    private final SettingsReader settingsReader;
+    private final HeartBeatJsonConverter jsonConverter;
+
+    public HeartBeatQueueSqs(AmazonSQS sqs, SettingsReader settingsReader, HeartBeatJsonConverter jsonConverter) {
+        this.sqs = sqs;
+        this.settingsReader = settingsReader;
+        this.jsonConverter = jsonConverter;
+    }
+
+    @Override
+    public void Send(HeartBeat[] heartBeats) throws DalException {
+        try {
+            val queueUrl = getQueueUrl();
+            val batches = Split(heartBeats, SQS_MAX_BATCH_SIZE);
+            for (int i = 0; i < batches.length; i++) {
+                log.debug(String.format("Send; batchIndex:%s, batchCount:%s", i, batches.length));
+                sendBatch(queueUrl, batches[i]);
+            }
+        } catch (AmazonClientException e) {
+            log.debug("HeartBeat Send Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+
+    private void sendBatch(String queueUrl, Object[] batch) throws DalException {
+        val entries = new ArrayList<SendMessageBatchRequestEntry>(batch.length);
+        for (int i = 0; i < batch.length; i++) {
+            entries.add(new SendMessageBatchRequestEntry()
+                    .withId(String.valueOf(i))
+                    .withMessageBody(jsonConverter.toJson((HeartBeat) batch[i])));
+        }
+
+        val result = sqs.sendMessageBatch(new SendMessageBatchRequest()
+                .withQueueUrl(queueUrl)
+                .withEntries(entries));
+
+        if (!result.getFailed().isEmpty()){
+            throw new DalException(String.format(
+                    "HeartBeat Send Failed; failedCount: %d; %s",
+                    result.getFailed().size(),
+                    result.getFailed().get(0).getMessage()
+            ));
+        }
+    }
+
+    private String getQueueUrl() {
+        return settingsReader.ReadString(Settings.HEARTBEAT_QUEUE_URL);
+    }
+}
@@ -1,44 +1,248 @@
 package com.tddapps.model.internal.aws;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 import com.amazonaws.services.dynamodbv2.datamodeling.KeyPair;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.ExpirationMinuteShards;
 import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatPage;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
-import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.Sleeper;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
+import lombok.var;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import static com.tddapps.utils.ArrayBatchExtensions.Split;
+import static com.tddapps.utils.ExecutorExtensions.NewBoundedThreadPool;
 
 @Log4j2
 public class HeartBeatRepositoryDynamo implements HeartBeatRepository {
     public static final int DYNAMO_MAX_BATCH_SIZE = 25;
+    public static final int UNPROCESSED_ITEMS_MAX_RETRIES = 3;
+    public static final int UNPROCESSED_ITEMS_BASE_DELAY_MS = 50;
+    public static final int DEFAULT_CONDITIONAL_WRITE_CONCURRENCY = 16;
+    private static final String MEANINGFUL_CHANGE_CONDITION = "attribute_not_exists(#hostId) OR " +
+            "#ttl < :minTtl OR #ttl > :ttl OR #region <> :region OR #isTest <> :isTest";
+
     private final DynamoDBMapper mapper;
+    private final AmazonDynamoDB client;
+    private final SettingsReader settingsReader;
+    private final Sleeper sleeper;
+    private final MetricsRecorder metrics;
+    private final ExecutorService conditionalWriters;
 
-    public HeartBeatRepositoryDynamo(DynamoDBMapper mapper) {
+    public HeartBeatRepositoryDynamo(DynamoDBMapper mapper, AmazonDynamoDB client, SettingsReader settingsReader, Sleeper sleeper, MetricsRecorder metrics) {
         this.mapper = mapper;
+        this.client = client;
+        this.settingsReader = settingsReader;
+        this.sleeper = sleeper;
+        this.metrics = metrics;
+        this.conditionalWriters = NewBoundedThreadPool("conditional-writes", readConditionalWriteConcurrency());
     }
 
     @Override
-    public void Save(HeartBeat[] heartBeats) throws DalException {
+    public HeartBeat[] Save(HeartBeat[] heartBeats) throws DalException {
+        val shardedHeartBeats = shardExpirationMinutes(heartBeats);
+
+        val conditionalWriteThresholdSeconds = readConditionalWriteThresholdSeconds();
+        if (conditionalWriteThresholdSeconds > 0){
+            SaveConditionally(shardedHeartBeats, conditionalWriteThresholdSeconds);
+            return new HeartBeat[0];
+        }
+
+        val unsavedHostIds = new HashSet<String>();
         try {
-            val batches = Split(heartBeats, DYNAMO_MAX_BATCH_SIZE);
+            val batches = Split(shardedHeartBeats, DYNAMO_MAX_BATCH_SIZE);
             for (int i = 0; i < batches.length; i++) {
                 log.debug(String.format("Save; batchIndex:%s, batchCount:%s", i, batches.length));
-                mapper.batchWrite(Arrays.asList(batches[i]), new ArrayList<HeartBeat>());
+                val failedBatches = mapper.batchWrite(Arrays.asList(batches[i]), new ArrayList<HeartBeat>());
+                recordBatchWrite(batches[i].length, failedBatches);
+                unsavedHostIds.addAll(retryUnprocessedItems(readUnprocessedItems(failedBatches)));
             }
         } catch (AmazonClientException e) {
             log.debug("HeartBeat Save Error", e);
             throw new DalException(e.getMessage());
         }
+
+        val result = Arrays.stream(heartBeats)
+                .filter(hb -> unsavedHostIds.contains(hb.getHostId()))
+                .toArray(HeartBeat[]::new);
+
+        if (result.length > 0){
+            log.warn(String.format("HeartBeats Not Saved; HeartBeatCount: %d; UnsavedCount: %d", heartBeats.length, result.length));
+        }
+        metrics.Record("DynamoUnsavedItems", result.length, MetricUnit.COUNT);
+
+        return result;
+    }
+
+    private Set<String> retryUnprocessedItems(Map<String, List<WriteRequest>> unprocessedItems) {
+        var pending = unprocessedItems;
+
+        for (int attempt = 1; !pending.isEmpty() && attempt <= UNPROCESSED_ITEMS_MAX_RETRIES; attempt++) {
+            if (!backoff(attempt)){
+                break;
+            }
+
+            log.debug(String.format("Save Retry; attempt:%s, unprocessedCount:%s", attempt, countItems(pending)));
+            val retryResult = client
+                    .batchWriteItem(new BatchWriteItemRequest().withRequestItems(pending))
+                    .getUnprocessedItems();
+            pending = retryResult == null ? Collections.emptyMap() : retryResult;
+        }
+
+        return pending.values()
+                .stream()
+                .flatMap(List::stream)
+                .map(r -> r.getPutRequest().getItem().get("host_id").getS())
+                .collect(Collectors.toSet());
+    }
+
+    private boolean backoff(int attempt) {
+        val capMs = UNPROCESSED_ITEMS_BASE_DELAY_MS * (1L << (attempt - 1));
+
+        try {
+            sleeper.Sleep(ThreadLocalRandom.current().nextLong(capMs + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Map<String, List<WriteRequest>> readUnprocessedItems(List<DynamoDBMapper.FailedBatch> failedBatches) {
+        val result = new HashMap<String, List<WriteRequest>>();
+
+        for (val failedBatch : failedBatches){
+            failedBatch.getUnprocessedItems().forEach((tableName, requests) ->
+                    result.computeIfAbsent(tableName, k -> new ArrayList<>()).addAll(requests));
+        }
+
+        return result;
+    }
+
+    private static int countItems(Map<String, List<WriteRequest>> items) {
+        return items.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void SaveConditionally(HeartBeat[] heartBeats, int thresholdSeconds) throws DalException {
+        try {
+            val tableName = getTableName();
+            val tableModel = mapper.getTableModel(HeartBeat.class);
+
+            val puts = Arrays.stream(heartBeats)
+                    .map(hb -> conditionalWriters.submit(() -> putIfChanged(buildMeaningfulChangeRequest(
+                            tableName, tableModel.convert(hb), hb, thresholdSeconds))))
+                    .collect(Collectors.toList());
+
+            var skippedCount = 0;
+            for (val put : puts){
+                if (!waitFor(put)){
+                    skippedCount++;
+                }
+            }
+
+            log.debug(String.format("SaveConditionally; heartBeatCount:%s, skippedCount:%s",
+                    heartBeats.length, skippedCount));
+            metrics.Record("DynamoConditionalWrites", heartBeats.length, MetricUnit.COUNT);
+            metrics.Record("DynamoConditionalWritesSkipped", skippedCount, MetricUnit.COUNT);
+        } catch (AmazonClientException e) {
+            log.debug("HeartBeat SaveConditionally Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+
+    private boolean putIfChanged(PutItemRequest request) {
+        try {
+            client.putItem(request);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static boolean waitFor(Future<Boolean> put) throws DalException {
+        try {
+            return put.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AmazonClientException){
+                throw (AmazonClientException) e.getCause();
+            }
+
+            throw new DalException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DalException("SaveConditionally interrupted");
+        }
+    }
+
+    private void recordBatchWrite(int batchSize, List<DynamoDBMapper.FailedBatch> failedBatches) {
+        val unprocessedCount = countItems(readUnprocessedItems(failedBatches));
+
+        metrics.Record("DynamoBatchSize", batchSize, MetricUnit.COUNT);
+        metrics.Record("DynamoUnprocessedItems", unprocessedCount, MetricUnit.COUNT);
+    }
+
+    private static PutItemRequest buildMeaningfulChangeRequest(
+            String tableName, Map<String, AttributeValue> item, HeartBeat heartBeat, int thresholdSeconds) {
+        return new PutItemRequest()
+                .withTableName(tableName)
+                .withItem(item)
+                .withConditionExpression(MEANINGFUL_CHANGE_CONDITION)
+                .withExpressionAttributeNames(new HashMap<String, String>() {{
+                    put("#hostId", "host_id");
+                    put("#ttl", "ttl");
+                    put("#region", "region");
+                    put("#isTest", "is_test");
+                }})
+                .withExpressionAttributeValues(new HashMap<String, AttributeValue>() {{
+                    put(":minTtl", new AttributeValue().withN(String.valueOf(heartBeat.getTtl() - thresholdSeconds)));
+                    put(":ttl", new AttributeValue().withN(String.valueOf(heartBeat.getTtl())));
+                    put(":region", new AttributeValue().withS(heartBeat.getRegion()));
+                    put(":isTest", new AttributeValue().withN(heartBeat.isTest() ? "1" : "0"));
+                }});
+    }
+
+    private HeartBeat[] shardExpirationMinutes(HeartBeat[] heartBeats) {
+        val shardCount = settingsReader.ReadInt(Settings.EXPIRATION_MINUTE_SHARDS, 1);
+
+        return Arrays.stream(heartBeats)
+                .map(hb -> ExpirationMinuteShards.Shard(hb, shardCount))
+                .toArray(HeartBeat[]::new);
+    }
+
+    private String getTableName() {
+        val tablePrefix = settingsReader.ReadString(Settings.TABLE_PREFIX);
+        return tablePrefix + HeartBeat.class.getAnnotation(DynamoDBTable.class).tableName();
+    }
+
+    private int readConditionalWriteThresholdSeconds() {
+        return settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0);
+    }
+
+    private int readConditionalWriteConcurrency() {
+        return Math.max(1, settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_CONCURRENCY, DEFAULT_CONDITIONAL_WRITE_CONCURRENCY));
     }
 
     HeartBeat[] All() throws DalException {
@@ -54,6 +258,11 @@ public class HeartBeatRepositoryDynamo implements HeartBeatRepository {
 
     @Override
     public HeartBeat[] Read(String expirationMinuteUtc, int maxCount) throws DalException {
+        return Read(expirationMinuteUtc, maxCount, null).getHeartBeats();
+    }
+
+    @Override
+    public HeartBeatPage Read(String expirationMinuteUtc, int maxCount, HeartBeat startAfter) throws DalException {
         try {
             val query = new DynamoDBQueryExpression<HeartBeat>()
                     .withLimit(maxCount)
@@ -67,15 +276,42 @@ public class HeartBeatRepositoryDynamo implements HeartBeatRepository {
                         put(":val1", new AttributeValue().withS(expirationMinuteUtc));
                     }});
 
-            return mapper.queryPage(HeartBeat.class, query)
-                    .getResults()
-                    .toArray(new HeartBeat[0]);
+            if (startAfter != null){
+                query.withExclusiveStartKey(buildExpirationMinuteIndexKey(startAfter));
+            }
+
+            val page = mapper.queryPage(HeartBeat.class, query);
+
+            return new HeartBeatPage(
+                    page.getResults().toArray(new HeartBeat[0]),
+                    readExpirationMinuteIndexKey(page.getLastEvaluatedKey())
+            );
         } catch (AmazonClientException e) {
             log.debug("HeartBeat ReadOlderThan Error", e);
             throw new DalException(e.getMessage());
         }
     }
 
+    private static Map<String, AttributeValue> buildExpirationMinuteIndexKey(HeartBeat heartBeat) {
+        return new HashMap<String, AttributeValue>() {{
+            put("host_id", new AttributeValue().withS(heartBeat.getHostId()));
+            put("expiration_minute_utc", new AttributeValue().withS(heartBeat.getExpirationMinuteUtc()));
+            put("ttl", new AttributeValue().withN(String.valueOf(heartBeat.getTtl())));
+        }};
+    }
+
+    private static HeartBeat readExpirationMinuteIndexKey(Map<String, AttributeValue> key) {
+        if (key == null){
+            return null;
+        }
+
+        val result = new HeartBeat();
+        result.setHostId(key.get("host_id").getS());
+        result.setExpirationMinuteUtc(key.get("expiration_minute_utc").getS());
+        result.setTtl(Long.parseLong(key.get("ttl").getN()));
+        return result;
+    }
+
     @Override
     public HeartBeat[] Read(String[] hostIds) throws DalException {
         try {
@@ -105,7 +341,8 @@ public class HeartBeatRepositoryDynamo implements HeartBeatRepository {
             val batches = Split(heartBeats, DYNAMO_MAX_BATCH_SIZE);
             for (int i = 0; i < batches.length; i++) {
                 log.debug(String.format("Delete; batchIndex:%s, batchCount:%s", i, batches.length));
-                mapper.batchDelete(Arrays.asList(batches[i]));
+                val failedBatches = mapper.batchDelete(Arrays.asList(batches[i]));
+                recordBatchWrite(batches[i].length, failedBatches);
             }
         } catch (AmazonClientException e) {
             log.debug("HeartBeat Delete Error", e);
@@ -0,0 +1,86 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HostTransition;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
+
+@Log4j2
+public class HostTransitionRepositoryDynamo implements HostTransitionRepository {
+    private static final int DYNAMO_MAX_BATCH_LOAD_SIZE = 100;
+    private static final int DYNAMO_MAX_BATCH_SIZE = 25;
+    private final DynamoDBMapper mapper;
+
+    public HostTransitionRepositoryDynamo(DynamoDBMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public Map<String, HostTransition> Read(String[] hostIds) throws DalException {
+        val result = new HashMap<String, HostTransition>();
+
+        try {
+            val keys = Arrays.stream(hostIds)
+                    .distinct()
+                    .map(id -> {
+                        val key = new HostTransition();
+                        key.setHostId(id);
+                        return key;
+                    })
+                    .toArray(HostTransition[]::new);
+
+            for (val batch : Split(keys, DYNAMO_MAX_BATCH_LOAD_SIZE)){
+                for (val items : mapper.batchLoad(Arrays.asList(batch)).values()){
+                    for (val item : items){
+                        val transition = (HostTransition)item;
+                        result.put(transition.getHostId(), transition);
+                    }
+                }
+            }
+        } catch (AmazonClientException e) {
+            log.debug("HostTransition Read Error", e);
+            throw new DalException(e.getMessage());
+        }
+
+        return result;
+    }
+
+    @Override
+    public HostTransition[] ReadFlapping() throws DalException {
+        try {
+            val expression = new DynamoDBScanExpression()
+                    .withFilterExpression("is_flapping = :flapping")
+                    .withExpressionAttributeValues(Collections.singletonMap(":flapping", new AttributeValue().withN("1")));
+
+            return mapper.scan(HostTransition.class, expression).toArray(new HostTransition[0]);
+        } catch (AmazonClientException e) {
+            log.debug("HostTransition ReadFlapping Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void Save(HostTransition[] transitions) throws DalException {
+        try {
+            for (val batch : Split(transitions, DYNAMO_MAX_BATCH_SIZE)){
+                mapper.batchWrite(Arrays.asList(batch), new ArrayList<HostTransition>());
+            }
+        } catch (AmazonClientException e) {
+            log.debug("HostTransition Save Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.tddapps.model.DalException;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.NotificationLedger;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.tddapps.utils.ArrayBatchExtensions.Split;
+import static com.tddapps.utils.DateExtensions.EpochSecondsNow;
+
+@Log4j2
+public class NotificationLedgerDynamo implements NotificationLedger {
+    public static final int DEFAULT_TTL_SECONDS = 86400;
+    private static final int DYNAMO_MAX_BATCH_LOAD_SIZE = 100;
+    private static final int DYNAMO_MAX_BATCH_SIZE = 25;
+    private final DynamoDBMapper mapper;
+    private final SettingsReader settingsReader;
+
+    public NotificationLedgerDynamo(DynamoDBMapper mapper, SettingsReader settingsReader) {
+        this.mapper = mapper;
+        this.settingsReader = settingsReader;
+    }
+
+    @Override
+    public Set<String> ReadSent(String[] notificationIds) throws DalException {
+        val result = new HashSet<String>();
+
+        try {
+            val keys = Arrays.stream(notificationIds)
+                    .map(id -> new NotificationLedgerEntry(id, 0))
+                    .toArray(NotificationLedgerEntry[]::new);
+
+            for (val batch : Split(keys, DYNAMO_MAX_BATCH_LOAD_SIZE)){
+                for (val items : mapper.batchLoad(Arrays.asList(batch)).values()){
+                    for (val item : items){
+                        result.add(((NotificationLedgerEntry)item).getNotificationId());
+                    }
+                }
+            }
+        } catch (AmazonClientException e) {
+            log.debug("NotificationLedger Read Error", e);
+            throw new DalException(e.getMessage());
+        }
+
+        return result;
+    }
+
+    @Override
+    public void Save(String[] notificationIds) throws DalException {
+        val ttl = EpochSecondsNow() + settingsReader.ReadInt(Settings.NOTIFICATION_LEDGER_TTL_SECONDS, DEFAULT_TTL_SECONDS);
+
+        try {
+            val entries = Arrays.stream(notificationIds)
+                    .map(id -> new NotificationLedgerEntry(id, ttl))
+                    .toArray(NotificationLedgerEntry[]::new);
+
+            for (val batch : Split(entries, DYNAMO_MAX_BATCH_SIZE)){
+                mapper.batchWrite(Arrays.asList(batch), new ArrayList<NotificationLedgerEntry>());
+            }
+        } catch (AmazonClientException e) {
+            log.debug("NotificationLedger Save Error", e);
+            throw new DalException(e.getMessage());
+        }
+    }
+}
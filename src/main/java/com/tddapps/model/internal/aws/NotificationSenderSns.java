@@ -1,9 +1,13 @@
 package com.tddapps.model.internal.aws;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.services.sns.AmazonSNSClientBuilder;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
 import com.amazonaws.services.sns.model.Topic;
 import com.tddapps.model.*;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
 import com.tddapps.model.notifications.Notification;
@@ -11,20 +15,31 @@ import com.tddapps.model.notifications.NotificationSender;
 import com.tddapps.model.notifications.NotificationSenderStatus;
 import lombok.extern.log4j.Log4j2;
 import lombok.val;
+import lombok.var;
+
+import java.util.ArrayList;
+
+import static com.tddapps.utils.StringExtensions.Utf8Length;
 
 @Log4j2
 public class NotificationSenderSns implements NotificationSender, NotificationSenderStatus {
+    public static final int MAX_BATCH_SIZE = 10;
+    public static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private final AmazonSNS sns;
     private final SettingsReader settingsReader;
+    private final MetricsRecorder metrics;
 
-    public NotificationSenderSns(SettingsReader settingsReader){
+    public NotificationSenderSns(AmazonSNS sns, SettingsReader settingsReader, MetricsRecorder metrics){
+        this.sns = sns;
         this.settingsReader = settingsReader;
+        this.metrics = metrics;
     }
 
     @Override
     public void Verify() throws DalException {
         try {
-            val anyTopicArn = AmazonSNSClientBuilder
-                    .defaultClient()
+            val anyTopicArn = sns
                     .listTopics()
                     .getTopics()
                     .stream()
@@ -44,19 +59,88 @@ public class NotificationSenderSns implements NotificationSender, NotificationSe
 
     @Override
     public void Send(Notification notification) throws DalException {
+        val startNanos = System.nanoTime();
         try{
-            AmazonSNSClientBuilder
-                    .defaultClient()
-                    .publish(
-                            getTopicName(),
-                            notification.getMessage(),
-                            notification.getSubject()
-                    );
+            sns.publish(
+                    getTopicName(),
+                    notification.getMessage(),
+                    notification.getSubject()
+            );
         }
         catch (AmazonClientException e){
             log.debug("Notification Send Error", e);
             throw new DalException(e.getMessage());
         }
+        finally {
+            metrics.Record("SnsPublishLatency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean[] SendBatch(Notification[] notifications, long deadlineNanos) {
+        val result = new boolean[notifications.length];
+        val topicArn = getTopicName();
+
+        var start = 0;
+        while (start < notifications.length){
+            if (System.nanoTime() >= deadlineNanos){
+                log.warn(String.format("Notification SendBatch Deadline Reached; SkippedCount: %d", notifications.length - start));
+                break;
+            }
+
+            var end = start;
+            var batchBytes = 0;
+
+            while (end < notifications.length && end - start < MAX_BATCH_SIZE){
+                val entryBytes = Utf8Length(notifications[end].getSubject()) + Utf8Length(notifications[end].getMessage());
+                if (end > start && batchBytes + entryBytes > MAX_BATCH_BYTES){
+                    break;
+                }
+
+                batchBytes += entryBytes;
+                end++;
+            }
+
+            publishBatch(topicArn, notifications, start, end, result);
+            start = end;
+        }
+
+        return result;
+    }
+
+    private void publishBatch(String topicArn, Notification[] notifications, int start, int end, boolean[] result) {
+        val entries = new ArrayList<PublishBatchRequestEntry>();
+        for (int i = start; i < end; i++) {
+            entries.add(new PublishBatchRequestEntry()
+                    .withId(String.valueOf(i))
+                    .withSubject(notifications[i].getSubject())
+                    .withMessage(notifications[i].getMessage()));
+        }
+
+        val startNanos = System.nanoTime();
+        try {
+            val response = sns.publishBatch(new PublishBatchRequest()
+                    .withTopicArn(topicArn)
+                    .withPublishBatchRequestEntries(entries));
+
+            for (val entry : response.getSuccessful()){
+                result[Integer.parseInt(entry.getId())] = true;
+            }
+
+            for (val entry : response.getFailed()){
+                log.warn(String.format("Notification SendBatch Entry Failed; Id: %s; Code: %s; Message: %s",
+                        entry.getId(), entry.getCode(), entry.getMessage()));
+            }
+            metrics.Record("SnsPublishFailedEntries", response.getFailed().size(), MetricUnit.COUNT);
+        }
+        catch (AmazonClientException e){
+            log.warn("Notification SendBatch Error", e);
+            metrics.Record("SnsPublishFailedEntries", entries.size(), MetricUnit.COUNT);
+        }
+        finally {
+            metrics.Record("SnsPublishLatency", (System.nanoTime() - startNanos) / 1000000.0, MetricUnit.MILLISECONDS);
+            metrics.Record("SnsPublishBatchSize", entries.size(), MetricUnit.COUNT);
+        }
     }
 
     private String getTopicName() {
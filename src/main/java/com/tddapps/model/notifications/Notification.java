@@ -1,14 +1,24 @@
 package com.tddapps.model.notifications;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class Notification {
     @NonNull
     private final String subject;
     @NonNull
     private final String message;
+    @EqualsAndHashCode.Exclude
+    private List<String> sourceSequenceNumbers = new ArrayList<>();
+    @EqualsAndHashCode.Exclude
+    private List<String> sourceHostIds = new ArrayList<>();
+    @EqualsAndHashCode.Exclude
+    private List<String> sourceEventIds = new ArrayList<>();
 
     @Override
     public String toString() {
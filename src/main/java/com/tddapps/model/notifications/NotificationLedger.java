@@ -0,0 +1,10 @@
+package com.tddapps.model.notifications;
+
+import com.tddapps.model.DalException;
+
+import java.util.Set;
+
+public interface NotificationLedger {
+    Set<String> ReadSent(String[] notificationIds) throws DalException;
+    void Save(String[] notificationIds) throws DalException;
+}
@@ -0,0 +1,52 @@
+package com.tddapps.model.notifications;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@DynamoDBTable(tableName = "notification_ledger")
+public class NotificationLedgerEntry {
+    @DynamoDBHashKey(attributeName = "notification_id")
+    private String notificationId;
+
+    @DynamoDBAttribute(attributeName = "ttl")
+    private long ttl;
+
+    /**
+     * The ledger tracks the source events instead of the notifications built from them.
+     * A retry groups a different set of records, but every event keeps its own id.
+     */
+    public static String BuildId(HeartBeatChangeEvent event){
+        val content = String.join("\n",
+                EmptyWhenNull(event.getSequenceNumber()),
+                event.getType(),
+                EmptyWhenNull(event.getHeartBeat().getHostId()));
+
+        try {
+            val digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8));
+
+            val result = new StringBuilder();
+            for (val b : digest){
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
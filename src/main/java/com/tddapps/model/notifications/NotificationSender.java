@@ -4,4 +4,12 @@ import com.tddapps.model.DalException;
 
 public interface NotificationSender {
     void Send(Notification notification) throws DalException;
+
+    /**
+     * Sends every notification and reports the outcome of each one.
+     * The result has the same length as the input, true means sent.
+     * A failed entry never prevents the remaining ones from being sent.
+     * No new request starts once System.nanoTime() reaches deadlineNanos.
+     */
+    boolean[] SendBatch(Notification[] notifications, long deadlineNanos);
 }
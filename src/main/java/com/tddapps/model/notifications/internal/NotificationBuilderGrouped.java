@@ -5,10 +5,13 @@ import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
 import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
 import com.tddapps.model.notifications.HeartBeatNotificationBuilder;
 import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
 import com.tddapps.model.notifications.NotificationMetadata;
 import lombok.val;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.groupingBy;
@@ -39,6 +42,34 @@ public class NotificationBuilderGrouped implements HeartBeatChangeEventNotificat
                 .toArray(HeartBeat[]::new);
 
         val result = notificationBuilder.build(new NotificationMetadata(header), heartBeats);
+        for (val notification : result){
+            val sourceEvents = readSourceEvents(notification, events);
+
+            notification.setSourceSequenceNumbers(sourceEvents
+                    .stream()
+                    .map(HeartBeatChangeEvent::getSequenceNumber)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList()));
+            notification.setSourceEventIds(sourceEvents
+                    .stream()
+                    .map(NotificationLedgerEntry::BuildId)
+                    .distinct()
+                    .collect(Collectors.toList()));
+        }
+
         return Arrays.stream(result).collect(Collectors.toList());
     }
+
+    private static List<HeartBeatChangeEvent> readSourceEvents(Notification notification, List<HeartBeatChangeEvent> events){
+        if (notification.getSourceHostIds().isEmpty()){
+            return events;
+        }
+
+        val hostIds = new HashSet<String>(notification.getSourceHostIds());
+        return events
+                .stream()
+                .filter(e -> hostIds.contains(e.getHeartBeat().getHostId()))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,216 @@
+package com.tddapps.model.notifications.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.infrastructure.CheckpointListener;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.utils.Sleeper;
+import lombok.extern.log4j.Log4j2;
+import lombok.val;
+import lombok.var;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Log4j2
+public class NotificationSenderRetrying implements NotificationSender, CheckpointListener {
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+    public static final int DEFAULT_BASE_DELAY_MS = 100;
+    public static final int DEFAULT_MAX_DELAY_MS = 2000;
+    public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 5;
+    public static final int DEFAULT_CIRCUIT_OPEN_MS = 30000;
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final NotificationSender sender;
+    private final SettingsReader settingsReader;
+    private final Sleeper sleeper;
+    private final MetricsRecorder metrics;
+
+    private CircuitState circuitState = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long circuitOpenedNanos = 0;
+
+    public NotificationSenderRetrying(NotificationSender sender, SettingsReader settingsReader, Sleeper sleeper, MetricsRecorder metrics){
+        this.sender = sender;
+        this.settingsReader = settingsReader;
+        this.sleeper = sleeper;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void Send(Notification notification) throws DalException {
+        val maxAttempts = readMaxAttempts();
+
+        for (int attempt = 1; ; attempt++) {
+            if (!allowRequest()){
+                metrics.Record("NotificationCircuitRejections", 1, MetricUnit.COUNT);
+                throw new DalException("Notification circuit open");
+            }
+
+            try {
+                sender.Send(notification);
+                recordSuccess();
+                return;
+            } catch (DalException e) {
+                recordFailure();
+
+                if (attempt >= maxAttempts || !backoff(attempt, 1, Long.MAX_VALUE)){
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                recordFailure();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean[] SendBatch(Notification[] notifications, long deadlineNanos) {
+        val result = new boolean[notifications.length];
+        val maxAttempts = readMaxAttempts();
+        var pending = IntStream.range(0, notifications.length).toArray();
+
+        for (int attempt = 1; pending.length > 0; attempt++) {
+            if (!allowRequest()){
+                log.warn(String.format("Notification Circuit Open; RejectedCount: %d", pending.length));
+                metrics.Record("NotificationCircuitRejections", pending.length, MetricUnit.COUNT);
+                break;
+            }
+
+            val batch = pending;
+            val sent = sendBatch(IntStream.of(batch).mapToObj(i -> notifications[i]).toArray(Notification[]::new), deadlineNanos);
+
+            val failed = IntStream.range(0, batch.length)
+                    .filter(i -> !sent[i])
+                    .map(i -> batch[i])
+                    .toArray();
+            for (int i = 0; i < batch.length; i++) {
+                result[batch[i]] = sent[i];
+            }
+
+            if (failed.length < batch.length){
+                recordSuccess();
+            } else {
+                recordFailure();
+            }
+
+            pending = failed;
+            if (pending.length == 0 || attempt >= maxAttempts || !backoff(attempt, pending.length, deadlineNanos)){
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    private boolean[] sendBatch(Notification[] notifications, long deadlineNanos) {
+        try {
+            return sender.SendBatch(notifications, deadlineNanos);
+        } catch (RuntimeException e) {
+            recordFailure();
+            throw e;
+        }
+    }
+
+    public synchronized CircuitState getCircuitState() {
+        return circuitState;
+    }
+
+    @Override
+    public void BeforeCheckpoint() {
+    }
+
+    @Override
+    public synchronized void AfterRestore() {
+        consecutiveFailures = 0;
+        circuitOpenedNanos = 0;
+        circuitState = CircuitState.CLOSED;
+    }
+
+    private boolean backoff(int attempt, int pendingCount, long deadlineNanos) {
+        val delayMs = readBackoffDelayMs(attempt);
+
+        if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) >= deadlineNanos){
+            log.warn(String.format("Notification Retry Budget Exhausted; Attempt: %d; PendingCount: %d", attempt, pendingCount));
+            metrics.Record("NotificationRetryBudgetExhausted", 1, MetricUnit.COUNT);
+            return false;
+        }
+
+        log.info(String.format("Notification Retry; Attempt: %d; PendingCount: %d; DelayMs: %d", attempt, pendingCount, delayMs));
+        metrics.Record("NotificationRetries", pendingCount, MetricUnit.COUNT);
+        metrics.Record("NotificationRetryDelay", delayMs, MetricUnit.MILLISECONDS);
+
+        try {
+            sleeper.Sleep(delayMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long readBackoffDelayMs(int attempt) {
+        val baseDelayMs = Math.max(0, settingsReader.ReadInt(Settings.NOTIFICATION_RETRY_BASE_DELAY_MS, DEFAULT_BASE_DELAY_MS));
+        val maxDelayMs = Math.max(0, settingsReader.ReadInt(Settings.NOTIFICATION_RETRY_MAX_DELAY_MS, DEFAULT_MAX_DELAY_MS));
+        val capMs = Math.min(maxDelayMs, baseDelayMs * (1L << Math.min(attempt - 1, 30)));
+
+        return ThreadLocalRandom.current().nextLong(capMs + 1);
+    }
+
+    private synchronized boolean allowRequest() {
+        if (circuitState == CircuitState.CLOSED){
+            return true;
+        }
+
+        if (circuitState == CircuitState.HALF_OPEN){
+            return false;
+        }
+
+        val openNanos = TimeUnit.MILLISECONDS.toNanos(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, DEFAULT_CIRCUIT_OPEN_MS));
+        if (System.nanoTime() - circuitOpenedNanos < openNanos){
+            return false;
+        }
+
+        changeCircuitState(CircuitState.HALF_OPEN);
+        return true;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+
+        if (circuitState != CircuitState.CLOSED){
+            changeCircuitState(CircuitState.CLOSED);
+        }
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+
+        val threshold = Math.max(1, settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD, DEFAULT_CIRCUIT_FAILURE_THRESHOLD));
+        if (circuitState != CircuitState.OPEN && (circuitState == CircuitState.HALF_OPEN || consecutiveFailures >= threshold)){
+            circuitOpenedNanos = System.nanoTime();
+            changeCircuitState(CircuitState.OPEN);
+        }
+    }
+
+    private void changeCircuitState(CircuitState state) {
+        log.warn(String.format("Notification Circuit; From: %s; To: %s; ConsecutiveFailures: %d",
+                circuitState, state, consecutiveFailures));
+        circuitState = state;
+        metrics.Record("NotificationCircuitOpen", state == CircuitState.CLOSED ? 0 : 1, MetricUnit.COUNT);
+    }
+
+    private int readMaxAttempts() {
+        return Math.max(1, settingsReader.ReadInt(Settings.NOTIFICATION_SEND_MAX_ATTEMPTS, DEFAULT_MAX_ATTEMPTS));
+    }
+}
@@ -6,11 +6,18 @@ import com.tddapps.model.notifications.Notification;
 import com.tddapps.model.notifications.NotificationMetadata;
 import com.tddapps.utils.NowReader;
 import lombok.val;
-import java.util.Arrays;
+import lombok.var;
+
+import java.util.ArrayList;
 
 import static com.tddapps.utils.DateExtensions.ToUtcString;
+import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
+import static com.tddapps.utils.StringExtensions.Utf8Length;
 
 public class SingleNotificationBuilder implements HeartBeatNotificationBuilder {
+    public static final int MAX_SUBJECT_LENGTH = 100;
+    public static final int MAX_MESSAGE_BYTES = 256 * 1024;
+    private static final int MAX_SUBJECT_BYTES = MAX_SUBJECT_LENGTH * 4;
     private final NowReader nowReader;
 
     public SingleNotificationBuilder(NowReader nowReader) {
@@ -23,29 +30,84 @@ public class SingleNotificationBuilder implements HeartBeatNotificationBuilder {
             return NoNotifications();
         }
 
-        val subject = String.format("%s [%s]", metadata.getSubject(), getHostNames(heartBeats));
-        val message = String.format("%s\n\n%s\n--\nNotification Built: %s\n--",
-                subject,
-                getHeartBeatDetails(heartBeats),
-                ToUtcString(nowReader.ReadUtc())
-        );
-        val result = new Notification(subject, message);
+        val footer = String.format("\n--\nNotification Built: %s\n--", ToUtcString(nowReader.ReadUtc()));
+        val maxDetailsBytes = MAX_MESSAGE_BYTES - MAX_SUBJECT_BYTES - Utf8Length("\n\n") - Utf8Length(footer);
+
+        val result = new ArrayList<Notification>();
+        val details = new StringBuilder();
+        var detailsBytes = 0;
+        var chunkStart = 0;
 
-        return new Notification[]{ result };
+        for (int i = 0; i < heartBeats.length; i++) {
+            val line = heartBeats[i].toString();
+            val lineBytes = Utf8Length(line) + 1;
+
+            if (i > chunkStart && detailsBytes + lineBytes > maxDetailsBytes){
+                result.add(buildNotification(metadata, heartBeats, chunkStart, i, details, footer));
+                details.setLength(0);
+                detailsBytes = 0;
+                chunkStart = i;
+            }
+
+            if (i > chunkStart){
+                details.append('\n');
+            }
+            details.append(line);
+            detailsBytes += lineBytes;
+        }
+
+        result.add(buildNotification(metadata, heartBeats, chunkStart, heartBeats.length, details, footer));
+
+        return result.toArray(new Notification[0]);
     }
 
-    private static String getHeartBeatDetails(HeartBeat[] heartBeats) {
-        return Arrays.stream(heartBeats)
-                .map(HeartBeat::toString)
-                .reduce((a, b) -> String.format("%s\n%s", a, b))
-                .orElse("");
+    private static Notification buildNotification(NotificationMetadata metadata, HeartBeat[] heartBeats, int start, int end, StringBuilder details, String footer) {
+        val subject = buildSubject(metadata.getSubject(), heartBeats, start, end);
+        val message = new StringBuilder(subject.length() + details.length() + footer.length() + 2)
+                .append(subject)
+                .append("\n\n")
+                .append(details)
+                .append(footer)
+                .toString();
+
+        val result = new Notification(subject, message);
+        for (int i = start; i < end; i++) {
+            result.getSourceHostIds().add(heartBeats[i].getHostId());
+        }
+        return result;
     }
 
-    private static String getHostNames(HeartBeat[] heartBeats) {
-        return Arrays.stream(heartBeats)
-                .map(HeartBeat::getHostId)
-                .reduce((a, b) -> String.format("%s, %s", a, b))
-                .orElse("");
+    private static String buildSubject(String header, HeartBeat[] heartBeats, int start, int end) {
+        val result = new StringBuilder(MAX_SUBJECT_LENGTH)
+                .append(header)
+                .append(" [");
+
+        for (int i = start; i < end; i++) {
+            val hostId = EmptyWhenNull(heartBeats[i].getHostId());
+            val separator = i == start ? "" : ", ";
+            val remaining = end - i - 1;
+            val suffixLength = remaining == 0 ? 1 : String.format(" and %d more]", remaining).length();
+
+            if (result.length() + separator.length() + hostId.length() + suffixLength > MAX_SUBJECT_LENGTH){
+                if (i == start){
+                    return truncate(String.format("%s [%d hosts]", header, end - start));
+                }
+
+                return result.append(String.format(" and %d more]", end - i)).toString();
+            }
+
+            result.append(separator).append(hostId);
+        }
+
+        return truncate(result.append(']').toString());
+    }
+
+    private static String truncate(String subject) {
+        if (subject.length() <= MAX_SUBJECT_LENGTH){
+            return subject;
+        }
+
+        return subject.substring(0, MAX_SUBJECT_LENGTH);
     }
 
     private static boolean isEmpty(HeartBeat[] heartBeats) {
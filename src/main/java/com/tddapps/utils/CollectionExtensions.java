@@ -1,21 +1,42 @@
 package com.tddapps.utils;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class CollectionExtensions {
     public static <T> List<T> Intersection(Collection<T> l1, Collection<T> l2){
+        return Intersection(l1, l2, Function.identity());
+    }
+
+    public static <T, K> List<T> Intersection(Collection<T> l1, Collection<T> l2, Function<T, K> keyExtractor){
+        final HashSet<K> keys = Keys(l2, keyExtractor);
+
         return l1
                 .stream()
-                .filter(l2::contains)
+                .filter(e -> keys.contains(keyExtractor.apply(e)))
                 .collect(Collectors.toList());
     }
 
     public static <T> List<T> Difference(Collection<T> all, Collection<T> subset){
+        return Difference(all, subset, Function.identity());
+    }
+
+    public static <T, K> List<T> Difference(Collection<T> all, Collection<T> subset, Function<T, K> keyExtractor){
+        final HashSet<K> keys = Keys(subset, keyExtractor);
+
         return all
                 .stream()
-                .filter(e -> !subset.contains(e))
+                .filter(e -> !keys.contains(keyExtractor.apply(e)))
                 .collect(Collectors.toList());
     }
+
+    private static <T, K> HashSet<K> Keys(Collection<T> elements, Function<T, K> keyExtractor){
+        return elements
+                .stream()
+                .map(keyExtractor)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
 }
@@ -0,0 +1,37 @@
+package com.tddapps.utils;
+
+import lombok.val;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public abstract class ExecutorExtensions {
+    public static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Fixed size pool meant to live as long as the component that owns it,
+     * so warm invocations reuse its threads. The threads are daemons and
+     * stop when idle, so an unused pool never keeps the JVM alive.
+     */
+    public static ExecutorService NewBoundedThreadPool(String name, int threadCount){
+        val threadIndex = new AtomicInteger();
+        val result = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                IDLE_THREAD_TIMEOUT_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    val thread = new Thread(r, String.format("%s-%d", name, threadIndex.incrementAndGet()));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        result.allowCoreThreadTimeOut(true);
+
+        return result;
+    }
+}
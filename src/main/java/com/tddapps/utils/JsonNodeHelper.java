@@ -2,14 +2,16 @@ package com.tddapps.utils;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.val;
 
 import java.io.IOException;
 
 public class JsonNodeHelper {
+    private static final ObjectReader treeReader = new ObjectMapper().reader();
+
     public static JsonNode parse(String str) throws IOException {
-        final ObjectMapper jsonDeserializer = new ObjectMapper();
-        return jsonDeserializer.readTree(str);
+        return treeReader.readTree(str);
     }
 
     public static String readString(JsonNode body, String parameterName){
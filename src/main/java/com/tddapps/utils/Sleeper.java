@@ -0,0 +1,5 @@
+package com.tddapps.utils;
+
+public interface Sleeper {
+    void Sleep(long millis) throws InterruptedException;
+}
@@ -4,5 +4,25 @@ public abstract class StringExtensions {
     public static String EmptyWhenNull(String value){
         return value != null ? value : "";
     }
-}
 
+    public static int Utf8Length(String value){
+        int result = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80){
+                result += 1;
+            } else if (c < 0x800){
+                result += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))){
+                result += 4;
+                i++;
+            } else {
+                result += 3;
+            }
+        }
+
+        return result;
+    }
+}
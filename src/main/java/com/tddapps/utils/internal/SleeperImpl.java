@@ -0,0 +1,10 @@
+package com.tddapps.utils.internal;
+
+import com.tddapps.utils.Sleeper;
+
+public class SleeperImpl implements Sleeper {
+    @Override
+    public void Sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+}
@@ -0,0 +1,62 @@
+package com.tddapps.benchmarks;
+
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.tddapps.utils.CollectionExtensions.Difference;
+import static com.tddapps.utils.CollectionExtensions.Intersection;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionExtensionsBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private List<HeartBeat> deleted;
+    private List<HeartBeat> inserted;
+
+    @Setup
+    public void setup(){
+        deleted = new ArrayList<>();
+        inserted = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            deleted.add(HeartBeatFactory.Create(String.format("host%d", i)));
+            inserted.add(HeartBeatFactory.Create(String.format("host%d", i + size / 2)));
+        }
+    }
+
+    @Benchmark
+    public int listBased(){
+        val intersection = deleted
+                .stream()
+                .filter(inserted::contains)
+                .collect(Collectors.toList());
+
+        val remaining = deleted
+                .stream()
+                .filter(e -> !intersection.contains(e))
+                .collect(Collectors.toList());
+
+        return intersection.size() + remaining.size();
+    }
+
+    @Benchmark
+    public int hashBased(){
+        val intersection = Intersection(deleted, inserted, HeartBeat::getHostId);
+        val remaining = Difference(deleted, intersection, HeartBeat::getHostId);
+
+        return intersection.size() + remaining.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.tddapps.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatParseResult;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.infrastructure.internal.JsonObjectMappersShared;
+import com.tddapps.utils.JsonNodeHelper;
+import org.apache.commons.lang3.StringUtils;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.tddapps.utils.DateExtensions.EpochSecondsPlusMs;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeartBeatSerializerBenchmark {
+    private static final String REQUEST_BODY = "{\"hostId\": \"superHost1\", \"intervalMs\": 30000}";
+
+    private HeartBeatSerializer serializer;
+    private HeartBeat heartBeat;
+    private String heartBeatJson;
+    private String batchBody;
+
+    @Setup
+    public void setup(){
+        serializer = new HeartBeatSerializer(new JsonObjectMappersShared());
+        heartBeat = new HeartBeat("superHost1", 1538395893L, "us-west-2", false);
+        heartBeatJson = serializer.toJson(heartBeat);
+        batchBody = "[" + StringUtils.repeat(REQUEST_BODY, ",", HeartBeatSerializer.MAX_BATCH_SIZE) + "]";
+    }
+
+    @Benchmark
+    public String toJsonNewMapper(){
+        return new ObjectMapper().valueToTree(heartBeat).toString();
+    }
+
+    @Benchmark
+    public String toJsonShared(){
+        return serializer.toJson(heartBeat);
+    }
+
+    @Benchmark
+    public HeartBeat fromJsonNewMapper() throws IOException {
+        return new ObjectMapper().readValue(heartBeatJson, HeartBeat.class);
+    }
+
+    @Benchmark
+    public HeartBeat fromJsonShared() throws ParseException {
+        return serializer.fromJson(heartBeatJson);
+    }
+
+    @Benchmark
+    public JsonNode parseRequestNewMapper() throws IOException {
+        return new ObjectMapper().readTree(REQUEST_BODY);
+    }
+
+    @Benchmark
+    public HeartBeat parseRequestShared() throws ParseException {
+        return serializer.parseUnsanitizedJson(REQUEST_BODY);
+    }
+
+    @Benchmark
+    public List<HeartBeat> parseBatchTree() throws IOException {
+        val result = new ArrayList<HeartBeat>();
+
+        for (val json : JsonNodeHelper.parse(batchBody)){
+            val hostId = JsonNodeHelper.readString(json, "hostId");
+            val intervalMs = JsonNodeHelper.readInt(json, "intervalMs", HeartBeatSerializer.DEFAULT_INTERVAL_MS);
+
+            if (StringUtils.isAlphanumeric(hostId)){
+                result.add(new HeartBeat(hostId, EpochSecondsPlusMs(intervalMs), "", false));
+            }
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public HeartBeatParseResult[] parseBatchStreaming() throws ParseException {
+        return serializer.parseUnsanitizedJsonBatch(batchBody);
+    }
+}
@@ -0,0 +1,50 @@
+package com.tddapps.benchmarks;
+
+import com.tddapps.ioc.ComponentResolver;
+import com.tddapps.ioc.internal.ComponentResolverFactories;
+import com.tddapps.ioc.internal.ComponentResolverPico;
+import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.infrastructure.KeysCache;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of each container: every fork builds one container and resolves the HeartBeatPost dependencies.
+ * Needs AWS_REGION in the environment to build the AWS clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class IocContainerBenchmark {
+    @Param({"pico", "factories"})
+    public String container;
+
+    @Benchmark
+    public Object startup(){
+        val resolver = createResolver();
+
+        return new Object[]{
+                resolver.Resolve(HeartBeatRepository.class),
+                resolver.Resolve(HeartBeatParser.class),
+                resolver.Resolve(RequestHandlerHelper.class),
+                resolver.Resolve(KeysCache.class),
+                resolver.Resolve(MetricsRecorder.class)
+        };
+    }
+
+    private ComponentResolver createResolver() {
+        if ("factories".equals(container)){
+            return new ComponentResolverFactories();
+        }
+
+        return new ComponentResolverPico();
+    }
+}
@@ -0,0 +1,174 @@
+package com.tddapps.handlers;
+
+import com.tddapps.handlers.infrastructure.ApiGatewayResponse;
+import com.tddapps.model.*;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.internal.HeartBeatCoalescerLatestTtl;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
+import static com.tddapps.utils.DateExtensions.EpochSecondsPlusMs;
+import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.*;
+
+class HeartBeatBatchPostTest {
+    private final HeartBeatRepository heartBeatRepository = mock(HeartBeatRepository.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HeartBeatBatchPost handler = new HeartBeatBatchPost(
+            heartBeatRepository,
+            settingsReader,
+            new HeartBeatSerializer(),
+            new HeartBeatCoalescerLatestTtl(),
+            metrics
+    );
+
+    @BeforeEach
+    void Setup() throws DalException {
+        when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenReturn(new HeartBeat[0]);
+    }
+
+    @Test
+    void CanBeConstructedUsingADefaultConstructor(){
+        assertNotNull(new HeartBeatBatchPost());
+    }
+
+    @Test
+    void ReturnsClientErrorWhenInputIsInvalid() throws DalException{
+        val result = handleRequest("[{incorrect json");
+
+        assertEquals(400, result.getStatusCode());
+        assertEquals("{\"message\":\"Invalid json\"}", result.getBody());
+        verify(heartBeatRepository, times(0)).Save(any(HeartBeat[].class));
+    }
+
+    @Test
+    void WritesAllTheHeartBeatsInASingleOperation() throws DalException {
+        val expectedHeartBeats = new HeartBeat[] {
+                new HeartBeat(
+                        "testHostA",
+                        EpochSecondsPlusMs(34000),
+                        ToReverseUtcMinuteString(EpochSecondsPlusMs(34000)),
+                        TEST_REGION_DEFAULT,
+                        false
+                ),
+                new HeartBeat(
+                        "testHostB",
+                        EpochSecondsPlusMs(HeartBeatSerializer.DEFAULT_INTERVAL_MS),
+                        ToReverseUtcMinuteString(EpochSecondsPlusMs(HeartBeatSerializer.DEFAULT_INTERVAL_MS)),
+                        TEST_REGION_DEFAULT,
+                        false
+                )
+        };
+
+        val result = handleRequest("[{\"hostId\": \"testHostA\", \"intervalMs\": 34000}, {\"hostId\": \"testHostB\"}]");
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals(
+                "[{\"index\":0,\"hostId\":\"testHostA\",\"message\":\"OK\"},{\"index\":1,\"hostId\":\"testHostB\",\"message\":\"OK\"}]",
+                result.getBody()
+        );
+        verify(heartBeatRepository).Save(expectedHeartBeats);
+    }
+
+    @Test
+    void ReportsTheResultOfEachHeartBeat() throws DalException {
+        val expectedHeartBeats = new HeartBeat[] {
+                new HeartBeat(
+                        "testHostB",
+                        EpochSecondsPlusMs(34000),
+                        ToReverseUtcMinuteString(EpochSecondsPlusMs(34000)),
+                        TEST_REGION_DEFAULT,
+                        false
+                )
+        };
+
+        val result = handleRequest("{\"hostId\": \"test-host-a\"}\n{\"hostId\": \"testHostB\", \"intervalMs\": 34000}\n{invalid");
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals(
+                "[{\"index\":0,\"hostId\":\"\",\"message\":\"Invalid hostId\"}," +
+                        "{\"index\":1,\"hostId\":\"testHostB\",\"message\":\"OK\"}," +
+                        "{\"index\":2,\"hostId\":\"\",\"message\":\"Invalid json\"}]",
+                result.getBody()
+        );
+        verify(heartBeatRepository).Save(expectedHeartBeats);
+    }
+
+    @Test
+    void WritesOnlyTheLatestHeartBeatOfEachHost() throws DalException {
+        val expectedHeartBeats = new HeartBeat[] {
+                new HeartBeat(
+                        "testHostA",
+                        EpochSecondsPlusMs(60000),
+                        ToReverseUtcMinuteString(EpochSecondsPlusMs(60000)),
+                        TEST_REGION_DEFAULT,
+                        false
+                )
+        };
+
+        val result = handleRequest("[{\"hostId\": \"testHostA\", \"intervalMs\": 60000}, {\"hostId\": \"testHostA\", \"intervalMs\": 5000}]");
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals(
+                "[{\"index\":0,\"hostId\":\"testHostA\",\"message\":\"OK\"},{\"index\":1,\"hostId\":\"testHostA\",\"message\":\"OK\"}]",
+                result.getBody()
+        );
+        verify(heartBeatRepository).Save(expectedHeartBeats);
+    }
+
+    @Test
+    void ReportsTheHeartBeatsThatCouldNotBeSaved() throws DalException {
+        when(heartBeatRepository.Save(any(HeartBeat[].class)))
+                .thenAnswer(i -> new HeartBeat[]{ ((HeartBeat[]) i.getArgument(0))[1] });
+
+        val result = handleRequest("[{\"hostId\": \"testHostA\"}, {\"hostId\": \"testHostB\"}, {\"hostId\": \"testHostB\"}]");
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals(
+                "[{\"index\":0,\"hostId\":\"testHostA\",\"message\":\"OK\"}," +
+                        "{\"index\":1,\"hostId\":\"testHostB\",\"message\":\"HeartBeat could not be saved\"}," +
+                        "{\"index\":2,\"hostId\":\"testHostB\",\"message\":\"HeartBeat could not be saved\"}]",
+                result.getBody()
+        );
+    }
+
+    @Test
+    void DoesNotWriteAnythingWhenAllTheHeartBeatsAreInvalid() throws DalException {
+        val result = handleRequest("[{\"hostId\": \"\"}]");
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals("[{\"index\":0,\"hostId\":\"\",\"message\":\"Invalid hostId\"}]", result.getBody());
+        verify(heartBeatRepository, times(0)).Save(any(HeartBeat[].class));
+    }
+
+    @Test
+    void ReturnsServerErrorWhenTheHeartBeatsCouldNotBeSaved() throws DalException {
+        doThrow(new DalException("Save failed"))
+                .when(heartBeatRepository)
+                .Save(any(HeartBeat[].class));
+
+        val result = handleRequest("[{\"hostId\": \"testHostA\", \"intervalMs\": 34000}]");
+
+        assertEquals(500, result.getStatusCode());
+        assertEquals("{\"message\":\"Save failed\"}", result.getBody());
+    }
+
+    private ApiGatewayResponse handleRequest(String body) {
+        return handler.handleRequest(new HashMap<String, Object>() {{
+            put("body", body);
+        }}, null);
+    }
+}
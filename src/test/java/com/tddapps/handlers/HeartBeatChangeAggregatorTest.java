@@ -0,0 +1,166 @@
+package com.tddapps.handlers;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.model.*;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.internal.aws.HeartBeatChangeEventQueueSqs;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
+import com.tddapps.model.notifications.test.HeartBeatNotificationBuilderOneToOneStub;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartBeatChangeAggregatorTest {
+    private final NotificationSender notificationSender = mock(NotificationSender.class);
+    private final HeartBeatSerializer serializer = new HeartBeatSerializer();
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HeartBeatChangeAggregator handler = new HeartBeatChangeAggregator(
+            new NotificationBuilderGrouped(new HeartBeatNotificationBuilderOneToOneStub()),
+            notificationSender,
+            serializer,
+            settingsReader,
+            metrics
+    );
+    private final List<Notification> sentNotifications = new ArrayList<>();
+    private final Set<String> failingSubjects = new HashSet<>();
+
+    @BeforeEach
+    void setup(){
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_TIME_MARGIN_MS, HeartBeatChange.DEFAULT_SEND_TIME_MARGIN_MS))
+                .thenReturn(HeartBeatChange.DEFAULT_SEND_TIME_MARGIN_MS);
+        when(notificationSender.SendBatch(any(), anyLong())).thenAnswer(invocation -> {
+            val notifications = (Notification[]) invocation.getArgument(0);
+            val result = new boolean[notifications.length];
+            for (int i = 0; i < notifications.length; i++) {
+                result[i] = !failingSubjects.contains(notifications[i].getSubject());
+                if (result[i]){
+                    sentNotifications.add(notifications[i]);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Test
+    void CanBeConstructedUsingTheDefaultConstructor(){
+        assertNotNull(new HeartBeatChangeAggregator());
+    }
+
+    @Test
+    void SendsTheNotificationsOfAllTheQueuedEvents() throws DalException {
+        val response = handler.handleRequest(buildEvent(
+                message("m1", "Hosts missing", HeartBeatFactory.Create("host1")),
+                message("m2", "Hosts registered", HeartBeatFactory.Create("host2")),
+                message("m3", "Hosts missing", HeartBeatFactory.Create("host3"))
+        ), null);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(3, sentNotifications.size());
+        assertTrue(sentNotifications.contains(new Notification("SS-host1", "MM-host1-Hosts missing")));
+        assertTrue(sentNotifications.contains(new Notification("SS-host2", "MM-host2-Hosts registered")));
+        assertTrue(sentNotifications.contains(new Notification("SS-host3", "MM-host3-Hosts missing")));
+        verify(notificationSender, times(1)).SendBatch(any(), eq(Long.MAX_VALUE));
+        verify(notificationSender, never()).Send(any());
+    }
+
+    @Test
+    void DiscardsInvalidMessages() {
+        val withoutType = message("m2", "Hosts missing", HeartBeatFactory.Create("host2"));
+        withoutType.setMessageAttributes(null);
+
+        val response = handler.handleRequest(buildEvent(
+                invalidMessage("m1", "Hosts missing"),
+                withoutType,
+                message("m3", "Hosts missing", HeartBeatFactory.Create("host1"))
+        ), null);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        assertEquals(Collections.singletonList(new Notification("SS-host1", "MM-host1-Hosts missing")), sentNotifications);
+    }
+
+    @Test
+    void DoesNotSendAnythingWhenThereAreNoEvents() {
+        val response = handler.handleRequest(buildEvent(invalidMessage("m1", "Hosts missing")), null);
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verifyNoInteractions(notificationSender);
+    }
+
+    @Test
+    void ReturnsOnlyTheMessagesOfTheNotificationsThatFailed() {
+        failingSubjects.add("SS-host2");
+
+        val response = handler.handleRequest(buildEvent(
+                message("m1", "Hosts missing", HeartBeatFactory.Create("host1")),
+                message("m2", "Hosts registered", HeartBeatFactory.Create("host2")),
+                message("m3", "Hosts missing", HeartBeatFactory.Create("host3")),
+                message("m4", "Hosts registered", HeartBeatFactory.Create("host4"))
+        ), null);
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("m2")), response.getBatchItemFailures());
+        assertEquals(3, sentNotifications.size());
+    }
+
+    @Test
+    void SendsTheNotificationsBeforeTheFunctionTimesOut() {
+        val context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(5000);
+        val deadline = ArgumentCaptor.forClass(Long.class);
+
+        val before = System.nanoTime();
+        handler.handleRequest(buildEvent(message("m1", "Hosts missing", HeartBeatFactory.Create("host1"))), context);
+        val after = System.nanoTime();
+
+        verify(notificationSender).SendBatch(any(), deadline.capture());
+        assertTrue(deadline.getValue() >= before + TimeUnit.MILLISECONDS.toNanos(4000));
+        assertTrue(deadline.getValue() <= after + TimeUnit.MILLISECONDS.toNanos(4000));
+    }
+
+    private SQSEvent.SQSMessage message(String messageId, String type, HeartBeat heartBeat){
+        val result = invalidMessage(messageId, type);
+        result.setBody(serializer.toJson(heartBeat));
+        return result;
+    }
+
+    private static SQSEvent.SQSMessage invalidMessage(String messageId, String type){
+        val attribute = new SQSEvent.MessageAttribute();
+        attribute.setDataType("String");
+        attribute.setStringValue(type);
+
+        val result = new SQSEvent.SQSMessage();
+        result.setMessageId(messageId);
+        result.setBody("{invalid json");
+        result.setMessageAttributes(Collections.singletonMap(HeartBeatChangeEventQueueSqs.EVENT_TYPE_ATTRIBUTE, attribute));
+        return result;
+    }
+
+    private static SQSEvent buildEvent(SQSEvent.SQSMessage... messages){
+        val records = new ArrayList<SQSEvent.SQSMessage>();
+        Collections.addAll(records, messages);
+
+        val result = new SQSEvent();
+        result.setRecords(records);
+        return result;
+    }
+}
@@ -1,42 +1,98 @@
 package com.tddapps.handlers;
 
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.handlers.infrastructure.StreamBatchResponse;
 import com.tddapps.model.*;
-import com.tddapps.model.internal.aws.DynamoDBEventParser;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.internal.aws.DynamoDBEventClassifier;
+import com.tddapps.model.internal.aws.DynamoDBEventClassifierSinglePass;
 import com.tddapps.model.heartbeats.HeartBeat;
-import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HeartBeatModification;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.heartbeats.HeartBeatStreamChanges;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
 import com.tddapps.model.notifications.test.HeartBeatChangeEventNotificationBuilderOneToOneStub;
 import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationLedger;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
 import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
+import com.tddapps.model.notifications.internal.SingleNotificationBuilder;
+import com.tddapps.utils.NowReader;
 import com.tddapps.model.heartbeats.test.HeartBeatFactory;
 import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
-import static com.tddapps.utils.DateExtensions.EpochSecondsNow;
-import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class HeartBeatChangeTest {
     private final NotificationSender notificationSender = mock(NotificationSender.class);
-    private final RequestHandlerHelper requestHandlerHelper = mock(RequestHandlerHelper.class);
+    private final NotificationLedger notificationLedger = mock(NotificationLedger.class);
+    private final HeartBeatChangeEventQueue eventQueue = mock(HeartBeatChangeEventQueue.class);
     private final HeartBeatChangeEventNotificationBuilderOneToOneStub notificationBuilder = new HeartBeatChangeEventNotificationBuilderOneToOneStub();
-    private final DynamoDBEventParser eventParser = mock(DynamoDBEventParser.class);
+    private final DynamoDBEventClassifier eventClassifier = mock(DynamoDBEventClassifier.class);
+    private final HostFlapDetector flapDetector = mock(HostFlapDetector.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
     private final HeartBeatChange handler = new HeartBeatChange(
             notificationBuilder,
+            flapDetector,
             notificationSender,
-            requestHandlerHelper,
-            eventParser
+            notificationLedger,
+            eventQueue,
+            eventClassifier,
+            settingsReader,
+            metrics
     );
 
     private final DynamodbEvent seededInput = new DynamodbEvent();
+    private final List<HeartBeat> deletions = new ArrayList<>();
+    private final List<HeartBeat> insertions = new ArrayList<>();
+    private final List<HeartBeatModification> modifications = new ArrayList<>();
+    private final Map<String, String> sequenceNumbers = new HashMap<>();
+    private Context context = null;
 
-    private final long ttlNow = EpochSecondsNow();
-    private final String reversedUtcMinuteNowString = ToReverseUtcMinuteString(ttlNow);
+    @BeforeEach
+    void Setup(){
+        when(notificationSender.SendBatch(any(Notification[].class), anyLong())).then(i -> {
+            Notification[] notifications = i.getArgument(0);
+            val result = new boolean[notifications.length];
+            for (int j = 0; j < notifications.length; j++) {
+                try {
+                    notificationSender.Send(notifications[j]);
+                    result[j] = true;
+                } catch (DalException e) {
+                    result[j] = false;
+                }
+            }
+            return result;
+        });
+        when(eventQueue.Send(any())).thenReturn(new HeartBeatChangeEvent[0]);
+    }
 
     @Test
     void CanBeConstructedUsingTheDefaultConstructor(){
@@ -45,12 +101,10 @@ class HeartBeatChangeTest {
 
     @Test
     void SendsANotificationForEachDeletedRecord() throws DalException {
-        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        deletions.addAll(new ArrayList<HeartBeat>(){{
             add(HeartBeatFactory.Create("host3"));
             add(HeartBeatFactory.Create("host4"));
         }});
-        when(eventParser.readInsertions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<>());
 
         assertTrue(run());
 
@@ -62,9 +116,7 @@ class HeartBeatChangeTest {
 
     @Test
     void SendsANotificationForEachInsertedRecord() throws DalException {
-        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<>());
-        when(eventParser.readInsertions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        insertions.addAll(new ArrayList<HeartBeat>(){{
             add(HeartBeatFactory.Create("host3"));
             add(HeartBeatFactory.Create("host4"));
         }});
@@ -79,12 +131,11 @@ class HeartBeatChangeTest {
 
     @Test
     void SendsANotificationForEachDeletedOrInsertedRecord() throws DalException {
-        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        deletions.addAll(new ArrayList<HeartBeat>(){{
             add(HeartBeatFactory.Create("host3"));
             add(HeartBeatFactory.Create("host4"));
         }});
-        when(eventParser.readInsertions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        insertions.addAll(new ArrayList<HeartBeat>(){{
             add(HeartBeatFactory.Create("host2"));
             add(HeartBeatFactory.Create("host5"));
             add(HeartBeatFactory.Create("host6"));
@@ -103,13 +154,12 @@ class HeartBeatChangeTest {
 
     @Test
     void DoesNotSendNotificationsForHostsWhoseStatusChangedTwice() throws DalException {
-        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
         val hb3 = HeartBeatFactory.Create("host3");
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        deletions.addAll(new ArrayList<HeartBeat>(){{
             add(hb3);
             add(HeartBeatFactory.Create("host4"));
         }});
-        when(eventParser.readInsertions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        insertions.addAll(new ArrayList<HeartBeat>(){{
             add(hb3);
             add(HeartBeatFactory.Create("host2"));
         }});
@@ -123,34 +173,154 @@ class HeartBeatChangeTest {
     }
 
     @Test
-    void SendsNotificationOnlyForRecordsInTheCurrentRegion() throws DalException {
-        when(requestHandlerHelper.filter(any())).then(i -> {
-            HeartBeat[] heartBeats = i.getArgument(0);
-            return Arrays.stream(heartBeats)
-                    .filter(hb -> hb.getRegion().equals(TEST_REGION_DEFAULT))
-                    .toArray(HeartBeat[]::new);
-        });
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
-            add(new HeartBeat("host1", ttlNow, reversedUtcMinuteNowString, TEST_REGION_DEFAULT, false));
-            add(new HeartBeat("host2", ttlNow, reversedUtcMinuteNowString, "us-test-2", false));
-            add(new HeartBeat("host3", ttlNow, reversedUtcMinuteNowString, "us-test-2", false));
-            add(new HeartBeat("host4", ttlNow, reversedUtcMinuteNowString, TEST_REGION_DEFAULT, false));
+    void DoesNotSendNotificationsForHostsThatWereDeletedAndRegisteredAgain() throws DalException {
+        val deletedHb3 = HeartBeatFactory.Create("host3");
+        val insertedHb3 = HeartBeatFactory.Create("host3");
+        insertedHb3.setTtl(deletedHb3.getTtl() + 600);
+        deletions.addAll(new ArrayList<HeartBeat>(){{
+            add(deletedHb3);
+            add(HeartBeatFactory.Create("host4"));
         }});
-        when(eventParser.readInsertions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
-            add(new HeartBeat("host5", ttlNow, reversedUtcMinuteNowString, TEST_REGION_DEFAULT, false));
-            add(new HeartBeat("host6", ttlNow, reversedUtcMinuteNowString, "us-test-2", false));
-            add(new HeartBeat("host7", ttlNow, reversedUtcMinuteNowString, "us-test-2", false));
-            add(new HeartBeat("host8", ttlNow, reversedUtcMinuteNowString, TEST_REGION_DEFAULT, false));
+        insertions.addAll(new ArrayList<HeartBeat>(){{
+            add(insertedHb3);
+            add(HeartBeatFactory.Create("host2"));
         }});
 
         assertTrue(run());
 
-        verify(notificationSender, times(4))
+        verify(notificationSender, times(2))
                 .Send(any(Notification.class));
-        verify(notificationSender).Send(new Notification("S-host1", "M-host1-Hosts missing"));
+        verify(notificationSender).Send(new Notification("S-host2", "M-host2-Hosts registered"));
+        verify(notificationSender).Send(new Notification("S-host4", "M-host4-Hosts missing"));
+    }
+
+    @Test
+    void SendsANotificationForEachMeaningfulModification() throws DalException {
+        val moved = HeartBeatFactory.Create("host1");
+        val toggled = HeartBeatFactory.Create("host2");
+        val shortened = HeartBeatFactory.Create("host3");
+        modifications.add(new HeartBeatModification(
+                new HeartBeat("host1", moved.getTtl(), moved.getExpirationMinuteUtc(), "us-test-2", false), moved));
+        modifications.add(new HeartBeatModification(
+                new HeartBeat("host2", toggled.getTtl(), toggled.getExpirationMinuteUtc(), toggled.getRegion(), true), toggled));
+        modifications.add(new HeartBeatModification(
+                new HeartBeat("host3", shortened.getTtl() + 600, shortened.getExpirationMinuteUtc(), shortened.getRegion(), false), shortened));
+
+        assertTrue(run());
+
+        verify(notificationSender, times(3))
+                .Send(any(Notification.class));
+        verify(notificationSender).Send(new Notification("S-host1", "M-host1-Hosts moved"));
+        verify(notificationSender).Send(new Notification("S-host2", "M-host2-Hosts test flag changed"));
+        verify(notificationSender).Send(new Notification("S-host3", "M-host3-Hosts ttl shortened"));
+    }
+
+    @Test
+    void SendsOnlyTheEventsThatAreNotFlapping() throws DalException {
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        when(eventClassifier.classify(seededInput)).thenReturn(new HeartBeatStreamChanges(
+                deletions, insertions, modifications, sequenceNumbers, new HashMap<>(), 2, 0
+        ));
+        when(flapDetector.filter(any())).then(i -> {
+            HeartBeatChangeEvent[] events = i.getArgument(0);
+            return Arrays.stream(events)
+                    .filter(e -> !e.getHeartBeat().getHostId().equals("host3"))
+                    .toArray(HeartBeatChangeEvent[]::new);
+        });
+
+        assertTrue(handler.handleRequest(seededInput, null).getBatchItemFailures().isEmpty());
+
+        verify(notificationSender, times(1))
+                .Send(any(Notification.class));
+        verify(notificationSender).Send(new Notification("S-host4", "M-host4-Hosts missing"));
+    }
+
+    @Test
+    void SendsTheNotificationBatchesConcurrently() throws DalException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_CONCURRENCY, HeartBeatChange.DEFAULT_SEND_CONCURRENCY)).thenReturn(3);
+        val concurrentHandler = new HeartBeatChange(
+                notificationBuilder, flapDetector, notificationSender, notificationLedger, eventQueue, eventClassifier, settingsReader, metrics
+        );
+        deletions.addAll(Arrays.asList(HeartBeatFactory.Create(30)));
+        val latch = new CountDownLatch(3);
+        doAnswer(i -> {
+            latch.countDown();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(notificationSender).Send(any(Notification.class));
+
+        assertTrue(handle(concurrentHandler).getBatchItemFailures().isEmpty());
+
+        verify(notificationSender, times(3)).SendBatch(any(Notification[].class), anyLong());
+        verify(notificationSender, times(30)).Send(any(Notification.class));
+    }
+
+    @Test
+    void SendsTheNotificationsWithinTheRemainingInvocationTime() {
+        deletions.add(HeartBeatFactory.Create("host3"));
+        context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(5000);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_TIME_MARGIN_MS, HeartBeatChange.DEFAULT_SEND_TIME_MARGIN_MS)).thenReturn(1000);
+        val startNanos = System.nanoTime();
+
+        assertTrue(run());
+
+        val deadline = ArgumentCaptor.forClass(Long.class);
+        verify(notificationSender).SendBatch(any(Notification[].class), deadline.capture());
+        assertTrue(deadline.getValue() >= startNanos + TimeUnit.MILLISECONDS.toNanos(4000));
+        assertTrue(deadline.getValue() <= System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(4000));
+    }
+
+    @Test
+    void FlushesTheNotificationMetrics() throws DalException {
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(new Notification("S-host3", "M-host3-Hosts missing"));
+
+        assertFalse(run());
+
+        verify(metrics).Record("Notifications", 2, MetricUnit.COUNT);
+        verify(metrics).Record("FailedNotifications", 1, MetricUnit.COUNT);
+        verify(metrics).Record(eq("Latency"), anyDouble(), eq(MetricUnit.MILLISECONDS));
+        verify(metrics).Flush("HeartBeatChange");
+    }
+
+    @Test
+    void SendsTheNotificationsInBatchesOfTen() {
+        deletions.addAll(Arrays.asList(HeartBeatFactory.Create(25)));
+        deletions.forEach(hb -> sequenceNumbers.put(hb.getHostId(), "seq-" + hb.getHostId()));
+        val batchSizes = new ArrayList<Integer>();
+        when(notificationSender.SendBatch(any(Notification[].class), anyLong())).then(i -> {
+            Notification[] notifications = i.getArgument(0);
+            synchronized (batchSizes){
+                batchSizes.add(notifications.length);
+            }
+            return new boolean[notifications.length];
+        });
+
+        val result = handle();
+
+        batchSizes.sort(Integer::compareTo);
+        assertEquals(Arrays.asList(5, 10, 10), batchSizes);
+        assertEquals(25, result.getBatchItemFailures().size());
+    }
+
+    @Test
+    void ReturnsFalseWhenSomeNotificationsCannotBeSent() throws DalException {
+        deletions.addAll(new ArrayList<HeartBeat>(){{
+            add(HeartBeatFactory.Create("host3"));
+            add(HeartBeatFactory.Create("host4"));
+        }});
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(new Notification("S-host3", "M-host3-Hosts missing"));
+
+        assertFalse(run());
+
         verify(notificationSender).Send(new Notification("S-host4", "M-host4-Hosts missing"));
-        verify(notificationSender).Send(new Notification("S-host5", "M-host5-Hosts registered"));
-        verify(notificationSender).Send(new Notification("S-host8", "M-host8-Hosts registered"));
     }
 
     @Test
@@ -159,15 +329,293 @@ class HeartBeatChangeTest {
                 .when(notificationSender)
                 .Send(any(Notification.class));
 
-        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
-        when(eventParser.readDeletions(seededInput, HeartBeat.class)).thenReturn(new ArrayList<HeartBeat>(){{
+        deletions.addAll(new ArrayList<HeartBeat>(){{
             add(HeartBeatFactory.Create());
         }});
 
         assertFalse(run());
     }
 
+    @Test
+    void DoesNotResendTheNotificationsInTheLedger() throws DalException {
+        seedSequenceRange("100", "200");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        val sentId = NotificationLedgerEntry.BuildId(new HeartBeatChangeEvent("Hosts missing", deletions.get(0)));
+        val pendingId = NotificationLedgerEntry.BuildId(new HeartBeatChangeEvent("Hosts missing", deletions.get(1)));
+        when(notificationLedger.ReadSent(any())).thenReturn(new HashSet<>(Collections.singletonList(sentId)));
+
+        assertTrue(run());
+
+        verify(notificationSender, times(1))
+                .Send(any(Notification.class));
+        verify(notificationSender).Send(new Notification("S-host4", "M-host4-Hosts missing"));
+        verify(notificationLedger).ReadSent(new String[]{sentId, pendingId});
+        verify(notificationLedger).Save(new String[]{pendingId});
+    }
+
+    @Test
+    void DoesNotResendTheNotificationsWhenTheStreamRetriesFromALaterRecord() throws DalException {
+        val ledger = new HashSet<String>();
+        when(notificationLedger.ReadSent(any())).thenAnswer(invocation -> Arrays.stream((String[]) invocation.getArgument(0))
+                .filter(ledger::contains)
+                .collect(Collectors.toSet()));
+        doAnswer(invocation -> ledger.addAll(Arrays.asList((String[]) invocation.getArgument(0))))
+                .when(notificationLedger).Save(any());
+        doThrow(new DalException("Send failed"))
+                .doNothing()
+                .when(notificationSender)
+                .Send(new Notification("S-host4", "M-host4-Hosts missing"));
+
+        seedSequenceRange("100", "400");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        insertions.add(HeartBeatFactory.Create("host5"));
+        sequenceNumbers.put("host3", "200");
+        sequenceNumbers.put("host4", "300");
+        sequenceNumbers.put("host5", "400");
+        assertEquals(Collections.singletonList(new BatchItemFailure("300")), handle().getBatchItemFailures());
+
+        seedSequenceRange("300", "400");
+        deletions.remove(0);
+        val response = handle();
+
+        assertTrue(response.getBatchItemFailures().isEmpty());
+        verify(notificationSender, times(2)).Send(new Notification("S-host4", "M-host4-Hosts missing"));
+        verify(notificationSender, times(1)).Send(new Notification("S-host5", "M-host5-Hosts registered"));
+        verify(notificationSender, times(1)).Send(new Notification("S-host3", "M-host3-Hosts missing"));
+    }
+
+    @Test
+    void DoesNotResendTheHostsOfAGroupedNotificationWhenTheRetryRegroupsTheRecords() throws DalException {
+        val nowReader = mock(NowReader.class);
+        when(nowReader.ReadUtc()).thenReturn(new Date(0));
+        val groupingHandler = new HeartBeatChange(
+                new NotificationBuilderGrouped(new SingleNotificationBuilder(nowReader)),
+                flapDetector, notificationSender, notificationLedger, eventQueue, eventClassifier, settingsReader, metrics
+        );
+        val ledger = new HashSet<String>();
+        when(notificationLedger.ReadSent(any())).thenAnswer(invocation -> Arrays.stream((String[]) invocation.getArgument(0))
+                .filter(ledger::contains)
+                .collect(Collectors.toSet()));
+        doAnswer(invocation -> ledger.addAll(Arrays.asList((String[]) invocation.getArgument(0))))
+                .when(notificationLedger).Save(any());
+        val subjects = new ArrayList<String>();
+        val failRegistered = new boolean[]{true};
+        doAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            if (failRegistered[0] && notification.getSubject().startsWith("Hosts registered")){
+                failRegistered[0] = false;
+                throw new DalException("Send failed");
+            }
+            subjects.add(notification.getSubject());
+            return null;
+        }).when(notificationSender).Send(any(Notification.class));
+        when(flapDetector.filter(any())).then(i -> i.getArgument(0));
+
+        seedSequenceRange("100", "300");
+        deletions.add(HeartBeatFactory.Create("host1"));
+        insertions.add(HeartBeatFactory.Create("host2"));
+        deletions.add(HeartBeatFactory.Create("host3"));
+        sequenceNumbers.put("host1", "100");
+        sequenceNumbers.put("host2", "200");
+        sequenceNumbers.put("host3", "300");
+        when(eventClassifier.classify(seededInput)).thenReturn(new HeartBeatStreamChanges(
+                new ArrayList<>(deletions), new ArrayList<>(insertions), modifications, new HashMap<>(sequenceNumbers), new HashMap<>(), 3, 0
+        ));
+        assertEquals(Collections.singletonList(new BatchItemFailure("200")),
+                groupingHandler.handleRequest(seededInput, null).getBatchItemFailures());
+        assertEquals(Collections.singletonList("Hosts missing [host1, host3]"), subjects);
+
+        seedSequenceRange("200", "400");
+        deletions.remove(0);
+        deletions.add(HeartBeatFactory.Create("host4"));
+        sequenceNumbers.remove("host1");
+        sequenceNumbers.put("host4", "400");
+        when(eventClassifier.classify(seededInput)).thenReturn(new HeartBeatStreamChanges(
+                new ArrayList<>(deletions), new ArrayList<>(insertions), modifications, new HashMap<>(sequenceNumbers), new HashMap<>(), 3, 0
+        ));
+        assertTrue(groupingHandler.handleRequest(seededInput, null).getBatchItemFailures().isEmpty());
+
+        assertEquals(3, subjects.size());
+        assertTrue(subjects.contains("Hosts registered [host2]"));
+        assertTrue(subjects.contains("Hosts missing [host4]"));
+    }
+
+    @Test
+    void SavesOnlyTheNotificationsThatWereSent() throws DalException {
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(new Notification("S-host3", "M-host3-Hosts missing"));
+
+        assertFalse(run());
+
+        verify(notificationLedger).Save(new String[]{
+                NotificationLedgerEntry.BuildId(new HeartBeatChangeEvent("Hosts missing", deletions.get(1)))
+        });
+    }
+
+    @Test
+    void SendsTheNotificationsWhenTheLedgerCannotBeRead() throws DalException {
+        deletions.add(HeartBeatFactory.Create("host3"));
+        when(notificationLedger.ReadSent(any())).thenThrow(new DalException("Read failed"));
+        doThrow(new DalException("Save failed")).when(notificationLedger).Save(any());
+
+        assertTrue(run());
+
+        verify(notificationSender).Send(new Notification("S-host3", "M-host3-Hosts missing"));
+    }
+
+    @Test
+    void ReportsTheRecordsOfTheNotificationsThatCannotBeSent() throws DalException {
+        seedSequenceRange("100", "400");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        insertions.add(HeartBeatFactory.Create("host5"));
+        sequenceNumbers.put("host3", "200");
+        sequenceNumbers.put("host4", "300");
+        sequenceNumbers.put("host5", "400");
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(new Notification("S-host4", "M-host4-Hosts missing"));
+
+        val response = handle();
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("300")), response.getBatchItemFailures());
+    }
+
+    @Test
+    void ReportsTheFirstRecordWhenTheFailedNotificationCannotBeTraced() throws DalException {
+        seedSequenceRange("100", "400");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(any(Notification.class));
+
+        val response = handle();
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("100")), response.getBatchItemFailures());
+    }
+
+    @Test
+    void EnqueuesTheEventsWhenNotificationsAreAggregated() throws DalException {
+        when(settingsReader.ReadString(Settings.NOTIFICATION_MODE, "")).thenReturn("Aggregated");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        insertions.add(HeartBeatFactory.Create("host4"));
+
+        assertTrue(run());
+
+        verify(eventQueue).Send(new HeartBeatChangeEvent[]{
+                new HeartBeatChangeEvent("Hosts missing", deletions.get(0)),
+                new HeartBeatChangeEvent("Hosts registered", insertions.get(0))
+        });
+        verify(notificationSender, never()).Send(any(Notification.class));
+    }
+
+    @Test
+    void ReportsOnlyTheRecordsOfTheEventsThatCannotBeEnqueued() {
+        when(settingsReader.ReadString(Settings.NOTIFICATION_MODE, "")).thenReturn("aggregated");
+        seedSequenceRange("100", "400");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        deletions.add(HeartBeatFactory.Create("host4"));
+        deletions.add(HeartBeatFactory.Create("host5"));
+        sequenceNumbers.put("host3", "200");
+        sequenceNumbers.put("host4", "300");
+        sequenceNumbers.put("host5", "400");
+        when(eventQueue.Send(any())).thenAnswer(i -> {
+            val events = (HeartBeatChangeEvent[]) i.getArgument(0);
+            return new HeartBeatChangeEvent[]{ events[1] };
+        });
+
+        val response = handle();
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("300")), response.getBatchItemFailures());
+    }
+
+    @Test
+    void ReportsTheFirstRecordWhenAnEventWithoutSequenceNumberCannotBeEnqueued() {
+        when(settingsReader.ReadString(Settings.NOTIFICATION_MODE, "")).thenReturn("aggregated");
+        seedSequenceRange("100", "200");
+        deletions.add(HeartBeatFactory.Create("host3"));
+        when(eventQueue.Send(any())).thenAnswer(i -> i.getArgument(0));
+
+        val response = handle();
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("100")), response.getBatchItemFailures());
+    }
+
+    @Test
+    void ReportsTheEarliestRecordOfAHostWhenItsFirstNotificationFails() throws DalException {
+        when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+        val classifyingHandler = new HeartBeatChange(
+                notificationBuilder, flapDetector, notificationSender, notificationLedger, eventQueue,
+                new DynamoDBEventClassifierSinglePass(settingsReader), settingsReader, metrics
+        );
+        when(flapDetector.filter(any())).then(i -> i.getArgument(0));
+        doThrow(new DalException("Send failed"))
+                .when(notificationSender)
+                .Send(new Notification("S-host1", "M-host1-Hosts registered"));
+        val input = new DynamodbEvent();
+        input.setRecords(Arrays.asList(
+                streamRecord("INSERT", "100", null, image("host1", 500)),
+                streamRecord("MODIFY", "200", image("host1", 500), image("host1", 400))
+        ));
+
+        val response = classifyingHandler.handleRequest(input, null);
+
+        assertEquals(Collections.singletonList(new BatchItemFailure("100")), response.getBatchItemFailures());
+        verify(notificationSender).Send(new Notification("S-host1", "M-host1-Hosts ttl shortened"));
+    }
+
+    private static Map<String, AttributeValue> image(String hostId, long ttl){
+        return new HashMap<String, AttributeValue>(){{
+            put("host_id", new AttributeValue().withS(hostId));
+            put("ttl", new AttributeValue().withN(String.valueOf(ttl)));
+            put("region", new AttributeValue().withS(TEST_REGION_DEFAULT));
+            put("is_test", new AttributeValue().withN("0"));
+        }};
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord streamRecord(String eventName, String sequenceNumber, Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage){
+        val result = streamRecord(sequenceNumber);
+        result.setEventName(eventName);
+        result.getDynamodb().setOldImage(oldImage);
+        result.getDynamodb().setNewImage(newImage);
+        return result;
+    }
+
+    private void seedSequenceRange(String first, String last){
+        seededInput.setRecords(Arrays.asList(
+                streamRecord(first),
+                streamRecord(last)
+        ));
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord streamRecord(String sequenceNumber){
+        val streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(sequenceNumber);
+
+        val result = new DynamodbEvent.DynamodbStreamRecord();
+        result.setDynamodb(streamRecord);
+        return result;
+    }
+
     private boolean run(){
-        return handler.handleRequest(seededInput, null);
+        return handle().getBatchItemFailures().isEmpty();
+    }
+
+    private StreamBatchResponse handle(){
+        return handle(handler);
+    }
+
+    private StreamBatchResponse handle(HeartBeatChange target){
+        when(flapDetector.filter(any())).then(i -> i.getArgument(0));
+        when(eventClassifier.classify(seededInput)).thenReturn(new HeartBeatStreamChanges(
+                deletions, insertions, modifications, sequenceNumbers, new HashMap<>(), deletions.size() + insertions.size() + modifications.size(), 0
+        ));
+
+        return target.handleRequest(seededInput, context);
     }
 }
@@ -1,33 +1,101 @@
 package com.tddapps.handlers;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.tddapps.model.*;
-import com.tddapps.model.heartbeats.HeartBeat;
-import com.tddapps.model.heartbeats.HeartBeatRepository;
-import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.ExpirationWatermark;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
+import com.tddapps.model.heartbeats.HostFlapDetector;
 import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.model.notifications.test.HeartBeatChangeEventNotificationBuilderOneToOneStub;
 import com.tddapps.utils.NowReader;
 import lombok.val;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 
+import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
 import static com.tddapps.utils.DateExtensions.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class HeartBeatExpiratorTest {
-    private final HeartBeatRepository heartBeatRepository = mock(HeartBeatRepository.class);
-    private final RequestHandlerHelper requestHandlerHelper = mock(RequestHandlerHelper.class);
+    private final HeartBeatExpirationSweeper sweeper = mock(HeartBeatExpirationSweeper.class);
+    private final ExpirationWatermarkRepository watermarkRepository = mock(ExpirationWatermarkRepository.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
     private final NowReader nowReader = mock(NowReader.class);
-    private final HeartBeatExpirator handler = new HeartBeatExpirator(heartBeatRepository, nowReader, requestHandlerHelper);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HostFlapDetector flapDetector = mock(HostFlapDetector.class);
+    private final NotificationSender notificationSender = mock(NotificationSender.class);
+    private final HeartBeatExpirator handler = new HeartBeatExpirator(
+            sweeper,
+            watermarkRepository,
+            flapDetector,
+            new HeartBeatChangeEventNotificationBuilderOneToOneStub(),
+            notificationSender,
+            settingsReader,
+            nowReader,
+            metrics
+    );
 
     private final long NOW_EPOCH_SECOND = 1538395893;
+    private final long PREVIOUS_MINUTE = 1538395800;
     private final String PREVIOUS_MINUTE_STRING = ToReverseUtcMinuteString(NOW_EPOCH_SECOND - 60);
-    private final int MAX_COUNT = 25;
+
+    private final List<String> sweptMinutes = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> savedWatermarks = new ArrayList<>();
 
     @BeforeEach
-    void Setup(){
+    void Setup() throws DalException {
         when(nowReader.ReadEpochSecond()).thenReturn(NOW_EPOCH_SECOND);
+        when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+        when(settingsReader.ReadInt(Settings.EXPIRATION_CATCH_UP_CONCURRENCY, 3)).thenReturn(2);
+        when(flapDetector.readSettled()).thenReturn(new HeartBeatChangeEvent[0]);
+        when(sweeper.sweep(any(), any())).then(i -> {
+            sweptMinutes.add(i.getArgument(0));
+            return 1;
+        });
+        doAnswer(i -> {
+            val watermark = (ExpirationWatermark) i.getArgument(0);
+            assertEquals(TEST_REGION_DEFAULT, watermark.getRegion());
+            savedWatermarks.add(watermark.getMinuteEpochSecond());
+            return null;
+        }).when(watermarkRepository).Save(any());
+    }
+
+    @Test
+    void NotifiesTheStateOfTheHostsThatSettledAfterFlapping() throws DalException {
+        val settled = new HeartBeatChangeEvent[]{ new HeartBeatChangeEvent("Hosts missing", HeartBeatFactory.Create("host1")) };
+        when(flapDetector.readSettled()).thenReturn(settled);
+        when(notificationSender.SendBatch(any(), anyLong())).thenReturn(new boolean[]{true});
+
+        assertTrue(handler.handleRequest(null, null));
+
+        verify(notificationSender).SendBatch(new Notification[]{ new Notification("S-host1", "M-host1-Hosts missing") }, Long.MAX_VALUE);
+        verify(flapDetector).markSettled(settled);
+    }
+
+    @Test
+    void KeepsTheHostsFlappingWhenTheSettledNotificationFails() throws DalException {
+        when(flapDetector.readSettled()).thenReturn(new HeartBeatChangeEvent[]{
+                new HeartBeatChangeEvent("Hosts missing", HeartBeatFactory.Create("host1"))
+        });
+        when(notificationSender.SendBatch(any(), anyLong())).thenReturn(new boolean[]{false});
+
+        assertTrue(handler.handleRequest(null, null));
+
+        verify(flapDetector, never()).markSettled(any());
     }
 
     @Test
@@ -36,48 +104,115 @@ class HeartBeatExpiratorTest {
     }
 
     @Test
-    void ReadsTheExpiredHeartBeatsInThePreviousMinute() throws DalException {
-        when(heartBeatRepository.Read(PREVIOUS_MINUTE_STRING, MAX_COUNT))
-                .thenReturn(new HeartBeat[]{});
+    void SweepsThePreviousMinuteWhenThereIsNoWatermark() throws DalException {
+        when(watermarkRepository.Read(TEST_REGION_DEFAULT)).thenReturn(null);
 
-        assertTrue(handleRequest());
+        assertTrue(handler.handleRequest(null, null));
 
-        verify(heartBeatRepository)
-                .Read(PREVIOUS_MINUTE_STRING, MAX_COUNT);
+        assertEquals(PREVIOUS_MINUTE_STRING, ToReverseUtcMinuteString(PREVIOUS_MINUTE));
+        assertIterableEquals(Collections.singletonList(PREVIOUS_MINUTE_STRING), sweptMinutes);
+        assertIterableEquals(Collections.singletonList(PREVIOUS_MINUTE), savedWatermarks);
     }
 
     @Test
-    void ReturnsFalseWhenExpiredHeartBeatsCannotBeRead() throws DalException {
-        doThrow(new DalException("Read failed"))
-            .when(heartBeatRepository)
-            .Read(any(String.class), any(int.class));
+    void RecordsTheExpirationBacklog() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE - 3 * 60);
+
+        assertTrue(handler.handleRequest(null, null));
+
+        verify(metrics).Record("ExpirationBacklogMinutes", 3, MetricUnit.COUNT);
+        verify(metrics).Record("ExpirationLagSeconds", 180, MetricUnit.SECONDS);
+        verify(metrics).Flush("HeartBeatExpirator");
+    }
+
+    @Test
+    void DoesNothingWhenThePreviousMinuteWasAlreadySwept() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE);
+
+        assertTrue(handler.handleRequest(null, null));
+
+        verify(sweeper, times(0)).sweep(any(), any());
+        verify(watermarkRepository, times(0)).Save(any());
+    }
 
-        assertFalse(handleRequest());
+    @Test
+    void SweepsEveryMinuteSinceTheWatermarkInBatches() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE - 5 * 60);
+
+        assertTrue(handler.handleRequest(null, null));
+
+        assertEquals(5, sweptMinutes.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sweptMinutes.contains(ToReverseUtcMinuteString(PREVIOUS_MINUTE - i * 60)));
+        }
+        assertIterableEquals(new ArrayList<Long>(){{
+            add(PREVIOUS_MINUTE - 3 * 60);
+            add(PREVIOUS_MINUTE - 60);
+            add(PREVIOUS_MINUTE);
+        }}, savedWatermarks);
     }
 
     @Test
-    void DeletesTheExpiredHeartBeatsAfterFilteringThem() throws DalException{
-        val allHeartBeats = HeartBeatFactory.Create(30);
-        val seededHeartBeats = Arrays.copyOfRange(allHeartBeats, 0, 15);
-        val filteredHeartBeats = Arrays.copyOfRange(allHeartBeats, 15, 30);
-        when(heartBeatRepository.Read(PREVIOUS_MINUTE_STRING, MAX_COUNT)).thenReturn(seededHeartBeats);
-        when(requestHandlerHelper.filter(seededHeartBeats)).thenReturn(filteredHeartBeats);
+    void LimitsHowFarBackTheSweepGoes() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE - 1000 * 60);
 
-        assertTrue(handleRequest());
+        assertTrue(handler.handleRequest(null, null));
 
-        verify(heartBeatRepository).Delete(filteredHeartBeats);
+        assertEquals(HeartBeatExpirator.MAX_CATCH_UP_MINUTES, sweptMinutes.size());
+        assertTrue(sweptMinutes.contains(ToReverseUtcMinuteString(PREVIOUS_MINUTE - (HeartBeatExpirator.MAX_CATCH_UP_MINUTES - 1) * 60)));
+        assertFalse(sweptMinutes.contains(ToReverseUtcMinuteString(PREVIOUS_MINUTE - HeartBeatExpirator.MAX_CATCH_UP_MINUTES * 60)));
     }
 
     @Test
-    void ReturnsFalseWhenExpiredHeartBeatsCannotBeDeleted() throws DalException{
+    void OnlyAdvancesTheWatermarkUpToTheFirstFailedMinute() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE - 5 * 60);
         doThrow(new DalException("Delete failed"))
-                .when(heartBeatRepository)
-                .Delete(any());
+                .when(sweeper)
+                .sweep(eq(ToReverseUtcMinuteString(PREVIOUS_MINUTE - 2 * 60)), any());
+
+        assertFalse(handler.handleRequest(null, null));
+
+        assertIterableEquals(new ArrayList<Long>(){{
+            add(PREVIOUS_MINUTE - 3 * 60);
+        }}, savedWatermarks);
+        assertFalse(sweptMinutes.contains(ToReverseUtcMinuteString(PREVIOUS_MINUTE)));
+    }
+
+    @Test
+    void StopsSweepingWhenTheLambdaIsAboutToTimeout() throws DalException {
+        seedWatermark(PREVIOUS_MINUTE - 5 * 60);
+        val context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(20000, 20000, 20000, 5000);
+
+        assertTrue(handler.handleRequest(null, context));
+
+        assertEquals(2, sweptMinutes.size());
+        assertIterableEquals(Collections.singletonList(PREVIOUS_MINUTE - 3 * 60), savedWatermarks);
+    }
+
+    @Test
+    void PassesTheTimeBudgetToTheSweeper() throws DalException {
+        val context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(20000, 20000, 5000);
+
+        handler.handleRequest(null, context);
+
+        val captor = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(sweeper).sweep(eq(PREVIOUS_MINUTE_STRING), captor.capture());
+        assertFalse(captor.getValue().getAsBoolean());
+    }
+
+    @Test
+    void ReturnsFalseWhenTheWatermarkCannotBeRead() throws DalException {
+        when(watermarkRepository.Read(any())).thenThrow(new DalException("Read failed"));
+
+        assertFalse(handler.handleRequest(null, null));
 
-        assertFalse(handleRequest());
+        verify(sweeper, times(0)).sweep(any(), any());
     }
 
-    private boolean handleRequest(){
-        return handler.handleRequest(null, null);
+    private void seedWatermark(long minuteEpochSecond) throws DalException {
+        when(watermarkRepository.Read(TEST_REGION_DEFAULT))
+                .thenReturn(new ExpirationWatermark(TEST_REGION_DEFAULT, minuteEpochSecond));
     }
 }
@@ -3,8 +3,11 @@ package com.tddapps.handlers;
 import com.tddapps.handlers.infrastructure.ApiGatewayResponse;
 import com.tddapps.model.*;
 import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
 import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
 import lombok.val;
@@ -22,12 +25,16 @@ import static org.mockito.Mockito.*;
 
 class HeartBeatPostTest {
     private final HeartBeatRepository heartBeatRepository = mock(HeartBeatRepository.class);
+    private final HeartBeatQueue heartBeatQueue = mock(HeartBeatQueue.class);
     private final SettingsReader settingsReader = mock(SettingsReader.class);
-    private final HeartBeatPost handler = new HeartBeatPost(heartBeatRepository, settingsReader, new HeartBeatSerializer());
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HeartBeatPost handler = new HeartBeatPost(heartBeatRepository, heartBeatQueue, settingsReader, new HeartBeatSerializer(), metrics);
 
     @BeforeEach
-    void Setup(){
+    void Setup() throws DalException {
         when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+        when(settingsReader.ReadString(Settings.HEARTBEAT_INGESTION_MODE, "")).thenReturn("");
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenReturn(new HeartBeat[0]);
     }
 
     @Test
@@ -44,6 +51,16 @@ class HeartBeatPostTest {
         verify(heartBeatRepository, times(0)).Save(any(HeartBeat[].class));
     }
 
+    @Test
+    void FlushesTheRequestMetrics() {
+        handleRequest("{incorrect json");
+
+        verify(metrics).Record(eq("Latency"), anyDouble(), eq(MetricUnit.MILLISECONDS));
+        verify(metrics).Record("ClientErrors", 1, MetricUnit.COUNT);
+        verify(metrics).Record("ServerErrors", 0, MetricUnit.COUNT);
+        verify(metrics).Flush("HeartBeatPost");
+    }
+
     @Test
     void ProcessWritesTheHeartBeat() throws DalException {
         val expectedHeartBeats = new HeartBeat[] {
@@ -61,6 +78,41 @@ class HeartBeatPostTest {
         assertEquals(200, result.getStatusCode());
         assertEquals("{\"message\":\"OK\"}", result.getBody());
         verify(heartBeatRepository).Save(expectedHeartBeats);
+        verify(heartBeatQueue, times(0)).Send(any(HeartBeat[].class));
+    }
+
+    @Test
+    void ProcessEnqueuesTheHeartBeatWhenQueueIngestionIsEnabled() throws DalException {
+        when(settingsReader.ReadString(Settings.HEARTBEAT_INGESTION_MODE, "")).thenReturn("Queue");
+        val expectedHeartBeats = new HeartBeat[] {
+                new HeartBeat(
+                        "testHostA",
+                        EpochSecondsPlusMs(34000),
+                        ToReverseUtcMinuteString(EpochSecondsPlusMs(34000)),
+                        TEST_REGION_DEFAULT,
+                        false
+                )
+        };
+
+        val result = handleRequest("{\"hostId\": \"testHostA\", \"intervalMs\": 34000}");
+
+        assertEquals(202, result.getStatusCode());
+        assertEquals("{\"message\":\"Accepted\"}", result.getBody());
+        verify(heartBeatQueue).Send(expectedHeartBeats);
+        verify(heartBeatRepository, times(0)).Save(any(HeartBeat[].class));
+    }
+
+    @Test
+    void ReturnsServerErrorWhenTheHeartBeatCouldNotBeEnqueued() throws DalException {
+        when(settingsReader.ReadString(Settings.HEARTBEAT_INGESTION_MODE, "")).thenReturn("queue");
+        doThrow(new DalException("Send failed"))
+                .when(heartBeatQueue)
+                .Send(any(HeartBeat[].class));
+
+        val result = handleRequest("{\"hostId\": \"testHostA\", \"intervalMs\": 34000}");
+
+        assertEquals(500, result.getStatusCode());
+        assertEquals("{\"message\":\"Send failed\"}", result.getBody());
     }
 
     @Test
@@ -75,6 +127,16 @@ class HeartBeatPostTest {
         assertEquals("{\"message\":\"Save failed\"}", result.getBody());
     }
 
+    @Test
+    void ReturnsServerErrorWhenTheHeartBeatWasLeftUnprocessed() throws DalException {
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenAnswer(i -> i.getArgument(0));
+
+        val result = handleRequest("{\"hostId\": \"testHostA\", \"intervalMs\": 34000}");
+
+        assertEquals(500, result.getStatusCode());
+        assertEquals("{\"message\":\"HeartBeat could not be saved\"}", result.getBody());
+    }
+
     private ApiGatewayResponse handleRequest(String body) {
         return handler.handleRequest(new HashMap<String, Object>() {{
             put("body", body);
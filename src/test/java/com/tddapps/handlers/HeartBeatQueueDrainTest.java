@@ -0,0 +1,148 @@
+package com.tddapps.handlers;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.tddapps.handlers.infrastructure.BatchItemFailure;
+import com.tddapps.handlers.infrastructure.QueueBatchResponse;
+import com.tddapps.model.*;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.internal.HeartBeatCoalescerLatestTtl;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartBeatQueueDrainTest {
+    private final HeartBeatRepository heartBeatRepository = mock(HeartBeatRepository.class);
+    private final HeartBeatSerializer serializer = new HeartBeatSerializer();
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HeartBeatQueueDrain handler = new HeartBeatQueueDrain(
+            heartBeatRepository,
+            serializer,
+            new HeartBeatCoalescerLatestTtl(),
+            metrics
+    );
+
+    @BeforeEach
+    void Setup() throws DalException {
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenReturn(new HeartBeat[0]);
+    }
+
+    @Test
+    void CanBeConstructedUsingTheDefaultConstructor(){
+        assertNotNull(new HeartBeatQueueDrain());
+    }
+
+    @Test
+    void SavesAllTheHeartBeatsInASingleOperation() throws DalException {
+        val heartBeat1 = HeartBeatFactory.Create("host1");
+        val heartBeat2 = HeartBeatFactory.Create("host2");
+
+        assertSucceeded(handler.handleRequest(buildEvent(
+                serializer.toJson(heartBeat1),
+                serializer.toJson(heartBeat2)
+        ), null));
+
+        verify(heartBeatRepository).Save(new HeartBeat[]{heartBeat1, heartBeat2});
+    }
+
+    @Test
+    void SavesTheLatestHeartBeatOfEachHost() throws DalException {
+        val heartBeat1 = HeartBeatFactory.Create("host1");
+        val heartBeat2 = HeartBeatFactory.Create("host2");
+        val heartBeat1Latest = HeartBeatFactory.Create("host1");
+        heartBeat1Latest.setTtl(heartBeat1.getTtl() + 60);
+        val heartBeat1Oldest = HeartBeatFactory.Create("host1");
+        heartBeat1Oldest.setTtl(heartBeat1.getTtl() - 60);
+
+        assertSucceeded(handler.handleRequest(buildEvent(
+                serializer.toJson(heartBeat1),
+                serializer.toJson(heartBeat2),
+                serializer.toJson(heartBeat1Latest),
+                serializer.toJson(heartBeat1Oldest)
+        ), null));
+
+        verify(heartBeatRepository).Save(new HeartBeat[]{heartBeat1Latest, heartBeat2});
+    }
+
+    @Test
+    void DiscardsInvalidMessages() throws DalException {
+        val heartBeat1 = HeartBeatFactory.Create("host1");
+
+        assertSucceeded(handler.handleRequest(buildEvent(
+                "{invalid json",
+                serializer.toJson(heartBeat1)
+        ), null));
+
+        verify(heartBeatRepository).Save(new HeartBeat[]{heartBeat1});
+    }
+
+    @Test
+    void DoesNotSaveWhenThereAreNoHeartBeats() throws DalException {
+        assertSucceeded(handler.handleRequest(buildEvent("{invalid json"), null));
+
+        verify(heartBeatRepository, times(0)).Save(any(HeartBeat[].class));
+    }
+
+    @Test
+    void ReportsAllTheMessagesWhenTheHeartBeatsCouldNotBeSaved() throws DalException {
+        doThrow(new DalException("Save failed"))
+                .when(heartBeatRepository)
+                .Save(any(HeartBeat[].class));
+
+        val response = handler.handleRequest(buildEvent(
+                "{invalid json",
+                serializer.toJson(HeartBeatFactory.Create("host1")),
+                serializer.toJson(HeartBeatFactory.Create("host2"))
+        ), null);
+
+        assertEquals(Arrays.asList(
+                new BatchItemFailure("message1"),
+                new BatchItemFailure("message2")
+        ), response.getBatchItemFailures());
+    }
+
+    @Test
+    void ReportsOnlyTheMessagesOfTheHeartBeatsThatWereNotSaved() throws DalException {
+        val heartBeat2 = HeartBeatFactory.Create("host2");
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenReturn(new HeartBeat[]{heartBeat2});
+
+        val response = handler.handleRequest(buildEvent(
+                serializer.toJson(HeartBeatFactory.Create("host1")),
+                serializer.toJson(heartBeat2),
+                serializer.toJson(HeartBeatFactory.Create("host3")),
+                serializer.toJson(heartBeat2)
+        ), null);
+
+        assertEquals(Arrays.asList(
+                new BatchItemFailure("message1"),
+                new BatchItemFailure("message3")
+        ), response.getBatchItemFailures());
+    }
+
+    private static void assertSucceeded(QueueBatchResponse response){
+        assertTrue(response.getBatchItemFailures().isEmpty());
+    }
+
+    private static SQSEvent buildEvent(String... bodies){
+        val messages = new ArrayList<SQSEvent.SQSMessage>();
+        for (int i = 0; i < bodies.length; i++) {
+            val message = new SQSEvent.SQSMessage();
+            message.setMessageId(String.format("message%d", i));
+            message.setBody(bodies[i]);
+            messages.add(message);
+        }
+
+        val result = new SQSEvent();
+        result.setRecords(messages);
+        return result;
+    }
+}
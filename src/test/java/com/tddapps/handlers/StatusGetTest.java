@@ -5,6 +5,7 @@ import com.tddapps.model.infrastructure.KeysCacheStub;
 import com.tddapps.model.*;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.infrastructure.MetricsRecorder;
 import com.tddapps.model.infrastructure.Settings;
 import com.tddapps.model.infrastructure.SettingsReader;
 import com.tddapps.model.notifications.NotificationSenderStatus;
@@ -28,11 +29,13 @@ class StatusGetTest {
     private final NotificationSenderStatus notificationSenderStatus = mock(NotificationSenderStatus.class);
     private final SettingsReader settingsReader = mock(SettingsReader.class);
     private final KeysCacheStub keysCache = new KeysCacheStub();
-    private final StatusGet handler = new StatusGet(heartBeatRepository, notificationSenderStatus, settingsReader, keysCache);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final StatusGet handler = new StatusGet(heartBeatRepository, notificationSenderStatus, settingsReader, keysCache, metrics);
 
     @BeforeEach
-    void Setup(){
+    void Setup() throws DalException {
         when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+        when(heartBeatRepository.Save(any(HeartBeat[].class))).thenReturn(new HeartBeat[0]);
     }
 
     private ApiGatewayResponse handleRequest() {
@@ -99,7 +102,10 @@ class StatusGetTest {
     @Test
     void ProcessCachesResult() throws DalException {
         final List<InvocationOnMock> invocations = new ArrayList<>();
-        doAnswer(invocations::add)
+        doAnswer(i -> {
+            invocations.add(i);
+            return new HeartBeat[0];
+        })
                 .when(heartBeatRepository)
                 .Save(any(HeartBeat[].class));
 
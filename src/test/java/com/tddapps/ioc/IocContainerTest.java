@@ -2,25 +2,49 @@ package com.tddapps.ioc;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.tddapps.ioc.internal.ComponentResolverFactories;
+import com.tddapps.ioc.internal.ComponentResolverPico;
+import com.tddapps.model.heartbeats.ExpirationWatermarkRepository;
+import com.tddapps.model.heartbeats.HeartBeatCoalescer;
+import com.tddapps.model.heartbeats.HeartBeatExpirationSweeper;
 import com.tddapps.model.heartbeats.HeartBeatJsonConverter;
 import com.tddapps.model.heartbeats.HeartBeatParser;
+import com.tddapps.model.heartbeats.HeartBeatQueue;
+import com.tddapps.model.heartbeats.HeartBeatChangeEventQueue;
+import com.tddapps.model.heartbeats.HostFlapDetector;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import com.tddapps.model.heartbeats.internal.HostFlapDetectorHysteresis;
+import com.tddapps.model.heartbeats.internal.HeartBeatCoalescerLatestTtl;
+import com.tddapps.model.heartbeats.internal.HeartBeatExpirationSweeperParallel;
 import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
 import com.tddapps.model.infrastructure.internal.InMemoryKeysCacheWithExpiration;
+import com.tddapps.model.infrastructure.internal.JsonObjectMappersShared;
+import com.tddapps.model.infrastructure.JsonObjectMappers;
 import com.tddapps.model.infrastructure.KeysCache;
 import com.tddapps.model.heartbeats.HeartBeatRepository;
 import com.tddapps.model.heartbeats.RequestHandlerHelper;
 import com.tddapps.model.heartbeats.internal.RequestHandlerHelperCurrentRegion;
 import com.tddapps.model.infrastructure.internal.EnvironmentSettingsReader;
 import com.tddapps.model.infrastructure.SettingsReader;
-import com.tddapps.model.internal.aws.DynamoDBEventParser;
-import com.tddapps.model.internal.aws.DynamoDBEventParserMarshaller;
+import com.tddapps.model.internal.aws.DynamoDBEventClassifier;
+import com.tddapps.model.internal.aws.DynamoDBEventClassifierSinglePass;
+import com.tddapps.model.internal.aws.ExpirationWatermarkRepositoryDynamo;
+import com.tddapps.model.internal.aws.HeartBeatQueueSqs;
 import com.tddapps.model.internal.aws.HeartBeatRepositoryDynamo;
+import com.tddapps.model.internal.aws.HeartBeatChangeEventQueueSqs;
+import com.tddapps.model.internal.aws.HostTransitionRepositoryDynamo;
+import com.tddapps.model.internal.aws.NotificationLedgerDynamo;
 import com.tddapps.model.internal.aws.NotificationSenderSns;
 import com.tddapps.model.notifications.*;
 import com.tddapps.model.notifications.internal.NotificationBuilderGrouped;
+import com.tddapps.model.notifications.internal.NotificationSenderRetrying;
 import com.tddapps.model.notifications.internal.SingleNotificationBuilder;
 import com.tddapps.utils.NowReader;
+import com.tddapps.utils.Sleeper;
 import com.tddapps.utils.internal.NowReaderImpl;
+import com.tddapps.utils.internal.SleeperImpl;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
@@ -35,21 +59,47 @@ class IocContainerTest {
         assertFalse(repository1 == repository2);
     }
 
+    @Test
+    void NotificationSenderIsSingletonToKeepTheCircuitState(){
+        val sender1 = IocContainer.getInstance().Resolve(NotificationSender.class);
+        val sender2 = IocContainer.getInstance().Resolve(NotificationSender.class);
+
+        assertTrue(sender1 == sender2);
+    }
+
+    @Test
+    void HeartBeatExpirationSweeperIsSingletonToReuseItsThreadPools(){
+        val sweeper1 = IocContainer.getInstance().Resolve(HeartBeatExpirationSweeper.class);
+        val sweeper2 = IocContainer.getInstance().Resolve(HeartBeatExpirationSweeper.class);
+
+        assertTrue(sweeper1 == sweeper2);
+    }
+
     @Test
     void RegisterDependencies(){
         assertTrue(IocContainer.getInstance().Resolve(NowReader.class) instanceof NowReaderImpl);
+        assertTrue(IocContainer.getInstance().Resolve(Sleeper.class) instanceof SleeperImpl);
         assertTrue(IocContainer.getInstance().Resolve(RequestHandlerHelper.class) instanceof RequestHandlerHelperCurrentRegion);
         assertTrue(IocContainer.getInstance().Resolve(HeartBeatRepository.class) instanceof HeartBeatRepositoryDynamo);
-        assertTrue(IocContainer.getInstance().Resolve(NotificationSender.class) instanceof NotificationSenderSns);
+        assertTrue(IocContainer.getInstance().Resolve(HeartBeatQueue.class) instanceof HeartBeatQueueSqs);
+        assertTrue(IocContainer.getInstance().Resolve(ExpirationWatermarkRepository.class) instanceof ExpirationWatermarkRepositoryDynamo);
+        assertTrue(IocContainer.getInstance().Resolve(HeartBeatCoalescer.class) instanceof HeartBeatCoalescerLatestTtl);
+        assertTrue(IocContainer.getInstance().Resolve(HeartBeatExpirationSweeper.class) instanceof HeartBeatExpirationSweeperParallel);
+        assertTrue(IocContainer.getInstance().Resolve(NotificationSender.class) instanceof NotificationSenderRetrying);
         assertTrue(IocContainer.getInstance().Resolve(NotificationSenderStatus.class) instanceof NotificationSenderSns);
+        assertTrue(IocContainer.getInstance().Resolve(NotificationLedger.class) instanceof NotificationLedgerDynamo);
+        assertTrue(IocContainer.getInstance().Resolve(HostTransitionRepository.class) instanceof HostTransitionRepositoryDynamo);
+        assertTrue(IocContainer.getInstance().Resolve(HostFlapDetector.class) instanceof HostFlapDetectorHysteresis);
+        assertTrue(IocContainer.getInstance().Resolve(HeartBeatChangeEventQueue.class) instanceof HeartBeatChangeEventQueueSqs);
         assertTrue(IocContainer.getInstance().Resolve(SettingsReader.class) instanceof EnvironmentSettingsReader);
         assertTrue(IocContainer.getInstance().Resolve(HeartBeatNotificationBuilder.class) instanceof SingleNotificationBuilder);
         assertTrue(IocContainer.getInstance().Resolve(HeartBeatChangeEventNotificationBuilder.class) instanceof NotificationBuilderGrouped);
-        assertTrue(IocContainer.getInstance().Resolve(DynamoDBEventParser.class) instanceof DynamoDBEventParserMarshaller);
+        assertTrue(IocContainer.getInstance().Resolve(DynamoDBEventClassifier.class) instanceof DynamoDBEventClassifierSinglePass);
         assertTrue(IocContainer.getInstance().Resolve(HeartBeatParser.class) instanceof HeartBeatSerializer);
         assertTrue(IocContainer.getInstance().Resolve(HeartBeatJsonConverter.class) instanceof HeartBeatSerializer);
 
         assertNotNull(IocContainer.getInstance().Resolve(AmazonDynamoDB.class));
+        assertNotNull(IocContainer.getInstance().Resolve(AmazonSQS.class));
     }
 
     @Test
@@ -62,6 +112,26 @@ class IocContainerTest {
         assertTrue(mapper1 == mapper2);
     }
 
+    @Test
+    void RegistersAmazonSNSAsASingleton(){
+        assertNotNull(IocContainer.getInstance().Resolve(AmazonSNS.class));
+
+        val sns1 = IocContainer.getInstance().Resolve(AmazonSNS.class);
+        val sns2 = IocContainer.getInstance().Resolve(AmazonSNS.class);
+
+        assertTrue(sns1 == sns2);
+    }
+
+    @Test
+    void RegistersAmazonSQSAsASingleton(){
+        assertNotNull(IocContainer.getInstance().Resolve(AmazonSQS.class));
+
+        val sqs1 = IocContainer.getInstance().Resolve(AmazonSQS.class);
+        val sqs2 = IocContainer.getInstance().Resolve(AmazonSQS.class);
+
+        assertTrue(sqs1 == sqs2);
+    }
+
     @Test
     void RegistersInMemoryKeysCacheWithExpirationAsASingleton(){
         assertTrue(IocContainer.getInstance().Resolve(KeysCache.class) instanceof InMemoryKeysCacheWithExpiration);
@@ -71,4 +141,51 @@ class IocContainerTest {
 
         assertTrue(cache1 == cache2);
     }
+
+    @Test
+    void RegistersJsonObjectMappersSharedAsASingleton(){
+        assertTrue(IocContainer.getInstance().Resolve(JsonObjectMappers.class) instanceof JsonObjectMappersShared);
+
+        val mappers1 = IocContainer.getInstance().Resolve(JsonObjectMappers.class);
+        val mappers2 = IocContainer.getInstance().Resolve(JsonObjectMappers.class);
+
+        assertTrue(mappers1 == mappers2);
+    }
+
+    @Test
+    void WarmupResolvesEveryComponentAndPrimesTheLazyCaches(){
+        val timings = IocContainer.getInstance().Warmup();
+
+        assertTrue(timings.containsKey("HeartBeatRepository"));
+        assertTrue(timings.containsKey("NotificationSender"));
+        assertTrue(timings.containsKey("AmazonSNS"));
+        assertTrue(timings.containsKey("AmazonDynamoDB"));
+        assertTrue(timings.containsKey("DynamoDBMapper"));
+        assertTrue(timings.containsKey("DynamoDBMapper table models"));
+        assertTrue(timings.containsKey("HeartBeat json"));
+        assertTrue(timings.containsKey("AWS credentials"));
+        for (val elapsedMs : timings.values()){
+            assertTrue(elapsedMs >= 0);
+        }
+        assertTrue(IocContainer.getInstance().isWarmedUp());
+    }
+
+    @Test
+    void SelectsTheContainerImplementation(){
+        assertTrue(IocContainer.createResolver("factories") instanceof ComponentResolverFactories);
+        assertTrue(IocContainer.createResolver("FACTORIES") instanceof ComponentResolverFactories);
+        assertTrue(IocContainer.createResolver("pico") instanceof ComponentResolverPico);
+        assertTrue(IocContainer.createResolver("") instanceof ComponentResolverPico);
+    }
+
+    @Test
+    void CheckpointHooksNotifyTheSingletons(){
+        val sender = (NotificationSenderRetrying) IocContainer.getInstance().Resolve(NotificationSender.class);
+
+        IocContainer.getInstance().BeforeCheckpoint();
+        IocContainer.getInstance().AfterRestore();
+
+        assertEquals(NotificationSenderRetrying.CircuitState.CLOSED, sender.getCircuitState());
+        assertTrue(IocContainer.getInstance().Resolve(NotificationSender.class) == sender);
+    }
 }
@@ -0,0 +1,42 @@
+package com.tddapps.ioc.internal;
+
+import com.tddapps.model.internal.aws.NotificationSenderSns;
+import com.tddapps.model.notifications.NotificationSenderStatus;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentResolverFactoriesTest {
+    private final ComponentResolverPico pico = new ComponentResolverPico();
+    private final ComponentResolverFactories factories = new ComponentResolverFactories();
+
+    @Test
+    void RegistersTheSameComponentsAsPico(){
+        for (val type : pico.RegisteredTypes()){
+            assertTrue(factories.RegisteredTypes().contains(type), type.getName());
+
+            assertEquals(pico.Resolve(type).getClass(), factories.Resolve(type).getClass(), type.getName());
+        }
+    }
+
+    @Test
+    void KeepsTheSameSingletonsAsPico(){
+        for (val type : pico.RegisteredTypes()){
+            val picoSingleton = pico.Resolve(type) == pico.Resolve(type);
+            val factoriesSingleton = factories.Resolve(type) == factories.Resolve(type);
+
+            assertEquals(picoSingleton, factoriesSingleton, type.getName());
+        }
+    }
+
+    @Test
+    void ResolvesTheNotificationSenderStatus(){
+        assertTrue(factories.Resolve(NotificationSenderStatus.class) instanceof NotificationSenderSns);
+    }
+
+    @Test
+    void ResolvesNullForUnregisteredTypes(){
+        assertNull(factories.Resolve(String.class));
+    }
+}
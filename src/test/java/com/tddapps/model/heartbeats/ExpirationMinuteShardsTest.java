@@ -0,0 +1,66 @@
+package com.tddapps.model.heartbeats;
+
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpirationMinuteShardsTest {
+    private static final String MINUTE = "32:05 01-10-2018";
+
+    @Test
+    void ShardDoesNotChangeTheHeartBeatWhenThereIsASingleShard(){
+        val heartBeat = HeartBeatFactory.Create("host1");
+
+        assertSame(heartBeat, ExpirationMinuteShards.Shard(heartBeat, 1));
+        assertSame(heartBeat, ExpirationMinuteShards.Shard(heartBeat, 0));
+    }
+
+    @Test
+    void ShardAppendsTheShardOfTheHostToTheExpirationMinute(){
+        val heartBeat = HeartBeatFactory.Create("host1");
+        heartBeat.setExpirationMinuteUtc(MINUTE);
+        val expectedShard = Math.floorMod("host1".hashCode(), 8);
+
+        val sharded = ExpirationMinuteShards.Shard(heartBeat, 8);
+
+        assertEquals(MINUTE + "#" + expectedShard, sharded.getExpirationMinuteUtc());
+        assertEquals(heartBeat.getHostId(), sharded.getHostId());
+        assertEquals(heartBeat.getTtl(), sharded.getTtl());
+        assertEquals(heartBeat.getRegion(), sharded.getRegion());
+        assertEquals(heartBeat.isTest(), sharded.isTest());
+        assertEquals(MINUTE, heartBeat.getExpirationMinuteUtc());
+    }
+
+    @Test
+    void ShardIsStableAndSpreadsTheHosts(){
+        val shards = new HashSet<String>();
+        for (val heartBeat : HeartBeatFactory.Create(200)){
+            heartBeat.setExpirationMinuteUtc(MINUTE);
+            val sharded = ExpirationMinuteShards.Shard(heartBeat, 4);
+
+            assertEquals(sharded, ExpirationMinuteShards.Shard(heartBeat, 4));
+            shards.add(sharded.getExpirationMinuteUtc());
+        }
+
+        assertEquals(4, shards.size());
+    }
+
+    @Test
+    void AllKeysReturnsTheMinuteWhenThereIsASingleShard(){
+        assertArrayEquals(new String[]{ MINUTE }, ExpirationMinuteShards.AllKeys(MINUTE, 1));
+    }
+
+    @Test
+    void AllKeysIncludesTheUnshardedMinute(){
+        assertArrayEquals(new String[]{
+                MINUTE,
+                MINUTE + "#0",
+                MINUTE + "#1",
+                MINUTE + "#2"
+        }, ExpirationMinuteShards.AllKeys(MINUTE, 3));
+    }
+}
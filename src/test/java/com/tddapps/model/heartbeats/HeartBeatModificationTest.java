@@ -0,0 +1,47 @@
+package com.tddapps.model.heartbeats;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartBeatModificationTest {
+    private final HeartBeat original = new HeartBeat("host1", 1000, "minute", "us-test-1", false);
+
+    @Test
+    void DetectsRegionChanges(){
+        val modification = new HeartBeatModification(original, new HeartBeat("host1", 1060, "minute", "us-test-2", false));
+
+        assertTrue(modification.isRegionChange());
+        assertFalse(modification.isTestChange());
+        assertFalse(modification.isTtlRegression());
+    }
+
+    @Test
+    void DetectsTestChanges(){
+        val modification = new HeartBeatModification(original, new HeartBeat("host1", 1060, "minute", "us-test-1", true));
+
+        assertFalse(modification.isRegionChange());
+        assertTrue(modification.isTestChange());
+        assertFalse(modification.isTtlRegression());
+    }
+
+    @Test
+    void DetectsTtlRegressions(){
+        val modification = new HeartBeatModification(original, new HeartBeat("host1", 940, "minute", "us-test-1", false));
+
+        assertFalse(modification.isRegionChange());
+        assertFalse(modification.isTestChange());
+        assertTrue(modification.isTtlRegression());
+    }
+
+    @Test
+    void ExtendingTheTtlIsNotAChange(){
+        val modification = new HeartBeatModification(original, new HeartBeat("host1", 1060, "minute", "us-test-1", false));
+
+        assertFalse(modification.isRegionChange());
+        assertFalse(modification.isTestChange());
+        assertFalse(modification.isTtlRegression());
+    }
+}
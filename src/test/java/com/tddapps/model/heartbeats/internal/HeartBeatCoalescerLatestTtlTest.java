@@ -0,0 +1,54 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HeartBeatCoalescerLatestTtlTest {
+    private final HeartBeatCoalescerLatestTtl coalescer = new HeartBeatCoalescerLatestTtl();
+
+    @Test
+    void CoalesceReturnsAnEmptyListWhenGivenAnEmptyList(){
+        assertEquals(0, coalescer.coalesce(new HeartBeat[]{}).length);
+    }
+
+    @Test
+    void CoalesceReturnsTheSameHeartBeatsWhenThereAreNoDuplicates(){
+        val seededHeartBeats = HeartBeatFactory.Create(5);
+
+        assertArrayEquals(seededHeartBeats, coalescer.coalesce(seededHeartBeats));
+    }
+
+    @Test
+    void CoalesceKeepsTheHeartBeatWithTheLatestTtlPerHost(){
+        val seededHeartBeats = HeartBeatFactory.Create(6);
+        seededHeartBeats[2].setHostId(seededHeartBeats[0].getHostId());
+        seededHeartBeats[2].setTtl(seededHeartBeats[0].getTtl() + 10);
+        seededHeartBeats[3].setHostId(seededHeartBeats[1].getHostId());
+        seededHeartBeats[3].setTtl(seededHeartBeats[1].getTtl() - 10);
+        seededHeartBeats[5].setHostId(seededHeartBeats[0].getHostId());
+        seededHeartBeats[5].setTtl(seededHeartBeats[0].getTtl() + 5);
+
+        val expected = new HeartBeat[]{
+                seededHeartBeats[2],
+                seededHeartBeats[1],
+                seededHeartBeats[4]
+        };
+
+        assertArrayEquals(expected, coalescer.coalesce(seededHeartBeats));
+    }
+
+    @Test
+    void CoalesceKeepsTheLastHeartBeatWhenTheTtlsAreEqual(){
+        val seededHeartBeats = HeartBeatFactory.Create(2);
+        seededHeartBeats[1].setHostId(seededHeartBeats[0].getHostId());
+        seededHeartBeats[1].setTtl(seededHeartBeats[0].getTtl());
+        seededHeartBeats[1].setRegion("us-test-2");
+
+        assertArrayEquals(new HeartBeat[]{seededHeartBeats[1]}, coalescer.coalesce(seededHeartBeats));
+    }
+}
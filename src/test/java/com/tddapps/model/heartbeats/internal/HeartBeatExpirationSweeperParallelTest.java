@@ -0,0 +1,165 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatPage;
+import com.tddapps.model.heartbeats.HeartBeatRepository;
+import com.tddapps.model.heartbeats.RequestHandlerHelper;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static com.tddapps.model.heartbeats.internal.HeartBeatExpirationSweeperParallel.PAGE_SIZE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartBeatExpirationSweeperParallelTest {
+    private static final String MINUTE = "minute1";
+
+    private final HeartBeatRepository heartBeatRepository = mock(HeartBeatRepository.class);
+    private final RequestHandlerHelper requestHandlerHelper = mock(RequestHandlerHelper.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final HeartBeatExpirationSweeperParallel sweeper = new HeartBeatExpirationSweeperParallel(
+            heartBeatRepository,
+            requestHandlerHelper,
+            settingsReader
+    );
+
+    private final HashSet<HeartBeat> deletedHeartBeats = new HashSet<>();
+
+    @BeforeEach
+    void Setup() throws DalException {
+        when(settingsReader.ReadInt(Settings.EXPIRATION_SWEEP_CONCURRENCY, 4)).thenReturn(3);
+        when(requestHandlerHelper.filter(any())).then(i -> i.getArgument(0));
+        doAnswer(i -> {
+            synchronized (deletedHeartBeats){
+                Collections.addAll(deletedHeartBeats, (HeartBeat[]) i.getArgument(0));
+            }
+            return null;
+        }).when(heartBeatRepository).Delete(any());
+    }
+
+    @Test
+    void SweepDoesNothingWhenThereAreNoExpiredHeartBeats() throws DalException {
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(lastPage());
+
+        assertEquals(0, sweeper.sweep(MINUTE, () -> true));
+
+        verify(heartBeatRepository, times(0)).Delete(any());
+    }
+
+    @Test
+    void SweepDeletesAllThePagesInBatches() throws DalException {
+        val page1 = HeartBeatFactory.Create(PAGE_SIZE);
+        val page2 = HeartBeatFactory.Create(PAGE_SIZE);
+        val page3 = HeartBeatFactory.Create(30);
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(page(page1));
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, page1[PAGE_SIZE - 1])).thenReturn(page(page2));
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, page2[PAGE_SIZE - 1])).thenReturn(lastPage(page3));
+
+        assertEquals(PAGE_SIZE * 2 + 30, sweeper.sweep(MINUTE, () -> true));
+
+        verify(heartBeatRepository, times(22)).Delete(any());
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(page1)));
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(page2)));
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(page3)));
+    }
+
+    @Test
+    void SweepKeepsReadingWhileThereIsALastEvaluatedKey() throws DalException {
+        val page1 = HeartBeatFactory.Create(40);
+        val page2 = HeartBeatFactory.Create(10);
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(page(page1));
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, page1[39])).thenReturn(lastPage(page2));
+
+        assertEquals(50, sweeper.sweep(MINUTE, () -> true));
+
+        verify(heartBeatRepository, times(2)).Read(any(), anyInt(), any());
+    }
+
+    @Test
+    void SweepStopsAtTheLastPageEvenWhenItIsFull() throws DalException {
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(lastPage(HeartBeatFactory.Create(PAGE_SIZE)));
+
+        assertEquals(PAGE_SIZE, sweeper.sweep(MINUTE, () -> true));
+
+        verify(heartBeatRepository, times(1)).Read(any(), anyInt(), any());
+    }
+
+    @Test
+    void SweepFansOutAcrossAllTheShardsOfTheMinute() throws DalException {
+        when(settingsReader.ReadInt(Settings.EXPIRATION_MINUTE_SHARDS, 1)).thenReturn(2);
+        val legacy = HeartBeatFactory.Create(5);
+        val shard0 = HeartBeatFactory.Create(PAGE_SIZE);
+        val shard0Page2 = HeartBeatFactory.Create(10);
+        val shard1 = HeartBeatFactory.Create(20);
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(lastPage(legacy));
+        when(heartBeatRepository.Read(MINUTE + "#0", PAGE_SIZE, null)).thenReturn(page(shard0));
+        when(heartBeatRepository.Read(MINUTE + "#0", PAGE_SIZE, shard0[PAGE_SIZE - 1])).thenReturn(lastPage(shard0Page2));
+        when(heartBeatRepository.Read(MINUTE + "#1", PAGE_SIZE, null)).thenReturn(lastPage(shard1));
+
+        assertEquals(5 + PAGE_SIZE + 10 + 20, sweeper.sweep(MINUTE, () -> true));
+
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(legacy)));
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(shard0)));
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(shard0Page2)));
+        assertTrue(deletedHeartBeats.containsAll(Arrays.asList(shard1)));
+    }
+
+    @Test
+    void SweepOnlyDeletesTheFilteredHeartBeats() throws DalException {
+        val page1 = HeartBeatFactory.Create(40);
+        val filtered = Arrays.copyOfRange(page1, 0, 10);
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(lastPage(page1));
+        when(requestHandlerHelper.filter(page1)).thenReturn(filtered);
+
+        assertEquals(10, sweeper.sweep(MINUTE, () -> true));
+
+        verify(heartBeatRepository).Delete(filtered);
+    }
+
+    @Test
+    void SweepStopsWhenThereIsNoTimeRemaining() throws DalException {
+        val page1 = HeartBeatFactory.Create(PAGE_SIZE);
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(page(page1));
+        val calls = new int[]{0};
+
+        assertEquals(PAGE_SIZE, sweeper.sweep(MINUTE, () -> calls[0]++ < 1));
+
+        verify(heartBeatRepository, times(1)).Read(any(), anyInt(), any());
+    }
+
+    @Test
+    void SweepFailsWhenTheHeartBeatsCannotBeRead() throws DalException {
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenThrow(new DalException("Read failed"));
+
+        val exception = assertThrows(DalException.class, () -> sweeper.sweep(MINUTE, () -> true));
+
+        assertEquals("Read failed", exception.getMessage());
+    }
+
+    @Test
+    void SweepFailsWhenTheHeartBeatsCannotBeDeleted() throws DalException {
+        when(heartBeatRepository.Read(MINUTE, PAGE_SIZE, null)).thenReturn(lastPage(HeartBeatFactory.Create(30)));
+        doThrow(new DalException("Delete failed")).when(heartBeatRepository).Delete(any());
+
+        val exception = assertThrows(DalException.class, () -> sweeper.sweep(MINUTE, () -> true));
+
+        assertEquals("Delete failed", exception.getMessage());
+    }
+
+    private static HeartBeatPage page(HeartBeat[] heartBeats){
+        return new HeartBeatPage(heartBeats, heartBeats[heartBeats.length - 1]);
+    }
+
+    private static HeartBeatPage lastPage(HeartBeat... heartBeats){
+        return new HeartBeatPage(heartBeats, null);
+    }
+}
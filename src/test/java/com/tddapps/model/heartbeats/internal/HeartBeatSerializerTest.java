@@ -10,8 +10,7 @@ import java.text.ParseException;
 import static com.tddapps.utils.DateExtensions.EpochSecondsPlusMs;
 import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
 import static com.tddapps.utils.EqualityAssertions.shouldBeEqual;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HeartBeatSerializerTest {
     private final String MAXIMUM_LENGTH_ALLOWED_STRING = StringUtils.leftPad("", 100, "0");
@@ -130,6 +129,57 @@ public class HeartBeatSerializerTest {
         parseUnsanitizedShouldFailWithError("{\"hostId\": \"host1\", \"intervalMs\": \"43200001\"}", INVALID_INTERVAL_MS);
     }
 
+    @Test
+    void parseUnsanitizedSkipsTheUnknownFields() throws ParseException {
+        val heartBeat = serializer.parseUnsanitizedJson(
+                "{\"tags\": {\"env\": [\"prod\", {\"hostId\": \"inner\"}]}, \"hostId\": \"superHost1\", \"intervalMs\": 40000}"
+        );
+
+        assertEquals("superHost1", heartBeat.getHostId());
+        assertEquals(EpochSecondsPlusMs(40000), heartBeat.getTtl());
+    }
+
+    @Test
+    void parseUnsanitizedReadsNumericHostIds() throws ParseException {
+        assertEquals("123", serializer.parseUnsanitizedJson("{\"hostId\": 123}").getHostId());
+    }
+
+    @Test
+    void parseUnsanitizedFailsWhenHostIdIsNotAString(){
+        parseUnsanitizedShouldFailWithError("{\"hostId\": null}", INVALID_HOST_ID);
+        parseUnsanitizedShouldFailWithError("{\"hostId\": 12.5}", INVALID_HOST_ID);
+        parseUnsanitizedShouldFailWithError("{\"hostId\": {\"name\": \"host1\"}}", INVALID_HOST_ID);
+        parseUnsanitizedShouldFailWithError("{\"hostId\": [\"host1\"]}", INVALID_HOST_ID);
+        parseUnsanitizedShouldFailWithError("[{\"hostId\": \"host1\"}]", INVALID_HOST_ID);
+    }
+
+    @Test
+    void parseUnsanitizedFailsWhenTheRequestIsTooLarge(){
+        val padding = StringUtils.repeat("a", HeartBeatSerializer.MAX_REQUEST_LENGTH);
+
+        parseUnsanitizedShouldFailWithError(String.format(
+                "{\"hostId\": \"host1\", \"padding\": \"%s\"}", padding
+        ), "Request too large");
+    }
+
+    @Test
+    void parseUnsanitizedFailsWhenTheJsonIsNestedTooDeep() throws ParseException {
+        val maxDepth = nested(HeartBeatSerializer.MAX_NESTING_DEPTH - 1);
+        val tooDeep = nested(HeartBeatSerializer.MAX_NESTING_DEPTH);
+
+        assertEquals("host1", serializer.parseUnsanitizedJson(
+                String.format("{\"extra\": %s, \"hostId\": \"host1\"}", maxDepth)
+        ).getHostId());
+        parseUnsanitizedShouldFailWithError(
+                String.format("{\"extra\": %s, \"hostId\": \"host1\"}", tooDeep),
+                "Nesting too deep"
+        );
+    }
+
+    private static String nested(int depth){
+        return StringUtils.repeat("[", depth) + StringUtils.repeat("]", depth);
+    }
+
     private void parseUnsanitizedShouldFailWithError(String requestBody, String errorMessage){
         try {
             serializer.parseUnsanitizedJson(requestBody);
@@ -139,6 +189,121 @@ public class HeartBeatSerializerTest {
         }
     }
 
+    @Test
+    void parseUnsanitizedBatchReadsJsonArrays() throws ParseException {
+        val results = serializer.parseUnsanitizedJsonBatch(
+                "[{\"hostId\": \"superHost1\", \"intervalMs\": 40000}, {\"hostId\": \"superHost2\"}]"
+        );
+
+        assertEquals(2, results.length);
+        assertEquals(0, results[0].getIndex());
+        assertTrue(results[0].isValid());
+        shouldBeEqual(new HeartBeat(
+                "superHost1",
+                EpochSecondsPlusMs(40000),
+                ToReverseUtcMinuteString(EpochSecondsPlusMs(40000)),
+                "",
+                false
+        ), results[0].getHeartBeat());
+        assertEquals(1, results[1].getIndex());
+        assertEquals("superHost2", results[1].getHeartBeat().getHostId());
+    }
+
+    @Test
+    void parseUnsanitizedBatchReadsNewLineDelimitedJson() throws ParseException {
+        val results = serializer.parseUnsanitizedJsonBatch(
+                "{\"hostId\": \"superHost1\"}\r\n\n{\"hostId\": \"superHost2\"}\n"
+        );
+
+        assertEquals(2, results.length);
+        assertEquals("superHost1", results[0].getHeartBeat().getHostId());
+        assertEquals("superHost2", results[1].getHeartBeat().getHostId());
+    }
+
+    @Test
+    void parseUnsanitizedBatchReportsTheErrorOfEachItem() throws ParseException {
+        val results = serializer.parseUnsanitizedJsonBatch(
+                "[{\"hostId\": \"superHost1\"}, {\"hostId\": \"super-host\"}, {\"hostId\": \"host3\", \"intervalMs\": 1}, 45]"
+        );
+
+        assertEquals(4, results.length);
+        assertTrue(results[0].isValid());
+        assertEquals("", results[0].getError());
+        assertFalse(results[1].isValid());
+        assertEquals(INVALID_HOST_ID, results[1].getError());
+        assertFalse(results[2].isValid());
+        assertEquals("Invalid intervalMs", results[2].getError());
+        assertFalse(results[3].isValid());
+        assertEquals(INVALID_HOST_ID, results[3].getError());
+    }
+
+    @Test
+    void parseUnsanitizedBatchContinuesAfterAnInvalidItem() throws ParseException {
+        val results = serializer.parseUnsanitizedJsonBatch(
+                "[{\"hostId\": \"bad-host\", \"tags\": {\"a\": [1, 2]}, \"intervalMs\": 2000}, [\"host2\"], {\"hostId\": \"host3\"}]"
+        );
+
+        assertEquals(3, results.length);
+        assertEquals(INVALID_HOST_ID, results[0].getError());
+        assertEquals(INVALID_HOST_ID, results[1].getError());
+        assertEquals("host3", results[2].getHeartBeat().getHostId());
+    }
+
+    @Test
+    void parseUnsanitizedBatchFailsWhenTheJsonIsNestedTooDeep(){
+        parseUnsanitizedBatchShouldFailWithError(
+                "[{\"hostId\": \"host1\"}, {\"extra\": " + nested(HeartBeatSerializer.MAX_NESTING_DEPTH) + "}]",
+                "Nesting too deep"
+        );
+    }
+
+    @Test
+    void parseUnsanitizedBatchFailsWhenTheRequestIsTooLarge(){
+        val input = StringUtils.repeat("{\"hostId\": \"host1\"}", "\n", HeartBeatSerializer.MAX_BATCH_REQUEST_LENGTH / 10);
+
+        parseUnsanitizedBatchShouldFailWithError(input, "Request too large");
+    }
+
+    @Test
+    void parseUnsanitizedBatchReportsInvalidJsonLines() throws ParseException {
+        val results = serializer.parseUnsanitizedJsonBatch("{\"hostId\": \"superHost1\"}\n{\"hostId");
+
+        assertEquals(2, results.length);
+        assertTrue(results[0].isValid());
+        assertFalse(results[1].isValid());
+        assertEquals("Invalid json", results[1].getError());
+    }
+
+    @Test
+    void parseUnsanitizedBatchFailsWhenEmptyInput(){
+        parseUnsanitizedBatchShouldFailWithError(null, "Empty input");
+        parseUnsanitizedBatchShouldFailWithError(" ", "Empty input");
+        parseUnsanitizedBatchShouldFailWithError("[]", "Empty input");
+        parseUnsanitizedBatchShouldFailWithError(" \n \n", "Empty input");
+    }
+
+    @Test
+    void parseUnsanitizedBatchFailsWhenTheArrayIsInvalid(){
+        parseUnsanitizedBatchShouldFailWithError("[{\"hostId\"", "Invalid json");
+        parseUnsanitizedBatchShouldFailWithError("[", "Invalid json");
+    }
+
+    @Test
+    void parseUnsanitizedBatchFailsWhenThereAreTooManyItems(){
+        val input = "[" + StringUtils.repeat("{\"hostId\": \"host1\"}", ",", HeartBeatSerializer.MAX_BATCH_SIZE + 1) + "]";
+
+        parseUnsanitizedBatchShouldFailWithError(input, "Batch too large");
+    }
+
+    private void parseUnsanitizedBatchShouldFailWithError(String requestBody, String errorMessage){
+        try {
+            serializer.parseUnsanitizedJsonBatch(requestBody);
+            fail("Should have thrown");
+        } catch (ParseException e) {
+            assertEquals(errorMessage, e.getMessage());
+        }
+    }
+
     @Test
     void jsonSerialization() throws ParseException{
         val heartBeat = new HeartBeat(
@@ -0,0 +1,198 @@
+package com.tddapps.model.heartbeats.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.HostTransition;
+import com.tddapps.model.heartbeats.HostTransitionRepository;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.NowReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class HostFlapDetectorHysteresisTest {
+    private static final long NOW = 1538395800;
+    private final HostTransitionRepository transitionRepository = mock(HostTransitionRepository.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final NowReader nowReader = mock(NowReader.class);
+    private final HostFlapDetectorHysteresis detector = new HostFlapDetectorHysteresis(transitionRepository, settingsReader, nowReader);
+
+    @BeforeEach
+    void setup() throws DalException {
+        when(settingsReader.ReadInt(Settings.FLAP_HYSTERESIS_SECONDS, 0)).thenReturn(300);
+        when(nowReader.ReadEpochSecond()).thenReturn(NOW);
+        when(transitionRepository.Read(any())).thenReturn(new HashMap<String, HostTransition>(){{
+            put("host2", new HostTransition("host2", "Hosts missing", NOW - 60, false, 0, NOW + 240, "50"));
+            put("host3", new HostTransition("host3", "Hosts registered", NOW - 60, true, 2, NOW + 240, "50"));
+            put("host4", new HostTransition("host4", "Hosts registered", NOW - 600, true, 5, NOW - 300, "50"));
+            put("host5", new HostTransition("host5", "Hosts missing", NOW - 400, false, 0, NOW + 3500, "50"));
+        }});
+    }
+
+    private static HeartBeatChangeEvent event(String type, String hostId){
+        return new HeartBeatChangeEvent(type, HeartBeatFactory.Create(hostId));
+    }
+
+    @Test
+    void ReturnsTheEventsUnchangedWhenDisabled() throws DalException {
+        when(settingsReader.ReadInt(Settings.FLAP_HYSTERESIS_SECONDS, 0)).thenReturn(0);
+        val input = new HeartBeatChangeEvent[]{ event("Hosts missing", "host2") };
+
+        assertSame(input, detector.filter(input));
+
+        verifyNoInteractions(transitionRepository);
+    }
+
+    @Test
+    void ReturnsTheEventsOfHostsWithoutRecentTransitions() throws DalException {
+        val input = new HeartBeatChangeEvent[]{
+                event("Hosts missing", "host1"),
+                event("Hosts missing", "host4")
+        };
+
+        assertArrayEquals(input, detector.filter(input));
+
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host1", "Hosts missing", NOW, false, 0, NOW + 300 + 3600, null),
+                new HostTransition("host4", "Hosts missing", NOW, false, 0, NOW + 300 + 3600, null)
+        });
+    }
+
+    @Test
+    void ReportsTheHostAsFlappingOnTheFirstTransitionInsideTheWindow() throws DalException {
+        val input = event("Hosts registered", "host2");
+        input.setSequenceNumber("100");
+
+        val result = detector.filter(new HeartBeatChangeEvent[]{ input });
+
+        assertEquals(1, result.length);
+        assertEquals(HostFlapDetectorHysteresis.FLAPPING_TYPE, result[0].getType());
+        assertEquals(input.getHeartBeat(), result[0].getHeartBeat());
+        assertEquals("100", result[0].getSequenceNumber());
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host2", "Hosts registered", NOW, true, 0, NOW + 300 + 3600, "100")
+        });
+    }
+
+    @Test
+    void SuppressesTheTransitionsOfAFlappingHost() throws DalException {
+        val result = detector.filter(new HeartBeatChangeEvent[]{ event("Hosts missing", "host3") });
+
+        assertEquals(0, result.length);
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host3", "Hosts missing", NOW, true, 3, NOW + 300 + 3600, null)
+        });
+    }
+
+    @Test
+    void DoesNotCountATransitionOfTheSameTypeAsAFlap() throws DalException {
+        val input = new HeartBeatChangeEvent[]{ event("Hosts missing", "host2") };
+        input[0].setSequenceNumber("60");
+
+        assertArrayEquals(input, detector.filter(input));
+
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host2", "Hosts missing", NOW, false, 0, NOW + 300 + 3600, "60")
+        });
+    }
+
+    @Test
+    void ReturnsTheRedeliveredTransitionWithoutCountingItAgain() throws DalException {
+        val input = new HeartBeatChangeEvent[]{ event("Hosts missing", "host2") };
+        input[0].setSequenceNumber("50");
+
+        assertArrayEquals(input, detector.filter(input));
+
+        verify(transitionRepository, never()).Save(any());
+    }
+
+    @Test
+    void KeepsSuppressingTheRedeliveredTransitionOfAFlappingHost() throws DalException {
+        val input = event("Hosts registered", "host3");
+        input.setSequenceNumber("50");
+
+        val result = detector.filter(new HeartBeatChangeEvent[]{ input });
+
+        assertEquals(0, result.length);
+        verify(transitionRepository, never()).Save(any());
+    }
+
+    @Test
+    void MeasuresTheWindowWithTheTimeOfTheStreamRecord() throws DalException {
+        val input = event("Hosts registered", "host5");
+        input.setSequenceNumber("60");
+        input.setEpochSecond(NOW - 350);
+
+        val result = detector.filter(new HeartBeatChangeEvent[]{ input });
+
+        assertEquals(1, result.length);
+        assertEquals(HostFlapDetectorHysteresis.FLAPPING_TYPE, result[0].getType());
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host5", "Hosts registered", NOW - 350, true, 0, NOW + 300 + 3600, "60")
+        });
+    }
+
+    @Test
+    void ReadsTheLastTransitionOfTheHostsWhoseWindowClosed() throws DalException {
+        when(transitionRepository.ReadFlapping()).thenReturn(new HostTransition[]{
+                new HostTransition("host3", "Hosts registered", NOW - 60, true, 2, NOW + 240, "50"),
+                new HostTransition("host4", "Hosts missing", NOW - 600, true, 5, NOW + 3000, "70")
+        });
+
+        val result = detector.readSettled();
+
+        assertEquals(1, result.length);
+        assertEquals("Hosts missing", result[0].getType());
+        assertEquals("host4", result[0].getHeartBeat().getHostId());
+        assertEquals(NOW - 600, result[0].getEpochSecond());
+    }
+
+    @Test
+    void DoesNotReadSettledHostsWhenDisabled() {
+        when(settingsReader.ReadInt(Settings.FLAP_HYSTERESIS_SECONDS, 0)).thenReturn(0);
+
+        assertEquals(0, detector.readSettled().length);
+
+        verifyNoInteractions(transitionRepository);
+    }
+
+    @Test
+    void MarksTheSettledHostsAsNotFlapping() throws DalException {
+        val settled = event("Hosts registered", "host4");
+        settled.setEpochSecond(NOW - 600);
+        val restarted = event("Hosts registered", "host3");
+        restarted.setEpochSecond(NOW - 900);
+
+        detector.markSettled(new HeartBeatChangeEvent[]{ settled, restarted });
+
+        verify(transitionRepository).Save(new HostTransition[]{
+                new HostTransition("host4", "Hosts registered", NOW - 600, false, 5, NOW - 300, "50")
+        });
+    }
+
+    @Test
+    void DoesNotFilterOtherEventTypes() throws DalException {
+        val input = new HeartBeatChangeEvent[]{ event("Hosts moved", "host3") };
+
+        assertArrayEquals(input, detector.filter(input));
+
+        verify(transitionRepository, never()).Read(any());
+    }
+
+    @Test
+    void ReturnsTheEventsWhenTheTransitionsCannotBeRead() throws DalException {
+        when(transitionRepository.Read(any())).thenThrow(new DalException("Read failed"));
+        doThrow(new DalException("Save failed")).when(transitionRepository).Save(any());
+        val input = new HeartBeatChangeEvent[]{ event("Hosts missing", "host3") };
+
+        assertArrayEquals(input, detector.filter(input));
+    }
+}
@@ -0,0 +1,25 @@
+package com.tddapps.model.infrastructure.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EnvironmentSettingsReaderTest {
+    private final EnvironmentSettingsReader settingsReader = new EnvironmentSettingsReader();
+
+    @Test
+    void ReadStringReturnsTheDefaultValueWhenTheSettingIsMissing(){
+        assertEquals("", settingsReader.ReadString("HB_API_MISSING_SETTING"));
+        assertEquals("blah", settingsReader.ReadString("HB_API_MISSING_SETTING", "blah"));
+    }
+
+    @Test
+    void ReadIntReturnsTheDefaultValueWhenTheSettingIsMissing(){
+        assertEquals(45, settingsReader.ReadInt("HB_API_MISSING_SETTING", 45));
+    }
+
+    @Test
+    void ReadIntReturnsTheDefaultValueWhenTheSettingIsNotANumber(){
+        assertEquals(45, settingsReader.ReadInt("AWS_REGION", 45));
+    }
+}
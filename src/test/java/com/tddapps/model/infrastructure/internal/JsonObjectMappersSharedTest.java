@@ -0,0 +1,40 @@
+package com.tddapps.model.infrastructure.internal;
+
+import com.tddapps.handlers.infrastructure.TextMessage;
+import com.tddapps.model.heartbeats.HeartBeat;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonObjectMappersSharedTest {
+    private final JsonObjectMappersShared mappers = new JsonObjectMappersShared();
+
+    @Test
+    void ReusesTheReadersAndWritersOfEachType(){
+        assertSame(mappers.ReaderFor(HeartBeat.class), mappers.ReaderFor(HeartBeat.class));
+        assertSame(mappers.WriterFor(HeartBeat.class), mappers.WriterFor(HeartBeat.class));
+        assertSame(mappers.WriterFor(TextMessage.class), mappers.WriterFor(TextMessage.class));
+        assertSame(mappers.TreeReader(), mappers.TreeReader());
+    }
+
+    @Test
+    void ReadsAndWritesTheRequestedType() throws IOException {
+        val heartBeat = new HeartBeat("host1", 1538395893L, "us-west-2", true);
+
+        val json = mappers.WriterFor(HeartBeat.class).writeValueAsString(heartBeat);
+        HeartBeat actual = mappers.ReaderFor(HeartBeat.class).readValue(json);
+
+        assertEquals(heartBeat, actual);
+    }
+
+    @Test
+    void ReadsJsonTrees() throws IOException {
+        val tree = mappers.TreeReader().readTree("{\"hostId\": \"host1\", \"intervalMs\": 2000}");
+
+        assertEquals("host1", tree.get("hostId").asText());
+        assertEquals(2000, tree.get("intervalMs").asInt());
+    }
+}
@@ -0,0 +1,98 @@
+package com.tddapps.model.infrastructure.internal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.NowReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsRecorderEmfTest {
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final NowReader nowReader = mock(NowReader.class);
+    private final MetricsRecorderEmf recorder = new MetricsRecorderEmf(settingsReader, nowReader);
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadString(Settings.METRICS_NAMESPACE, MetricsRecorderEmf.DEFAULT_NAMESPACE)).thenReturn("hb-api-test");
+        when(nowReader.ReadUtc()).thenReturn(new Date(1538395893000L));
+    }
+
+    @Test
+    void BuildsAnEmbeddedMetricFormatDocument() throws IOException {
+        recorder.Record("Latency", 12.5, MetricUnit.MILLISECONDS);
+        recorder.Record("Latency", 7, MetricUnit.MILLISECONDS);
+        recorder.Record("Notifications", 3, MetricUnit.COUNT);
+
+        val documents = recorder.buildDocuments("HeartBeatChange");
+
+        assertEquals(1, documents.size());
+        val document = new ObjectMapper().readTree(documents.get(0));
+        val directive = document.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals(1538395893000L, document.get("_aws").get("Timestamp").asLong());
+        assertEquals("hb-api-test", directive.get("Namespace").asText());
+        assertEquals("Handler", directive.get("Dimensions").get(0).get(0).asText());
+        assertEquals("Latency", directive.get("Metrics").get(0).get("Name").asText());
+        assertEquals("Milliseconds", directive.get("Metrics").get(0).get("Unit").asText());
+        assertEquals("Notifications", directive.get("Metrics").get(1).get("Name").asText());
+        assertEquals("Count", directive.get("Metrics").get(1).get("Unit").asText());
+        assertEquals("HeartBeatChange", document.get("Handler").asText());
+        assertEquals(12.5, document.get("Latency").get(0).asDouble());
+        assertEquals(7, document.get("Latency").get(1).asDouble());
+        assertEquals(3, document.get("Notifications").get(0).asDouble());
+    }
+
+    @Test
+    void SplitsTheValuesThatDoNotFitInASingleDocument() throws IOException {
+        for (int i = 0; i < MetricsRecorderEmf.MAX_VALUES_PER_METRIC + 1; i++) {
+            recorder.Record("DynamoBatchSize", i, MetricUnit.COUNT);
+        }
+        recorder.Record("Latency", 5, MetricUnit.MILLISECONDS);
+
+        val documents = recorder.buildDocuments("HeartBeatExpirator");
+
+        assertEquals(2, documents.size());
+        val first = new ObjectMapper().readTree(documents.get(0));
+        val second = new ObjectMapper().readTree(documents.get(1));
+        assertEquals(MetricsRecorderEmf.MAX_VALUES_PER_METRIC, first.get("DynamoBatchSize").size());
+        assertEquals(1, first.get("Latency").size());
+        assertEquals(1, second.get("DynamoBatchSize").size());
+        assertEquals(100, second.get("DynamoBatchSize").get(0).asDouble());
+        assertNull(second.get("Latency"));
+        assertEquals(1, metricNames(second).size());
+    }
+
+    @Test
+    void ClearsTheValuesAfterEachFlush() {
+        recorder.Record("Latency", 5, MetricUnit.MILLISECONDS);
+        recorder.Flush("HeartBeatPost");
+
+        assertTrue(recorder.buildDocuments("HeartBeatPost").isEmpty());
+    }
+
+    @Test
+    void DropsTheValuesRecordedBeforeTheCheckpoint() {
+        recorder.Record("IocWarmupLatency", 500, MetricUnit.MILLISECONDS);
+        recorder.BeforeCheckpoint();
+
+        assertTrue(recorder.buildDocuments("HeartBeatPost").isEmpty());
+    }
+
+    @Test
+    void EmitsNothingWhenThereAreNoValues() {
+        assertTrue(recorder.buildDocuments("HeartBeatPost").isEmpty());
+    }
+
+    private static JsonNode metricNames(JsonNode document) {
+        return document.get("_aws").get("CloudWatchMetrics").get(0).get("Metrics");
+    }
+}
@@ -0,0 +1,66 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.AmazonSNSClientBuilder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class AmazonSNSFactoryTest {
+    private final AmazonSNS seededClient = AmazonSNSClientBuilder.defaultClient();
+    private final ClientConfiguration seededConfiguration = new ClientConfiguration();
+    private final AmazonSNSFactory factory = mock(AmazonSNSFactory.class);
+    private final SettingsReader settingsReaderMock = mock(SettingsReader.class);
+
+    @Test
+    void ReturnsDefaultClient(){
+        when(settingsReaderMock.ReadString(Settings.SNS_ENDPOINT_OVERRIDE)).thenReturn("");
+        when(factory.createClientConfiguration(settingsReaderMock)).thenReturn(seededConfiguration);
+        when(factory.getDefaultClient(seededConfiguration)).thenReturn(seededClient);
+        when(factory.createClient(settingsReaderMock)).thenCallRealMethod();
+
+        val client = factory.createClient(settingsReaderMock);
+
+        assertTrue(client == seededClient);
+    }
+
+    @Test
+    void BuildsClientWhenThereIsAnEndpointOverride(){
+        when(settingsReaderMock.ReadString(Settings.SNS_ENDPOINT_OVERRIDE)).thenReturn("blah");
+        when(settingsReaderMock.ReadString(Settings.DEFAULT_REGION, Regions.DEFAULT_REGION.getName())).thenReturn("regiontest1");
+        when(factory.createClientConfiguration(settingsReaderMock)).thenReturn(seededConfiguration);
+        when(factory.getLocalClient("blah", "regiontest1", seededConfiguration)).thenReturn(seededClient);
+        when(factory.createClient(settingsReaderMock)).thenCallRealMethod();
+
+        val client = factory.createClient(settingsReaderMock);
+
+        assertTrue(client == seededClient);
+    }
+
+    @Test
+    void ConfiguresTheConnectionPoolAndTimeouts(){
+        when(settingsReaderMock.ReadInt(Settings.SNS_MAX_CONNECTIONS, AmazonSNSFactory.DEFAULT_MAX_CONNECTIONS)).thenReturn(20);
+        when(settingsReaderMock.ReadInt(Settings.SNS_CONNECTION_TIMEOUT_MS, AmazonSNSFactory.DEFAULT_CONNECTION_TIMEOUT_MS)).thenReturn(1500);
+        when(settingsReaderMock.ReadInt(Settings.SNS_REQUEST_TIMEOUT_MS, AmazonSNSFactory.DEFAULT_REQUEST_TIMEOUT_MS)).thenReturn(3000);
+
+        val configuration = new AmazonSNSFactory().createClientConfiguration(settingsReaderMock);
+
+        assertEquals(20, configuration.getMaxConnections());
+        assertEquals(1500, configuration.getConnectionTimeout());
+        assertEquals(3000, configuration.getRequestTimeout());
+    }
+
+    @Test
+    void LeavesTheRetriesToTheNotificationSender(){
+        val configuration = new AmazonSNSFactory().createClientConfiguration(settingsReaderMock);
+
+        assertEquals(0, configuration.getRetryPolicy().getMaxErrorRetry());
+    }
+}
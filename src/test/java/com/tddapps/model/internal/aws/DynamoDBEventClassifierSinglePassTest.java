@@ -0,0 +1,212 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.StreamRecord;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.HeartBeatModification;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DynamoDBEventClassifierSinglePassTest {
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final DynamoDBEventClassifierSinglePass classifier = new DynamoDBEventClassifierSinglePass(settingsReader);
+
+    @BeforeEach
+    void setup(){
+        when(settingsReader.ReadString(Settings.AWS_REGION)).thenReturn(TEST_REGION_DEFAULT);
+    }
+
+    private static Map<String, AttributeValue> image(String hostId, long ttl, String region, boolean isTest){
+        return new HashMap<String, AttributeValue>(){{
+            put("host_id", new AttributeValue().withS(hostId));
+            put("ttl", new AttributeValue().withN(String.valueOf(ttl)));
+            put("expiration_minute_utc", new AttributeValue().withS("minute-" + ttl));
+            put("region", new AttributeValue().withS(region));
+            put("is_test", new AttributeValue().withN(isTest ? "1" : "0"));
+        }};
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String eventName, Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage){
+        return record(eventName, oldImage, newImage, String.format("seq-%s", readHostId(oldImage, newImage)));
+    }
+
+    private static DynamodbEvent.DynamodbStreamRecord record(String eventName, Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage, String sequenceNumber){
+        val streamRecord = new StreamRecord();
+        streamRecord.setSequenceNumber(sequenceNumber);
+        streamRecord.setOldImage(oldImage);
+        streamRecord.setNewImage(newImage);
+
+        val result = new DynamodbEvent.DynamodbStreamRecord();
+        result.setEventName(eventName);
+        result.setDynamodb(streamRecord);
+        return result;
+    }
+
+    private static String readHostId(Map<String, AttributeValue> oldImage, Map<String, AttributeValue> newImage){
+        return (newImage != null ? newImage : oldImage).get("host_id").getS();
+    }
+
+    private static DynamodbEvent buildInput(DynamodbEvent.DynamodbStreamRecord... records){
+        val result = new DynamodbEvent();
+        result.setRecords(Arrays.stream(records).collect(Collectors.toList()));
+        return result;
+    }
+
+    @Test
+    void ClassifiesAnEmptyInput(){
+        val changes = classifier.classify(buildInput());
+
+        assertTrue(changes.getDeletions().isEmpty());
+        assertTrue(changes.getInsertions().isEmpty());
+        assertTrue(changes.getModifications().isEmpty());
+        assertEquals(0, changes.getRecordCount());
+        assertEquals(0, changes.getSkippedCount());
+    }
+
+    @Test
+    void ClassifiesTheRecordsInASinglePass(){
+        val input = buildInput(
+                record("INSERT", null, image("host1", 100, TEST_REGION_DEFAULT, false)),
+                record("REMOVE", image("host2", 200, TEST_REGION_DEFAULT, false), null),
+                record("MODIFY", image("host3", 300, TEST_REGION_DEFAULT, false), image("host3", 240, TEST_REGION_DEFAULT, false)),
+                record("INSERT", null, image("host4", 400, TEST_REGION_DEFAULT, false))
+        );
+
+        val changes = classifier.classify(input);
+
+        assertEquals(Arrays.asList(
+                new HeartBeat("host1", 100, "minute-100", TEST_REGION_DEFAULT, false),
+                new HeartBeat("host4", 400, "minute-400", TEST_REGION_DEFAULT, false)
+        ), changes.getInsertions());
+        assertEquals(Arrays.asList(
+                new HeartBeat("host2", 200, "minute-200", TEST_REGION_DEFAULT, false)
+        ), changes.getDeletions());
+        assertEquals(Arrays.asList(
+                new HeartBeatModification(
+                        new HeartBeat("host3", 300, "minute-300", TEST_REGION_DEFAULT, false),
+                        new HeartBeat("host3", 240, "minute-240", TEST_REGION_DEFAULT, false))
+        ), changes.getModifications());
+        assertEquals(4, changes.getRecordCount());
+        assertEquals(0, changes.getSkippedCount());
+        assertEquals(new HashMap<String, String>(){{
+            put("host1", "seq-host1");
+            put("host2", "seq-host2");
+            put("host3", "seq-host3");
+            put("host4", "seq-host4");
+        }}, changes.getSequenceNumbers());
+    }
+
+    @Test
+    void KeepsTheEarliestSequenceNumberOfEveryHost(){
+        val input = buildInput(
+                record("INSERT", null, image("host1", 100, TEST_REGION_DEFAULT, false), "100"),
+                record("MODIFY", image("host1", 100, TEST_REGION_DEFAULT, false), image("host1", 60, TEST_REGION_DEFAULT, false), "200"),
+                record("REMOVE", image("host1", 60, TEST_REGION_DEFAULT, false), null, "300")
+        );
+
+        val changes = classifier.classify(input);
+
+        assertEquals(1, changes.getInsertions().size());
+        assertEquals(1, changes.getModifications().size());
+        assertEquals(1, changes.getDeletions().size());
+        assertEquals(Collections.singletonMap("host1", "100"), changes.getSequenceNumbers());
+    }
+
+    @Test
+    void SkipsTestHeartBeatsAndOtherRegions(){
+        val input = buildInput(
+                record("INSERT", null, image("host1", 100, TEST_REGION_DEFAULT, true)),
+                record("INSERT", null, image("host2", 200, "us-test-2", false)),
+                record("REMOVE", image("host3", 300, TEST_REGION_DEFAULT, true), null),
+                record("REMOVE", image("host4", 400, "us-test-2", false), null),
+                record("MODIFY", image("host5", 500, TEST_REGION_DEFAULT, true), image("host5", 560, TEST_REGION_DEFAULT, true)),
+                record("MODIFY", image("host6", 600, TEST_REGION_DEFAULT, false), image("host6", 660, "us-test-2", false)),
+                record("INSERT", null, image("host7", 700, TEST_REGION_DEFAULT, false))
+        );
+
+        val changes = classifier.classify(input);
+
+        assertEquals(Arrays.asList(
+                new HeartBeat("host7", 700, "minute-700", TEST_REGION_DEFAULT, false)
+        ), changes.getInsertions());
+        assertTrue(changes.getDeletions().isEmpty());
+        assertTrue(changes.getModifications().isEmpty());
+        assertEquals(7, changes.getRecordCount());
+        assertEquals(6, changes.getSkippedCount());
+        assertEquals(Collections.singletonMap("host7", "seq-host7"), changes.getSequenceNumbers());
+    }
+
+    @Test
+    void KeepsModificationsThatToggleTheTestFlag(){
+        val input = buildInput(
+                record("MODIFY", image("host1", 100, TEST_REGION_DEFAULT, true), image("host1", 160, TEST_REGION_DEFAULT, false))
+        );
+
+        assertEquals(1, classifier.classify(input).getModifications().size());
+    }
+
+    @Test
+    void KeepsModificationsThatMoveTheHostIntoTheCurrentRegion(){
+        val input = buildInput(
+                record("MODIFY", image("host1", 100, "us-test-2", false), image("host1", 160, TEST_REGION_DEFAULT, false))
+        );
+
+        assertEquals(1, classifier.classify(input).getModifications().size());
+    }
+
+    @Test
+    void SkipsModificationsThatOnlyExtendTheTtl(){
+        val input = buildInput(
+                record("MODIFY", image("host1", 100, TEST_REGION_DEFAULT, false), image("host1", 160, TEST_REGION_DEFAULT, false)),
+                record("MODIFY", image("host2", 200, TEST_REGION_DEFAULT, false), image("host2", 200, TEST_REGION_DEFAULT, false))
+        );
+
+        val changes = classifier.classify(input);
+
+        assertTrue(changes.getModifications().isEmpty());
+        assertEquals(2, changes.getSkippedCount());
+    }
+
+    @Test
+    void SkipsDuplicatedRecords(){
+        val input = buildInput(
+                record("REMOVE", image("host1", 100, TEST_REGION_DEFAULT, false), null),
+                record("REMOVE", image("host1", 100, TEST_REGION_DEFAULT, false), null)
+        );
+
+        val changes = classifier.classify(input);
+
+        assertEquals(1, changes.getDeletions().size());
+        assertEquals(1, changes.getSkippedCount());
+    }
+
+    @Test
+    void ReadsBooleanAttributes(){
+        val testImage = image("host1", 100, TEST_REGION_DEFAULT, false);
+        testImage.put("is_test", new AttributeValue().withBOOL(true));
+        val input = buildInput(
+                record("INSERT", null, testImage),
+                record("INSERT", null, image("host2", 200, TEST_REGION_DEFAULT, false))
+        );
+
+        val changes = classifier.classify(input);
+
+        assertEquals(1, changes.getInsertions().size());
+        assertEquals("host2", changes.getInsertions().get(0).getHostId());
+    }
+}
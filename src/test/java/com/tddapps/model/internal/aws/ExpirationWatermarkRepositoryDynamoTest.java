@@ -0,0 +1,57 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.ExpirationWatermark;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExpirationWatermarkRepositoryDynamoTest {
+    private final DynamoDBMapper mapper = mock(DynamoDBMapper.class);
+    private final ExpirationWatermarkRepositoryDynamo repository = new ExpirationWatermarkRepositoryDynamo(mapper);
+
+    @Test
+    void ReadsTheWatermarkOfTheRegion() throws DalException {
+        val seededWatermark = new ExpirationWatermark("us-test-1", 1538395800);
+        when(mapper.load(ExpirationWatermark.class, "us-test-1")).thenReturn(seededWatermark);
+
+        assertEquals(seededWatermark, repository.Read("us-test-1"));
+    }
+
+    @Test
+    void ReadReturnsNullWhenThereIsNoWatermark() throws DalException {
+        assertNull(repository.Read("us-test-1"));
+    }
+
+    @Test
+    void SavesTheWatermark() throws DalException {
+        val watermark = new ExpirationWatermark("us-test-1", 1538395800);
+
+        repository.Save(watermark);
+
+        verify(mapper).save(watermark);
+    }
+
+    @Test
+    void ReadFailsWhenTheWatermarkCannotBeRead() {
+        when(mapper.load(ExpirationWatermark.class, "us-test-1")).thenThrow(new AmazonClientException("Read failed"));
+
+        val exception = assertThrows(DalException.class, () -> repository.Read("us-test-1"));
+
+        assertEquals("Read failed", exception.getMessage());
+    }
+
+    @Test
+    void SaveFailsWhenTheWatermarkCannotBeSaved() {
+        val watermark = new ExpirationWatermark("us-test-1", 1538395800);
+        doThrow(new AmazonClientException("Save failed")).when(mapper).save(watermark);
+
+        val exception = assertThrows(DalException.class, () -> repository.Save(watermark));
+
+        assertEquals("Save failed", exception.getMessage());
+    }
+}
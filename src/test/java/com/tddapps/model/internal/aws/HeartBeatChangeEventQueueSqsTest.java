@@ -0,0 +1,91 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartBeatChangeEventQueueSqsTest {
+    private final AmazonSQS sqs = mock(AmazonSQS.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final HeartBeatSerializer serializer = new HeartBeatSerializer();
+    private final HeartBeatChangeEventQueueSqs queue = new HeartBeatChangeEventQueueSqs(sqs, settingsReader, serializer);
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadString(Settings.NOTIFICATION_EVENTS_QUEUE_URL)).thenReturn("http://queue.url");
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult());
+    }
+
+    private static HeartBeatChangeEvent[] events(int count){
+        return Arrays.stream(HeartBeatFactory.Create(count))
+                .map(hb -> new HeartBeatChangeEvent("Hosts missing", hb))
+                .toArray(HeartBeatChangeEvent[]::new);
+    }
+
+    @Test
+    void SendsTheEventsInBatches() {
+        val events = events(13);
+
+        assertEquals(0, queue.Send(events).length);
+
+        val captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqs, times(2)).sendMessageBatch(captor.capture());
+        val requests = captor.getAllValues();
+        assertEquals(10, requests.get(0).getEntries().size());
+        assertEquals(3, requests.get(1).getEntries().size());
+        assertEquals("http://queue.url", requests.get(1).getQueueUrl());
+        val entry = requests.get(1).getEntries().get(2);
+        assertEquals(serializer.toJson(events[12].getHeartBeat()), entry.getMessageBody());
+        assertEquals("Hosts missing", entry.getMessageAttributes().get(HeartBeatChangeEventQueueSqs.EVENT_TYPE_ATTRIBUTE).getStringValue());
+    }
+
+    @Test
+    void SendDoesNothingWhenThereAreNoEvents() {
+        assertEquals(0, queue.Send(events(0)).length);
+
+        verify(sqs, times(0)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void SendReturnsTheEventsThatWereNotSent() {
+        val events = events(13);
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(new SendMessageBatchResult()
+                        .withFailed(new BatchResultErrorEntry().withId("1").withMessage("Throttled")))
+                .thenReturn(new SendMessageBatchResult()
+                        .withFailed(new BatchResultErrorEntry().withId("2").withMessage("Throttled")));
+
+        val result = queue.Send(events);
+
+        assertArrayEquals(new HeartBeatChangeEvent[]{events[1], events[12]}, result);
+    }
+
+    @Test
+    void SendReturnsTheEventsOfTheBatchesThatCouldNotReachTheQueue() {
+        val events = events(13);
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(new SendMessageBatchResult())
+                .thenThrow(new AmazonClientException("Unreachable"));
+
+        val result = queue.Send(events);
+
+        assertArrayEquals(Arrays.copyOfRange(events, 10, 13), result);
+        verify(sqs, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+}
@@ -0,0 +1,75 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.internal.HeartBeatSerializer;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HeartBeatQueueSqsTest {
+    private final AmazonSQS sqs = mock(AmazonSQS.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final HeartBeatSerializer serializer = new HeartBeatSerializer();
+    private final HeartBeatQueueSqs queue = new HeartBeatQueueSqs(sqs, settingsReader, serializer);
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadString(Settings.HEARTBEAT_QUEUE_URL)).thenReturn("http://queue.url");
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult());
+    }
+
+    @Test
+    void SendsTheHeartBeatsInBatches() throws DalException {
+        val heartBeats = HeartBeatFactory.Create(23);
+
+        queue.Send(heartBeats);
+
+        val captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqs, times(3)).sendMessageBatch(captor.capture());
+        val requests = captor.getAllValues();
+        assertEquals(10, requests.get(0).getEntries().size());
+        assertEquals(10, requests.get(1).getEntries().size());
+        assertEquals(3, requests.get(2).getEntries().size());
+        assertEquals("http://queue.url", requests.get(2).getQueueUrl());
+        assertEquals("2", requests.get(2).getEntries().get(2).getId());
+        assertEquals(serializer.toJson(heartBeats[22]), requests.get(2).getEntries().get(2).getMessageBody());
+    }
+
+    @Test
+    void SendDoesNothingWhenThereAreNoHeartBeats() throws DalException {
+        queue.Send(HeartBeatFactory.Create(0));
+
+        verify(sqs, times(0)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void SendFailsWhenSomeMessagesAreNotSent() {
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult()
+                .withFailed(new BatchResultErrorEntry().withId("1").withMessage("Throttled")));
+
+        val exception = assertThrows(DalException.class, () -> queue.Send(HeartBeatFactory.Create(2)));
+
+        assertEquals("HeartBeat Send Failed; failedCount: 1; Throttled", exception.getMessage());
+    }
+
+    @Test
+    void SendWrapsClientErrors() {
+        when(sqs.sendMessageBatch(any(SendMessageBatchRequest.class))).thenThrow(new AmazonClientException("Network error"));
+
+        val exception = assertThrows(DalException.class, () -> queue.Send(HeartBeatFactory.Create(2)));
+
+        assertEquals("Network error", exception.getMessage());
+    }
+}
@@ -2,9 +2,13 @@ package com.tddapps.model.internal.aws;
 
 import cloud.localstack.docker.LocalstackDockerExtension;
 import cloud.localstack.docker.annotation.LocalstackDockerProperties;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.tddapps.model.DalException;
 import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.Sleeper;
 import com.tddapps.model.internal.aws.test.DynamoIntegrationTestHelper;
 import com.tddapps.model.internal.aws.test.TestEnvironment;
 import lombok.val;
@@ -24,6 +28,7 @@ import static com.tddapps.model.heartbeats.test.HeartBeatListTestHelper.ShouldMa
 import static com.tddapps.utils.DateExtensions.EpochSecondsNow;
 import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(LocalstackDockerExtension.class)
 @LocalstackDockerProperties(services = { "dynamodb" }, environmentVariableProvider = TestEnvironment.class)
@@ -35,7 +40,7 @@ class HeartBeatRepositoryDynamoIntegrationTest {
         DynamoIntegrationTestHelper.ResetDatabase();
 
         val dbMapper = DynamoIntegrationTestHelper.createMapper();
-        repository = new HeartBeatRepositoryDynamo(dbMapper);
+        repository = new HeartBeatRepositoryDynamo(dbMapper, mock(AmazonDynamoDB.class), mock(SettingsReader.class), mock(Sleeper.class), mock(MetricsRecorder.class));
     }
 
     @Test
@@ -1,11 +1,331 @@
 package com.tddapps.model.internal.aws;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.ExpirationMinuteShards;
+import com.tddapps.model.heartbeats.HeartBeat;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import com.tddapps.model.infrastructure.MetricUnit;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.utils.Sleeper;
+import lombok.val;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 class HeartBeatRepositoryDynamoTest {
+    private final AmazonDynamoDB client = mock(AmazonDynamoDB.class);
+    private final DynamoDBMapper mapper = spy(new DynamoDBMapper(client));
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final Sleeper sleeper = mock(Sleeper.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final HeartBeatRepositoryDynamo repository = new HeartBeatRepositoryDynamo(mapper, client, settingsReader, sleeper, metrics);
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadString(Settings.TABLE_PREFIX)).thenReturn("prefix-");
+        doReturn(new ArrayList<>()).when(mapper).batchWrite(anyList(), anyList());
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class))).thenReturn(new BatchWriteItemResult());
+    }
+
     @Test
     void HasAMaximumBatchSizeOfTwentyFive(){
         Assertions.assertEquals(25, HeartBeatRepositoryDynamo.DYNAMO_MAX_BATCH_SIZE);
     }
+
+    @Test
+    void SaveRecordsTheBatchSizesAndTheUnprocessedItems() throws DalException {
+        doReturn(Collections.singletonList(failedBatch(unprocessedItems("host1", "host2")))).when(mapper).batchWrite(anyList(), anyList());
+
+        repository.Save(HeartBeatFactory.Create(3));
+
+        verify(metrics).Record("DynamoBatchSize", 3, MetricUnit.COUNT);
+        verify(metrics).Record("DynamoUnprocessedItems", 2, MetricUnit.COUNT);
+    }
+
+    @Test
+    void SaveRetriesTheUnprocessedItems() throws DalException, InterruptedException {
+        val heartBeats = HeartBeatFactory.Create(3);
+        doReturn(Collections.singletonList(failedBatch(unprocessedItems(heartBeats[0].getHostId(), heartBeats[2].getHostId()))))
+                .when(mapper).batchWrite(anyList(), anyList());
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(new BatchWriteItemResult().withUnprocessedItems(unprocessedItems(heartBeats[2].getHostId())))
+                .thenReturn(new BatchWriteItemResult());
+
+        assertEquals(0, repository.Save(heartBeats).length);
+
+        val captor = ArgumentCaptor.forClass(BatchWriteItemRequest.class);
+        verify(client, times(2)).batchWriteItem(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).getRequestItems().get("heartbeats").size());
+        assertEquals(1, captor.getAllValues().get(1).getRequestItems().get("heartbeats").size());
+        verify(sleeper, times(2)).Sleep(anyLong());
+        verify(metrics).Record("DynamoUnsavedItems", 0, MetricUnit.COUNT);
+    }
+
+    @Test
+    void SaveReturnsTheHeartBeatsThatRemainUnprocessedAfterRetrying() throws DalException {
+        val heartBeats = HeartBeatFactory.Create(3);
+        val unprocessed = unprocessedItems(heartBeats[1].getHostId());
+        doReturn(Collections.singletonList(failedBatch(unprocessed))).when(mapper).batchWrite(anyList(), anyList());
+        when(client.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(new BatchWriteItemResult().withUnprocessedItems(unprocessed));
+
+        val result = repository.Save(heartBeats);
+
+        assertArrayEquals(new HeartBeat[]{heartBeats[1]}, result);
+        verify(client, times(HeartBeatRepositoryDynamo.UNPROCESSED_ITEMS_MAX_RETRIES)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(metrics).Record("DynamoUnsavedItems", 1, MetricUnit.COUNT);
+    }
+
+    @Test
+    void SaveDoesNotRetryWhenAllTheItemsWereProcessed() throws DalException, InterruptedException {
+        assertEquals(0, repository.Save(HeartBeatFactory.Create(3)).length);
+
+        verify(client, times(0)).batchWriteItem(any(BatchWriteItemRequest.class));
+        verify(sleeper, times(0)).Sleep(anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void SaveWritesInBatchesWhenConditionalWritesAreDisabled() throws DalException {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(0);
+
+        repository.Save(HeartBeatFactory.Create(30));
+
+        val captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper, times(2)).batchWrite(captor.capture(), anyList());
+        assertEquals(25, captor.getAllValues().get(0).size());
+        assertEquals(5, captor.getAllValues().get(1).size());
+        verify(client, times(0)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void SaveShardsTheExpirationMinuteOfTheHeartBeats() throws DalException {
+        when(settingsReader.ReadInt(Settings.EXPIRATION_MINUTE_SHARDS, 1)).thenReturn(4);
+        val heartBeats = HeartBeatFactory.Create(3);
+        val expirationMinutes = Arrays.stream(heartBeats)
+                .map(HeartBeat::getExpirationMinuteUtc)
+                .toArray(String[]::new);
+
+        repository.Save(heartBeats);
+
+        val captor = ArgumentCaptor.forClass(List.class);
+        verify(mapper).batchWrite(captor.capture(), anyList());
+        val savedHeartBeats = (List<HeartBeat>) captor.getValue();
+        for (int i = 0; i < heartBeats.length; i++) {
+            assertEquals(ExpirationMinuteShards.Shard(heartBeats[i], 4), savedHeartBeats.get(i));
+            assertTrue(savedHeartBeats.get(i).getExpirationMinuteUtc().startsWith(expirationMinutes[i] + "#"));
+            assertEquals(expirationMinutes[i], heartBeats[i].getExpirationMinuteUtc());
+        }
+    }
+
+    @Test
+    void SaveWritesEachHeartBeatOnlyWhenItChangesMeaningfully() throws DalException {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(30);
+        val heartBeat = HeartBeatFactory.Create("host1");
+        heartBeat.setTtl(1000);
+        heartBeat.setRegion("us-test-2");
+        heartBeat.setTest(true);
+
+        repository.Save(new HeartBeat[]{heartBeat});
+
+        val captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(client).putItem(captor.capture());
+        verify(mapper, times(0)).batchWrite(anyList(), anyList());
+
+        val request = captor.getValue();
+        assertEquals("prefix-heartbeats", request.getTableName());
+        assertEquals(new AttributeValue().withS("host1"), request.getItem().get("host_id"));
+        assertEquals(new AttributeValue().withN("1000"), request.getItem().get("ttl"));
+        assertEquals(
+                "attribute_not_exists(#hostId) OR #ttl < :minTtl OR #ttl > :ttl OR #region <> :region OR #isTest <> :isTest",
+                request.getConditionExpression()
+        );
+        assertEquals("host_id", request.getExpressionAttributeNames().get("#hostId"));
+        assertEquals("ttl", request.getExpressionAttributeNames().get("#ttl"));
+        assertEquals("region", request.getExpressionAttributeNames().get("#region"));
+        assertEquals("is_test", request.getExpressionAttributeNames().get("#isTest"));
+        assertEquals(new AttributeValue().withN("970"), request.getExpressionAttributeValues().get(":minTtl"));
+        assertEquals(new AttributeValue().withN("1000"), request.getExpressionAttributeValues().get(":ttl"));
+        assertEquals(new AttributeValue().withS("us-test-2"), request.getExpressionAttributeValues().get(":region"));
+        assertEquals(new AttributeValue().withN("1"), request.getExpressionAttributeValues().get(":isTest"));
+    }
+
+    @Test
+    void SaveSkipsTheHeartBeatsThatDidNotChangeMeaningfully() throws DalException {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(30);
+        val heartBeats = HeartBeatFactory.Create(3);
+        when(client.putItem(any(PutItemRequest.class)))
+                .thenReturn(null)
+                .thenThrow(new ConditionalCheckFailedException("skip"))
+                .thenReturn(null);
+
+        repository.Save(heartBeats);
+
+        verify(client, times(3)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void SaveWritesAFullBatchConditionally() throws DalException {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(30);
+        when(client.putItem(any(PutItemRequest.class)))
+                .thenAnswer(i -> {
+                    val hostId = ((PutItemRequest) i.getArgument(0)).getItem().get("host_id").getS();
+                    if (hostId.hashCode() % 2 == 0){
+                        throw new ConditionalCheckFailedException("skip");
+                    }
+                    return null;
+                });
+        val heartBeats = HeartBeatFactory.Create(1000);
+        val skippedCount = (int) Arrays.stream(heartBeats)
+                .filter(hb -> hb.getHostId().hashCode() % 2 == 0)
+                .count();
+
+        assertEquals(0, repository.Save(heartBeats).length);
+
+        val captor = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(client, times(1000)).putItem(captor.capture());
+        assertEquals(
+                Arrays.stream(heartBeats).map(HeartBeat::getHostId).collect(Collectors.toSet()),
+                captor.getAllValues().stream().map(r -> r.getItem().get("host_id").getS()).collect(Collectors.toSet())
+        );
+        verify(metrics).Record("DynamoConditionalWrites", 1000, MetricUnit.COUNT);
+        verify(metrics).Record("DynamoConditionalWritesSkipped", skippedCount, MetricUnit.COUNT);
+    }
+
+    @Test
+    void SaveIssuesTheConditionalWritesConcurrently() throws DalException {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(30);
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_CONCURRENCY, HeartBeatRepositoryDynamo.DEFAULT_CONDITIONAL_WRITE_CONCURRENCY)).thenReturn(4);
+        val concurrentRepository = new HeartBeatRepositoryDynamo(mapper, client, settingsReader, sleeper, metrics);
+        val allStarted = new CountDownLatch(4);
+        when(client.putItem(any(PutItemRequest.class))).thenAnswer(i -> {
+            allStarted.countDown();
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            return null;
+        });
+
+        assertEquals(0, concurrentRepository.Save(HeartBeatFactory.Create(4)).length);
+
+        verify(client, times(4)).putItem(any(PutItemRequest.class));
+    }
+
+    @Test
+    void SaveFailsWhenTheConditionalWriteFails() {
+        when(settingsReader.ReadInt(Settings.CONDITIONAL_WRITE_THRESHOLD_SECONDS, 0)).thenReturn(30);
+        when(client.putItem(any(PutItemRequest.class))).thenThrow(new AmazonClientException("Throttled"));
+
+        val exception = assertThrows(DalException.class, () -> repository.Save(HeartBeatFactory.Create(2)));
+
+        assertEquals("Throttled", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ReadStartsAfterTheGivenHeartBeat() throws DalException {
+        val startAfter = new HeartBeat("host1", 1000, "us-test-2", false);
+        val seededHeartBeats = HeartBeatFactory.Create(3);
+        doReturn(queryResultPage(seededHeartBeats))
+                .when(mapper).queryPage(eq(HeartBeat.class), any(DynamoDBQueryExpression.class));
+
+        val page = repository.Read("minute1", 10, startAfter);
+
+        assertArrayEquals(seededHeartBeats, page.getHeartBeats());
+        assertNull(page.getLastEvaluated());
+
+        val captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(mapper).queryPage(eq(HeartBeat.class), captor.capture());
+        val query = captor.getValue();
+        assertEquals(10, query.getLimit());
+        assertEquals("ExpirationMinuteIndex", query.getIndexName());
+        assertEquals(new AttributeValue().withS("minute1"), query.getExpressionAttributeValues().get(":val1"));
+        assertEquals(3, query.getExclusiveStartKey().size());
+        assertEquals(new AttributeValue().withS("host1"), query.getExclusiveStartKey().get("host_id"));
+        assertEquals(new AttributeValue().withS(startAfter.getExpirationMinuteUtc()), query.getExclusiveStartKey().get("expiration_minute_utc"));
+        assertEquals(new AttributeValue().withN("1000"), query.getExclusiveStartKey().get("ttl"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ReadStartsFromTheBeginningByDefault() throws DalException {
+        doReturn(queryResultPage())
+                .when(mapper).queryPage(eq(HeartBeat.class), any(DynamoDBQueryExpression.class));
+
+        assertEquals(0, repository.Read("minute1", 10).length);
+
+        val captor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(mapper).queryPage(eq(HeartBeat.class), captor.capture());
+        assertNull(captor.getValue().getExclusiveStartKey());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ReadReturnsTheLastEvaluatedKeyOfThePage() throws DalException {
+        val seededHeartBeats = HeartBeatFactory.Create(2);
+        val resultPage = queryResultPage(seededHeartBeats);
+        resultPage.setLastEvaluatedKey(new HashMap<String, AttributeValue>() {{
+            put("host_id", new AttributeValue().withS("host7"));
+            put("expiration_minute_utc", new AttributeValue().withS("minute1#3"));
+            put("ttl", new AttributeValue().withN("1500"));
+        }});
+        doReturn(resultPage)
+                .when(mapper).queryPage(eq(HeartBeat.class), any(DynamoDBQueryExpression.class));
+
+        val page = repository.Read("minute1", 10, null);
+
+        assertArrayEquals(seededHeartBeats, page.getHeartBeats());
+        assertEquals("host7", page.getLastEvaluated().getHostId());
+        assertEquals("minute1#3", page.getLastEvaluated().getExpirationMinuteUtc());
+        assertEquals(1500, page.getLastEvaluated().getTtl());
+    }
+
+    private static QueryResultPage<HeartBeat> queryResultPage(HeartBeat... heartBeats){
+        val result = new QueryResultPage<HeartBeat>();
+        result.setResults(Arrays.asList(heartBeats));
+        return result;
+    }
+
+    private static DynamoDBMapper.FailedBatch failedBatch(Map<String, List<WriteRequest>> unprocessedItems) {
+        val result = new DynamoDBMapper.FailedBatch();
+        result.setUnprocessedItems(unprocessedItems);
+        return result;
+    }
+
+    private static Map<String, List<WriteRequest>> unprocessedItems(String... hostIds) {
+        val requests = Arrays.stream(hostIds)
+                .map(hostId -> new WriteRequest(new PutRequest(Collections.singletonMap("host_id", new AttributeValue().withS(hostId)))))
+                .collect(Collectors.toList());
+
+        return new HashMap<String, List<WriteRequest>>() {{
+            put("heartbeats", requests);
+        }};
+    }
 }
@@ -0,0 +1,108 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedScanList;
+import com.tddapps.model.DalException;
+import com.tddapps.model.heartbeats.HostTransition;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HostTransitionRepositoryDynamoTest {
+    private final DynamoDBMapper mapper = mock(DynamoDBMapper.class);
+    private final HostTransitionRepositoryDynamo repository = new HostTransitionRepositoryDynamo(mapper);
+
+    private static HostTransition[] transitions(int count){
+        return IntStream.range(0, count)
+                .mapToObj(i -> new HostTransition(String.format("host%d", i), "Hosts missing", 100, false, 0, 400, "50"))
+                .toArray(HostTransition[]::new);
+    }
+
+    @Test
+    void ReadsTheTransitionsByHostId() throws DalException {
+        val transition = new HostTransition("host2", "Hosts missing", 100, true, 1, 400, "50");
+        when(mapper.batchLoad(anyList())).thenReturn(new HashMap<String, List<Object>>(){{
+            put("host_transitions", Arrays.asList(transition));
+        }});
+
+        val result = repository.Read(new String[]{"host1", "host2", "host2"});
+
+        assertEquals(1, result.size());
+        assertEquals(transition, result.get("host2"));
+    }
+
+    @Test
+    void ReadsInBatchesOfOneHundred() throws DalException {
+        when(mapper.batchLoad(anyList())).thenReturn(new HashMap<>());
+        val hostIds = IntStream.range(0, 201)
+                .mapToObj(i -> String.format("host%d", i))
+                .toArray(String[]::new);
+
+        assertTrue(repository.Read(hostIds).isEmpty());
+
+        verify(mapper, times(3)).batchLoad(anyList());
+    }
+
+    @Test
+    void SavesInBatchesOfTwentyFive() throws DalException {
+        repository.Save(transitions(30));
+
+        verify(mapper, times(2)).batchWrite(anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ReadsTheFlappingTransitions() throws DalException {
+        val transition = new HostTransition("host2", "Hosts missing", 100, true, 1, 400, "50");
+        val page = (PaginatedScanList<HostTransition>) mock(PaginatedScanList.class);
+        when(page.toArray(any(HostTransition[].class))).thenReturn(new HostTransition[]{transition});
+        when(mapper.scan(eq(HostTransition.class), any(DynamoDBScanExpression.class))).thenReturn(page);
+        val expression = ArgumentCaptor.forClass(DynamoDBScanExpression.class);
+
+        assertArrayEquals(new HostTransition[]{transition}, repository.ReadFlapping());
+
+        verify(mapper).scan(eq(HostTransition.class), expression.capture());
+        assertEquals("is_flapping = :flapping", expression.getValue().getFilterExpression());
+        assertEquals("1", expression.getValue().getExpressionAttributeValues().get(":flapping").getN());
+    }
+
+    @Test
+    void ReadFlappingFailsWhenTheTransitionsCannotBeScanned() {
+        when(mapper.scan(eq(HostTransition.class), any(DynamoDBScanExpression.class))).thenThrow(new AmazonClientException("Scan failed"));
+
+        val exception = assertThrows(DalException.class, repository::ReadFlapping);
+
+        assertEquals("Scan failed", exception.getMessage());
+    }
+
+    @Test
+    void ReadFailsWhenTheTransitionsCannotBeRead() {
+        when(mapper.batchLoad(anyList())).thenThrow(new AmazonClientException("Read failed"));
+
+        val exception = assertThrows(DalException.class, () -> repository.Read(new String[]{"host1"}));
+
+        assertEquals("Read failed", exception.getMessage());
+    }
+
+    @Test
+    void SaveFailsWhenTheTransitionsCannotBeSaved() {
+        when(mapper.batchWrite(anyList(), anyList())).thenThrow(new AmazonClientException("Save failed"));
+
+        val exception = assertThrows(DalException.class, () -> repository.Save(transitions(1)));
+
+        assertEquals("Save failed", exception.getMessage());
+    }
+}
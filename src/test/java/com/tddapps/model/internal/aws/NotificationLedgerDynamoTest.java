@@ -0,0 +1,95 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.tddapps.model.DalException;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.tddapps.utils.DateExtensions.EpochSecondsNow;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class NotificationLedgerDynamoTest {
+    private final DynamoDBMapper mapper = mock(DynamoDBMapper.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final NotificationLedgerDynamo ledger = new NotificationLedgerDynamo(mapper, settingsReader);
+
+    private static String[] ids(int count){
+        return IntStream.range(0, count)
+                .mapToObj(i -> String.format("id%d", i))
+                .toArray(String[]::new);
+    }
+
+    @Test
+    void ReadSentReturnsTheIdsFoundInTheLedger() throws DalException {
+        when(mapper.batchLoad(anyList())).thenReturn(new HashMap<String, List<Object>>(){{
+            put("notification_ledger", Arrays.asList(
+                    new NotificationLedgerEntry("id1", 100),
+                    new NotificationLedgerEntry("id3", 100)
+            ));
+        }});
+
+        val result = ledger.ReadSent(ids(4));
+
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id3")), result);
+    }
+
+    @Test
+    void ReadSentLoadsInBatchesOfOneHundred() throws DalException {
+        when(mapper.batchLoad(anyList())).thenReturn(new HashMap<>());
+
+        assertTrue(ledger.ReadSent(ids(250)).isEmpty());
+
+        verify(mapper, times(3)).batchLoad(anyList());
+    }
+
+    @Test
+    void ReadSentFailsWhenTheLedgerCannotBeRead() {
+        when(mapper.batchLoad(anyList())).thenThrow(new AmazonClientException("Read failed"));
+
+        val exception = assertThrows(DalException.class, () -> ledger.ReadSent(ids(1)));
+
+        assertEquals("Read failed", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void SaveWritesTheEntriesWithATtl() throws DalException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_LEDGER_TTL_SECONDS, NotificationLedgerDynamo.DEFAULT_TTL_SECONDS))
+                .thenReturn(3600);
+        val captor = ArgumentCaptor.forClass(List.class);
+
+        ledger.Save(ids(30));
+
+        verify(mapper, times(2)).batchWrite(captor.capture(), anyList());
+        val saved = ((List<List<NotificationLedgerEntry>>)(List<?>)captor.getAllValues())
+                .stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        assertEquals(30, saved.size());
+        assertEquals("id0", saved.get(0).getNotificationId());
+        assertEquals("id29", saved.get(29).getNotificationId());
+        for (val entry : saved){
+            assertTrue(Math.abs(EpochSecondsNow() + 3600 - entry.getTtl()) <= 5);
+        }
+    }
+
+    @Test
+    void SaveFailsWhenTheLedgerCannotBeWritten() {
+        when(mapper.batchWrite(anyList(), anyList())).thenThrow(new AmazonClientException("Save failed"));
+
+        val exception = assertThrows(DalException.class, () -> ledger.Save(ids(1)));
+
+        assertEquals("Save failed", exception.getMessage());
+    }
+}
@@ -0,0 +1,185 @@
+package com.tddapps.model.internal.aws;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.sns.AmazonSNS;
+import com.amazonaws.services.sns.model.BatchResultErrorEntry;
+import com.amazonaws.services.sns.model.ListTopicsResult;
+import com.amazonaws.services.sns.model.PublishBatchRequest;
+import com.amazonaws.services.sns.model.PublishBatchRequestEntry;
+import com.amazonaws.services.sns.model.PublishBatchResult;
+import com.amazonaws.services.sns.model.PublishBatchResultEntry;
+import com.amazonaws.services.sns.model.Topic;
+import com.tddapps.model.DalException;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.Notification;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationSenderSnsTest {
+    private final AmazonSNS sns = mock(AmazonSNS.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final NotificationSenderSns sender = new NotificationSenderSns(sns, settingsReader, metrics);
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadString(Settings.TOPIC_NAME)).thenReturn("topic1");
+    }
+
+    @Test
+    void SendPublishesTheNotificationUsingTheSharedClient() throws DalException {
+        sender.Send(new Notification("subject1", "message1"));
+        sender.Send(new Notification("subject2", "message2"));
+
+        verify(sns).publish("topic1", "message1", "subject1");
+        verify(sns).publish("topic1", "message2", "subject2");
+    }
+
+    @Test
+    void SendFailsWhenTheNotificationCannotBePublished() {
+        when(sns.publish(any(String.class), any(String.class), any(String.class)))
+                .thenThrow(new AmazonClientException("Publish failed"));
+
+        val exception = assertThrows(DalException.class, () -> sender.Send(new Notification("subject1", "message1")));
+
+        assertEquals("Publish failed", exception.getMessage());
+    }
+
+    @Test
+    void SendBatchPublishesUpToTenNotificationsPerRequest() {
+        when(sns.publishBatch(any(PublishBatchRequest.class))).then(i -> succeedAll(i.getArgument(0)));
+        val notifications = IntStream.range(0, 25)
+                .mapToObj(i -> new Notification("subject" + i, "message" + i))
+                .toArray(Notification[]::new);
+
+        val result = sender.SendBatch(notifications, Long.MAX_VALUE);
+
+        val requests = captureRequests(3);
+        assertEquals(Arrays.asList(10, 10, 5), requests.stream()
+                .map(r -> r.getPublishBatchRequestEntries().size())
+                .collect(Collectors.toList()));
+        assertEquals("topic1", requests.get(0).getTopicArn());
+        val lastEntry = requests.get(2).getPublishBatchRequestEntries().get(4);
+        assertEquals("24", lastEntry.getId());
+        assertEquals("subject24", lastEntry.getSubject());
+        assertEquals("message24", lastEntry.getMessage());
+        for (val sent : result){
+            assertTrue(sent);
+        }
+    }
+
+    @Test
+    void SendBatchKeepsEachRequestWithinThePayloadLimit() {
+        when(sns.publishBatch(any(PublishBatchRequest.class))).then(i -> succeedAll(i.getArgument(0)));
+        val message = String.join("", Collections.nCopies(100 * 1024, "x"));
+        val notifications = new Notification[]{
+                new Notification("subject1", message),
+                new Notification("subject2", message),
+                new Notification("subject3", message)
+        };
+
+        val result = sender.SendBatch(notifications, Long.MAX_VALUE);
+
+        val requests = captureRequests(2);
+        assertEquals(2, requests.get(0).getPublishBatchRequestEntries().size());
+        assertEquals(1, requests.get(1).getPublishBatchRequestEntries().size());
+        assertArrayEquals(new boolean[]{true, true, true}, result);
+    }
+
+    @Test
+    void SendBatchReportsTheFailedEntries() {
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenReturn(new PublishBatchResult()
+                .withSuccessful(new PublishBatchResultEntry().withId("0"), new PublishBatchResultEntry().withId("2"))
+                .withFailed(new BatchResultErrorEntry().withId("1").withCode("InternalError")));
+
+        val result = sender.SendBatch(new Notification[]{
+                new Notification("subject1", "message1"),
+                new Notification("subject2", "message2"),
+                new Notification("subject3", "message3")
+        }, Long.MAX_VALUE);
+
+        assertArrayEquals(new boolean[]{true, false, true}, result);
+    }
+
+    @Test
+    void SendBatchDoesNotPublishAfterTheDeadline() {
+        val result = sender.SendBatch(new Notification[]{
+                new Notification("subject1", "message1")
+        }, System.nanoTime());
+
+        assertArrayEquals(new boolean[]{false}, result);
+        verify(sns, never()).publishBatch(any(PublishBatchRequest.class));
+    }
+
+    @Test
+    void SendBatchContinuesAfterARequestFails() {
+        when(sns.publishBatch(any(PublishBatchRequest.class)))
+                .thenThrow(new AmazonClientException("Publish failed"))
+                .then(i -> succeedAll(i.getArgument(0)));
+        val notifications = IntStream.range(0, 12)
+                .mapToObj(i -> new Notification("subject" + i, "message" + i))
+                .toArray(Notification[]::new);
+
+        val result = sender.SendBatch(notifications, Long.MAX_VALUE);
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(result[i]);
+        }
+        assertTrue(result[10]);
+        assertTrue(result[11]);
+    }
+
+    @Test
+    void SendBatchDoesNothingWhenThereAreNoNotifications() {
+        val result = sender.SendBatch(new Notification[0], Long.MAX_VALUE);
+
+        assertEquals(0, result.length);
+        verify(sns, never()).publishBatch(any(PublishBatchRequest.class));
+    }
+
+    @Test
+    void VerifySucceedsWhenThereIsATopic() throws DalException {
+        when(sns.listTopics()).thenReturn(new ListTopicsResult().withTopics(new Topic().withTopicArn("arn1")));
+
+        sender.Verify();
+    }
+
+    @Test
+    void VerifyFailsWhenThereAreNoTopics() {
+        when(sns.listTopics()).thenReturn(new ListTopicsResult());
+
+        val exception = assertThrows(DalException.class, sender::Verify);
+
+        assertEquals("Topic Arn could not be read", exception.getMessage());
+    }
+
+    private static PublishBatchResult succeedAll(PublishBatchRequest request) {
+        val successful = new ArrayList<PublishBatchResultEntry>();
+        for (val entry : request.getPublishBatchRequestEntries()){
+            successful.add(new PublishBatchResultEntry().withId(entry.getId()));
+        }
+
+        return new PublishBatchResult().withSuccessful(successful);
+    }
+
+    private List<PublishBatchRequest> captureRequests(int count) {
+        val captor = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns, times(count)).publishBatch(captor.capture());
+        return captor.getAllValues();
+    }
+}
@@ -1,21 +0,0 @@
-package com.tddapps.model.internal.aws.test;
-
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@DynamoDBTable(tableName = "event-data-test")
-public class EventData {
-    @DynamoDBHashKey(attributeName = "id")
-    private String id;
-    @DynamoDBAttribute(attributeName = "capacity")
-    private long capacity;
-    @DynamoDBAttribute(attributeName = "is_sold")
-    private boolean isSold;
-}
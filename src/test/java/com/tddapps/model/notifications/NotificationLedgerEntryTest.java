@@ -0,0 +1,49 @@
+package com.tddapps.model.notifications;
+
+import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
+import com.tddapps.model.heartbeats.test.HeartBeatFactory;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class NotificationLedgerEntryTest {
+    private final HeartBeatChangeEvent event = event("Hosts missing", "host1", "100");
+
+    private static HeartBeatChangeEvent event(String type, String hostId, String sequenceNumber){
+        val result = new HeartBeatChangeEvent(type, HeartBeatFactory.Create(hostId));
+        result.setSequenceNumber(sequenceNumber);
+        return result;
+    }
+
+    @Test
+    void BuildsTheSameIdForTheSameEvent(){
+        assertEquals(
+                NotificationLedgerEntry.BuildId(event),
+                NotificationLedgerEntry.BuildId(event("Hosts missing", "host1", "100"))
+        );
+        assertEquals(64, NotificationLedgerEntry.BuildId(event).length());
+    }
+
+    @Test
+    void BuildsDifferentIdsForDifferentEvents(){
+        assertNotEquals(
+                NotificationLedgerEntry.BuildId(event),
+                NotificationLedgerEntry.BuildId(event("Hosts missing", "host1", "200"))
+        );
+        assertNotEquals(
+                NotificationLedgerEntry.BuildId(event),
+                NotificationLedgerEntry.BuildId(event("Hosts registered", "host1", "100"))
+        );
+        assertNotEquals(
+                NotificationLedgerEntry.BuildId(event),
+                NotificationLedgerEntry.BuildId(event("Hosts missing", "host2", "100"))
+        );
+    }
+
+    @Test
+    void BuildsAnIdForEventsWithoutASequenceNumber(){
+        assertEquals(64, NotificationLedgerEntry.BuildId(event("Hosts missing", "host1", null)).length());
+    }
+}
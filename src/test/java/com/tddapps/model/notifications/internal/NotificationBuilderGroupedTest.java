@@ -4,10 +4,15 @@ import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
 import com.tddapps.model.heartbeats.test.HeartBeatFactory;
 import com.tddapps.model.notifications.HeartBeatNotificationBuilder;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
 import com.tddapps.model.notifications.test.HeartBeatNotificationBuilderOneToOneStub;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
 import static com.tddapps.utils.DateExtensions.EpochSecondsNow;
 import static com.tddapps.utils.DateExtensions.ToReverseUtcMinuteString;
@@ -67,4 +72,42 @@ class NotificationBuilderGroupedTest {
         assertEquals("SS-host4", notifications[3].getSubject());
         assertEquals("MM-host4-created", notifications[3].getMessage());
     }
+
+    @Test
+    void TracesTheNotificationsBackToTheSourceRecords(){
+        val input = new HeartBeatChangeEvent[]{
+                new HeartBeatChangeEvent("deleted", HeartBeatFactory.Create("host1")),
+                new HeartBeatChangeEvent("deleted", HeartBeatFactory.Create("host2")),
+                new HeartBeatChangeEvent("created", HeartBeatFactory.Create("host3"))
+        };
+        input[0].setSequenceNumber("100");
+        input[1].setSequenceNumber("200");
+        input[2].setSequenceNumber("300");
+
+        val notifications = builder.build(input);
+
+        assertEquals(Collections.singletonList("100"), notifications[0].getSourceSequenceNumbers());
+        assertEquals(Collections.singletonList("200"), notifications[1].getSourceSequenceNumbers());
+        assertEquals(Collections.singletonList("300"), notifications[2].getSourceSequenceNumbers());
+        assertEquals(Collections.singletonList(NotificationLedgerEntry.BuildId(input[0])), notifications[0].getSourceEventIds());
+        assertEquals(Collections.singletonList(NotificationLedgerEntry.BuildId(input[1])), notifications[1].getSourceEventIds());
+        assertEquals(Collections.singletonList(NotificationLedgerEntry.BuildId(input[2])), notifications[2].getSourceEventIds());
+    }
+
+    @Test
+    void TracesTheNotificationsWithoutHostsBackToTheWholeGroup(){
+        val groupedBuilder = new NotificationBuilderGrouped((metadata, heartBeats) ->
+                new Notification[]{ new Notification(metadata.getSubject(), String.valueOf(heartBeats.length)) });
+        val input = new HeartBeatChangeEvent[]{
+                new HeartBeatChangeEvent("deleted", HeartBeatFactory.Create("host1")),
+                new HeartBeatChangeEvent("deleted", HeartBeatFactory.Create("host2"))
+        };
+        input[0].setSequenceNumber("100");
+        input[1].setSequenceNumber("200");
+
+        val notifications = groupedBuilder.build(input);
+
+        assertEquals(Arrays.asList("100", "200"), notifications[0].getSourceSequenceNumbers());
+        assertEquals(2, notifications[0].getSourceEventIds().size());
+    }
 }
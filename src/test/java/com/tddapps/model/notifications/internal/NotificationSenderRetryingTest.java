@@ -0,0 +1,233 @@
+package com.tddapps.model.notifications.internal;
+
+import com.tddapps.model.DalException;
+import com.tddapps.model.infrastructure.MetricsRecorder;
+import com.tddapps.model.infrastructure.Settings;
+import com.tddapps.model.infrastructure.SettingsReader;
+import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationSender;
+import com.tddapps.utils.Sleeper;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static com.tddapps.model.notifications.internal.NotificationSenderRetrying.CircuitState.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NotificationSenderRetryingTest {
+    private final NotificationSender sender = mock(NotificationSender.class);
+    private final SettingsReader settingsReader = mock(SettingsReader.class);
+    private final Sleeper sleeper = mock(Sleeper.class);
+    private final MetricsRecorder metrics = mock(MetricsRecorder.class);
+    private final NotificationSenderRetrying retryingSender = new NotificationSenderRetrying(sender, settingsReader, sleeper, metrics);
+
+    private final Notification notification1 = new Notification("subject1", "message1");
+    private final Notification notification2 = new Notification("subject2", "message2");
+    private final Notification notification3 = new Notification("subject3", "message3");
+
+    @BeforeEach
+    void Setup(){
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_MAX_ATTEMPTS, NotificationSenderRetrying.DEFAULT_MAX_ATTEMPTS)).thenReturn(3);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_RETRY_BASE_DELAY_MS, NotificationSenderRetrying.DEFAULT_BASE_DELAY_MS)).thenReturn(100);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_RETRY_MAX_DELAY_MS, NotificationSenderRetrying.DEFAULT_MAX_DELAY_MS)).thenReturn(150);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD, NotificationSenderRetrying.DEFAULT_CIRCUIT_FAILURE_THRESHOLD)).thenReturn(2);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, NotificationSenderRetrying.DEFAULT_CIRCUIT_OPEN_MS)).thenReturn(60000);
+    }
+
+    @Test
+    void SendBatchSendsAllTheNotificationsAtOnce() throws InterruptedException {
+        when(sender.SendBatch(any(Notification[].class), eq(100L))).thenReturn(new boolean[]{true, true});
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1, notification2}, 100L);
+
+        assertArrayEquals(new boolean[]{true, true}, result);
+        verify(sender).SendBatch(new Notification[]{notification1, notification2}, 100L);
+        verify(sleeper, never()).Sleep(anyLong());
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+    }
+
+    @Test
+    void SendBatchRetriesOnlyTheFailedNotifications() throws InterruptedException {
+        when(sender.SendBatch(new Notification[]{notification1, notification2, notification3}, Long.MAX_VALUE))
+                .thenReturn(new boolean[]{true, false, false});
+        when(sender.SendBatch(new Notification[]{notification2, notification3}, Long.MAX_VALUE))
+                .thenReturn(new boolean[]{false, true});
+        when(sender.SendBatch(new Notification[]{notification2}, Long.MAX_VALUE))
+                .thenReturn(new boolean[]{true});
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1, notification2, notification3}, Long.MAX_VALUE);
+
+        assertArrayEquals(new boolean[]{true, true, true}, result);
+        verify(sleeper, times(2)).Sleep(anyLong());
+    }
+
+    @Test
+    void SendBatchStopsAfterTheMaxAttempts() throws InterruptedException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD, NotificationSenderRetrying.DEFAULT_CIRCUIT_FAILURE_THRESHOLD)).thenReturn(10);
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+
+        assertArrayEquals(new boolean[]{false}, result);
+        verify(sender, times(3)).SendBatch(any(Notification[].class), anyLong());
+        verify(sleeper, times(2)).Sleep(anyLong());
+    }
+
+    @Test
+    void SendBatchWaitsAJitteredExponentialDelay() throws InterruptedException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD, NotificationSenderRetrying.DEFAULT_CIRCUIT_FAILURE_THRESHOLD)).thenReturn(1000);
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+
+        for (int i = 0; i < 20; i++) {
+            retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        }
+
+        val delays = ArgumentCaptor.forClass(Long.class);
+        verify(sleeper, times(40)).Sleep(delays.capture());
+        for (int i = 0; i < delays.getAllValues().size(); i += 2) {
+            assertTrue(delays.getAllValues().get(i) <= 100);
+            assertTrue(delays.getAllValues().get(i + 1) <= 150);
+        }
+        assertTrue(delays.getAllValues().stream().distinct().count() > 1);
+    }
+
+    @Test
+    void SendBatchDoesNotRetryBeyondTheDeadline() throws InterruptedException {
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1}, System.nanoTime());
+
+        assertArrayEquals(new boolean[]{false}, result);
+        verify(sender, times(1)).SendBatch(any(Notification[].class), anyLong());
+        verify(sleeper, never()).Sleep(anyLong());
+    }
+
+    @Test
+    void SendBatchOpensTheCircuitAfterConsecutiveFailures() {
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+
+        assertArrayEquals(new boolean[]{false}, result);
+        verify(sender, times(2)).SendBatch(any(Notification[].class), anyLong());
+    }
+
+    @Test
+    void SendBatchClosesTheCircuitWhenTheProbeSucceeds() {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_MAX_ATTEMPTS, NotificationSenderRetrying.DEFAULT_MAX_ATTEMPTS)).thenReturn(2);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, NotificationSenderRetrying.DEFAULT_CIRCUIT_OPEN_MS)).thenReturn(0);
+        when(sender.SendBatch(any(Notification[].class), anyLong()))
+                .thenReturn(new boolean[]{false})
+                .thenReturn(new boolean[]{false})
+                .thenReturn(new boolean[]{true});
+
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        val result = retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+
+        assertArrayEquals(new boolean[]{true}, result);
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+    }
+
+    @Test
+    void SendBatchReopensTheCircuitWhenTheProbeFails() {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, NotificationSenderRetrying.DEFAULT_CIRCUIT_OPEN_MS)).thenReturn(0);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_MAX_ATTEMPTS, NotificationSenderRetrying.DEFAULT_MAX_ATTEMPTS)).thenReturn(1);
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+
+        assertEquals(OPEN, retryingSender.getCircuitState());
+        verify(sender, times(3)).SendBatch(any(Notification[].class), anyLong());
+    }
+
+    @Test
+    void SendBatchReopensTheCircuitWhenTheProbeThrows() {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, NotificationSenderRetrying.DEFAULT_CIRCUIT_OPEN_MS)).thenReturn(0);
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_SEND_MAX_ATTEMPTS, NotificationSenderRetrying.DEFAULT_MAX_ATTEMPTS)).thenReturn(1);
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        when(sender.SendBatch(any(Notification[].class), anyLong()))
+                .thenThrow(new IllegalStateException("Unexpected"))
+                .thenReturn(new boolean[]{true});
+        assertThrows(IllegalStateException.class, () -> retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE));
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        assertArrayEquals(new boolean[]{true}, retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE));
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+    }
+
+    @Test
+    void AfterRestoreClosesTheCircuit() {
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{false});
+        retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE);
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        retryingSender.AfterRestore();
+
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+        when(sender.SendBatch(any(Notification[].class), anyLong())).thenReturn(new boolean[]{true});
+        assertArrayEquals(new boolean[]{true}, retryingSender.SendBatch(new Notification[]{notification1}, Long.MAX_VALUE));
+    }
+
+    @Test
+    void SendRetriesUntilTheNotificationIsSent() throws DalException, InterruptedException {
+        doThrow(new DalException("Throttled")).doNothing().when(sender).Send(notification1);
+
+        retryingSender.Send(notification1);
+
+        verify(sender, times(2)).Send(notification1);
+        verify(sleeper, times(1)).Sleep(anyLong());
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+    }
+
+    @Test
+    void SendFailsAfterTheMaxAttempts() throws DalException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_FAILURE_THRESHOLD, NotificationSenderRetrying.DEFAULT_CIRCUIT_FAILURE_THRESHOLD)).thenReturn(10);
+        doThrow(new DalException("Throttled")).when(sender).Send(notification1);
+
+        val exception = assertThrows(DalException.class, () -> retryingSender.Send(notification1));
+
+        assertEquals("Throttled", exception.getMessage());
+        verify(sender, times(3)).Send(notification1);
+    }
+
+    @Test
+    void SendReopensTheCircuitWhenTheProbeThrows() throws DalException {
+        when(settingsReader.ReadInt(Settings.NOTIFICATION_CIRCUIT_OPEN_MS, NotificationSenderRetrying.DEFAULT_CIRCUIT_OPEN_MS)).thenReturn(0);
+        doThrow(new DalException("Throttled")).when(sender).Send(notification1);
+        assertThrows(DalException.class, () -> retryingSender.Send(notification1));
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        doThrow(new IllegalStateException("Unexpected")).doNothing().when(sender).Send(notification2);
+        assertThrows(IllegalStateException.class, () -> retryingSender.Send(notification2));
+        assertEquals(OPEN, retryingSender.getCircuitState());
+
+        retryingSender.Send(notification2);
+        assertEquals(CLOSED, retryingSender.getCircuitState());
+    }
+
+    @Test
+    void SendFailsWhileTheCircuitIsOpen() throws DalException {
+        doThrow(new DalException("Throttled")).when(sender).Send(notification1);
+        assertThrows(DalException.class, () -> retryingSender.Send(notification1));
+
+        val exception = assertThrows(DalException.class, () -> retryingSender.Send(notification2));
+
+        assertEquals("Notification circuit open", exception.getMessage());
+        verify(sender, never()).Send(notification2);
+    }
+}
@@ -4,12 +4,18 @@ import com.tddapps.model.heartbeats.HeartBeat;
 import com.tddapps.model.notifications.NotificationMetadata;
 import com.tddapps.utils.NowReader;
 import lombok.val;
+import lombok.var;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
 import static com.tddapps.model.heartbeats.test.HeartBeatFactory.TEST_REGION_DEFAULT;
 import static com.tddapps.utils.DateExtensions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -77,4 +83,56 @@ class SingleNotificationBuilderTest {
                 "--";
         assertEquals(expectedBody, notification.getMessage());
     }
+
+    @Test
+    void TruncatesTheSubjectWhenThereAreTooManyHosts() {
+        val heartBeats = IntStream.range(0, 50)
+                .mapToObj(i -> new HeartBeat(String.format("host%d", i), EpochSecondsNow(), "", TEST_REGION_DEFAULT, false))
+                .toArray(HeartBeat[]::new);
+
+        val notifications = builder.build(new NotificationMetadata("deleted"), heartBeats);
+        assertEquals(1, notifications.length);
+
+        val subject = notifications[0].getSubject();
+        assertTrue(subject.length() <= SingleNotificationBuilder.MAX_SUBJECT_LENGTH);
+        assertTrue(subject.startsWith("deleted [host0, host1, host2, "));
+        assertTrue(subject.matches(".*host\\d+ and \\d+ more\\]"));
+        assertTrue(notifications[0].getMessage().startsWith(subject + "\n\n"));
+    }
+
+    @Test
+    void SummarizesTheSubjectWhenTheFirstHostDoesNotFit() {
+        val longHostId = String.join("", Collections.nCopies(120, "x"));
+        val heartBeats = new HeartBeat[]{
+                new HeartBeat(longHostId, EpochSecondsNow(), "", TEST_REGION_DEFAULT, false),
+                new HeartBeat("host2", EpochSecondsNow(), "", TEST_REGION_DEFAULT, false)
+        };
+
+        val notifications = builder.build(new NotificationMetadata("deleted"), heartBeats);
+
+        assertEquals("deleted [2 hosts]", notifications[0].getSubject());
+    }
+
+    @Test
+    void SplitsTheNotificationsThatExceedTheMessageSizeLimit() {
+        val heartBeats = IntStream.range(0, 3000)
+                .mapToObj(i -> new HeartBeat(String.format("store-%04d.region.example.com", i), EpochSecondsNow(), "", TEST_REGION_DEFAULT, false))
+                .toArray(HeartBeat[]::new);
+
+        val notifications = builder.build(new NotificationMetadata("deleted"), heartBeats);
+
+        assertTrue(notifications.length > 1);
+        var hostCount = 0;
+        for (val notification : notifications){
+            assertTrue(notification.getSubject().length() <= SingleNotificationBuilder.MAX_SUBJECT_LENGTH);
+            assertTrue(notification.getMessage().getBytes(StandardCharsets.UTF_8).length <= SingleNotificationBuilder.MAX_MESSAGE_BYTES);
+            assertTrue(notification.getMessage().endsWith("Notification Built: " + utcNowFormatted + "\n--"));
+            hostCount += notification.getMessage().split("HeartBeat, ").length - 1;
+            assertEquals(notification.getMessage().split("HeartBeat, ").length - 1, notification.getSourceHostIds().size());
+        }
+        assertEquals(3000, hostCount);
+        assertEquals("store-0000.region.example.com", notifications[0].getSourceHostIds().get(0));
+        assertEquals("store-2999.region.example.com", notifications[notifications.length - 1].getSourceHostIds().get(notifications[notifications.length - 1].getSourceHostIds().size() - 1));
+        assertTrue(notifications[1].getSubject().startsWith("deleted [store-"));
+    }
 }
@@ -3,8 +3,12 @@ package com.tddapps.model.notifications.test;
 import com.tddapps.model.heartbeats.HeartBeatChangeEvent;
 import com.tddapps.model.notifications.HeartBeatChangeEventNotificationBuilder;
 import com.tddapps.model.notifications.Notification;
+import com.tddapps.model.notifications.NotificationLedgerEntry;
+
+import lombok.val;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 public class HeartBeatChangeEventNotificationBuilderOneToOneStub implements HeartBeatChangeEventNotificationBuilder {
     @Override
@@ -19,9 +23,16 @@ public class HeartBeatChangeEventNotificationBuilderOneToOneStub implements Hear
     }
 
     private static Notification toNotification(HeartBeatChangeEvent input){
-        return new Notification(
+        val result = new Notification(
                 "S-" + input.heartBeat.getHostId(),
                 "M-" + input.heartBeat.getHostId() + "-" + input.type
         );
+
+        if (input.sequenceNumber != null){
+            result.setSourceSequenceNumbers(Collections.singletonList(input.sequenceNumber));
+        }
+        result.setSourceEventIds(Collections.singletonList(NotificationLedgerEntry.BuildId(input)));
+
+        return result;
     }
 }
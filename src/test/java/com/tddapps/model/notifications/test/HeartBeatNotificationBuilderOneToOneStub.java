@@ -5,7 +5,10 @@ import com.tddapps.model.notifications.HeartBeatNotificationBuilder;
 import com.tddapps.model.notifications.Notification;
 import com.tddapps.model.notifications.NotificationMetadata;
 
+import lombok.val;
+
 import java.util.Arrays;
+import java.util.Collections;
 
 import static com.tddapps.utils.StringExtensions.EmptyWhenNull;
 
@@ -17,13 +20,19 @@ public class HeartBeatNotificationBuilderOneToOneStub implements HeartBeatNotifi
         }
 
         return Arrays.stream(heartBeats)
-                .map(hb -> new Notification(
-                        "SS-" + hb.getHostId(),
-                        "MM-" + hb.getHostId() + "-" + getSubject(metadata)
-                ))
+                .map(hb -> toNotification(metadata, hb))
                 .toArray(Notification[]::new);
     }
 
+    private static Notification toNotification(NotificationMetadata metadata, HeartBeat heartBeat) {
+        val result = new Notification(
+                "SS-" + heartBeat.getHostId(),
+                "MM-" + heartBeat.getHostId() + "-" + getSubject(metadata)
+        );
+        result.setSourceHostIds(Collections.singletonList(heartBeat.getHostId()));
+        return result;
+    }
+
     private static String getSubject(NotificationMetadata metadata) {
         if (metadata == null){
             return "NO_METADATA";
@@ -69,6 +69,45 @@ class CollectionExtensionsTest {
         assertTrue(Intersection(l2, l1).isEmpty());
     }
 
+    @Test
+    void TheIntersectionKeepsTheOrderOfTheFirstList(){
+        val l1 = new ArrayList<Integer>(){{
+            add(5);
+            add(1);
+            add(3);
+            add(1);
+        }};
+
+        val l2 = new ArrayList<Integer>(){{
+            add(1);
+            add(3);
+            add(5);
+        }};
+
+        assertEquals(l1, Intersection(l1, l2));
+    }
+
+    @Test
+    void TheIntersectionCanBeKeyedOnAProperty(){
+        val l1 = new ArrayList<String>(){{
+            add("apple");
+            add("banana");
+            add("cherry");
+        }};
+
+        val l2 = new ArrayList<String>(){{
+            add("avocado");
+            add("coconut");
+        }};
+
+        val expected = new ArrayList<String>(){{
+            add("apple");
+            add("cherry");
+        }};
+
+        assertEquals(expected, Intersection(l1, l2, s -> s.charAt(0)));
+    }
+
     @Test
     void TheDifferenceOfTwoEmptyListsIsEmpty(){
         assertTrue(Difference(new ArrayList<Integer>(), new ArrayList<>()).isEmpty());
@@ -114,4 +153,26 @@ class CollectionExtensionsTest {
         assertEquals(expected, Difference(l1, l2));
         assertTrue(Difference(l2, l1).isEmpty());
     }
+
+    @Test
+    void TheDifferenceCanBeKeyedOnAProperty(){
+        val l1 = new ArrayList<String>(){{
+            add("apple");
+            add("banana");
+            add("cherry");
+            add("blueberry");
+        }};
+
+        val l2 = new ArrayList<String>(){{
+            add("avocado");
+            add("coconut");
+        }};
+
+        val expected = new ArrayList<String>(){{
+            add("banana");
+            add("blueberry");
+        }};
+
+        assertEquals(expected, Difference(l1, l2, s -> s.charAt(0)));
+    }
 }
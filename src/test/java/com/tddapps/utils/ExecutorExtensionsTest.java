@@ -0,0 +1,38 @@
+package com.tddapps.utils;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.tddapps.utils.ExecutorExtensions.NewBoundedThreadPool;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorExtensionsTest {
+    @Test
+    void TheBoundedThreadPoolHasAFixedNumberOfThreads(){
+        val pool = (ThreadPoolExecutor) NewBoundedThreadPool("test", 3);
+
+        try {
+            assertEquals(3, pool.getCorePoolSize());
+            assertEquals(3, pool.getMaximumPoolSize());
+            assertTrue(pool.allowsCoreThreadTimeOut());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void TheBoundedThreadPoolRunsNamedDaemonThreads() throws Exception {
+        val pool = NewBoundedThreadPool("test", 1);
+
+        try {
+            val thread = pool.submit(Thread::currentThread).get();
+
+            assertEquals("test-1", thread.getName());
+            assertTrue(thread.isDaemon());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
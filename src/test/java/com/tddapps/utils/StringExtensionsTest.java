@@ -2,6 +2,8 @@ package com.tddapps.utils;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static com.tddapps.utils.StringExtensions.*;
 import static org.junit.Assert.*;
 
@@ -12,4 +14,14 @@ class StringExtensionsTest {
         assertEquals("", EmptyWhenNull(""));
         assertEquals("a", EmptyWhenNull("a"));
     }
+
+    @Test
+    void Utf8LengthCountsTheEncodedBytes(){
+        assertEquals(0, Utf8Length(""));
+        assertEquals(3, Utf8Length("abc"));
+
+        for (String value : new String[]{ "ñandú", "€uro", "host-😀" }){
+            assertEquals(value.getBytes(StandardCharsets.UTF_8).length, Utf8Length(value));
+        }
+    }
 }